@@ -0,0 +1,130 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.QuerydslApplication;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 + 인메모리 H2 데이터셋
+ * <p>
+ * member{i} (age = i % 100) 를 team{i % teams} 에 고르게 나눠 적재한다.
+ * SQL 로그와 p6spy 는 측정값을 왜곡하므로 끈다.
+ */
+public final class BenchmarkDataset implements AutoCloseable {
+
+    private static final int FLUSH_SIZE = 1_000;
+
+    private final ConfigurableApplicationContext context;
+    private final int members;
+    private final int teams;
+
+    private BenchmarkDataset(ConfigurableApplicationContext context, int members, int teams) {
+        this.context = context;
+        this.members = members;
+        this.teams = teams;
+    }
+
+    public static BenchmarkDataset start(String name, int members, int teams, String... properties) {
+        return start(WebApplicationType.NONE, name, members, teams, properties);
+    }
+
+    /**
+     * 임의 포트로 내장 서버까지 띄운다. 포트는 {@link #port()} 로 얻는다
+     */
+    public static BenchmarkDataset startWeb(String name, int members, int teams, String... properties) {
+        var all = new ArrayList<>(List.of(properties));
+        all.add("server.port=0");
+        return start(WebApplicationType.SERVLET, name, members, teams, all.toArray(String[]::new));
+    }
+
+    private static BenchmarkDataset start(WebApplicationType web, String name, int members, int teams,
+                                          String... properties) {
+        var defaults = List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + name + "-" + members,
+                "decorator.datasource.enabled=false",
+                "logging.level.org.hibernate.SQL=warn",
+                "spring.main.banner-mode=off",
+                "spring.jpa.properties.hibernate.format_sql=false",
+                "spring.jpa.properties.hibernate.use_sql_comments=false");
+        var all = new ArrayList<>(defaults);
+        all.addAll(List.of(properties));
+
+        var context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(web)
+                .properties(all.toArray(String[]::new))
+                .run();
+        var dataset = new BenchmarkDataset(context, members, teams);
+        dataset.load();
+        return dataset;
+    }
+
+    private void load() {
+        var em = entityManager();
+        transaction().executeWithoutResult(status -> {
+            var teamIds = new ArrayList<Long>(teams);
+            for (int i = 0; i < teams; i++) {
+                var team = new Team("team" + i);
+                em.persist(team);
+                teamIds.add(team.getId());
+            }
+            for (int i = 0; i < members; i++) {
+                var member = new Member("member" + i, i % 100);
+                member.setTeam(em.getReference(Team.class, teamIds.get(i % teams)));
+                em.persist(member);
+                if ((i + 1) % FLUSH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+    }
+
+    public int getMembers() {
+        return members;
+    }
+
+    public int getTeams() {
+        return teams;
+    }
+
+    public int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public EntityManager entityManager() {
+        return bean(EntityManager.class);
+    }
+
+    public JPAQueryFactory queryFactory() {
+        return bean(JPAQueryFactory.class);
+    }
+
+    public TransactionTemplate transaction() {
+        return new TransactionTemplate(bean(PlatformTransactionManager.class));
+    }
+
+    public TransactionTemplate readOnlyTransaction() {
+        var template = transaction();
+        template.setReadOnly(true);
+        return template;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,128 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.importer.BulkImporter;
+import com.jpastudy.querydsl.importer.ImportFormat;
+import com.jpastudy.querydsl.importer.ImportReport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV / JSON lines / H2 CSVREAD 적재 시간 비교. BulkLoadBenchmark 의 JPA 적재와 비교한다
+ * <p>
+ * 매번 커밋하고 측정 밖에서 지운다. ImportReport 의 초당 행 수와 최대 힙 사용량은 Report 카운터로 나온다.
+ * ./gradlew jmh -PjmhIncludes=BulkImportBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class BulkImportBenchmark {
+
+    static final int TEAMS = 100;
+
+    @Param({"100000"})
+    public int members;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    @Param({"CSV", "JSON_LINES", "CSVREAD"})
+    public String mode;
+
+    BenchmarkDataset dataset;
+    BulkImporter importer;
+    EntityManager em;
+    TransactionTemplate tx;
+    Path dir;
+    Path csv;
+    Path jsonLines;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Report {
+
+        public long rowsPerSecond;
+        public long peakHeapMegabytes;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            rowsPerSecond = 0;
+            peakHeapMegabytes = 0;
+        }
+
+        ImportReport record(ImportReport report) {
+            rowsPerSecond = Math.round(report.getRowsPerSecond());
+            peakHeapMegabytes = report.getPeakHeapBytes() / (1024 * 1024);
+            return report;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataset = BenchmarkDataset.start("bulk-import", 0, 0);
+        importer = dataset.bean(BulkImporter.class);
+        em = dataset.entityManager();
+        tx = dataset.transaction();
+
+        dir = Files.createTempDirectory("bulk-import");
+        csv = dir.resolve("members.csv");
+        jsonLines = dir.resolve("members.jsonl");
+        try (var csvWriter = Files.newBufferedWriter(csv);
+             var jsonWriter = Files.newBufferedWriter(jsonLines)) {
+            csvWriter.write("username,age,teamName\n");
+            for (int i = 0; i < members; i++) {
+                csvWriter.write("member" + i + "," + (i % 100) + ",team" + (i % TEAMS) + "\n");
+                jsonWriter.write("{\"username\":\"member" + i + "\",\"age\":" + (i % 100)
+                                         + ",\"teamName\":\"team" + (i % TEAMS) + "\"}\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataset.close();
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(jsonLines);
+        Files.deleteIfExists(dir);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteAll() {
+        tx.executeWithoutResult(status -> {
+            em.createNativeQuery("delete from team_stats").executeUpdate();
+            em.createNativeQuery("delete from text_gram").executeUpdate();
+            em.createNativeQuery("delete from member").executeUpdate();
+            em.createNativeQuery("delete from team").executeUpdate();
+        });
+    }
+
+    @Benchmark
+    public ImportReport load(Report report) throws IOException {
+        if (mode.equals("CSVREAD")) {
+            return report.record(importer.importMembersWithCsvRead(csv));
+        }
+        var format = mode.equals("CSV") ? ImportFormat.CSV : ImportFormat.JSON_LINES;
+        try (var reader = Files.newBufferedReader(format == ImportFormat.CSV ? csv : jsonLines)) {
+            return report.record(importer.importMembers(reader, format, batchSize));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Member/Team 대량 적재 시간 비교
+ * <p>
+ * SINGLE_ROW: 이전 방식. insert 마다 시퀀스 조회, 배치 없음 / POOLED_BATCH: pooled-lo 시퀀스 + JDBC 배치 insert.
+ * 매번 커밋하고 측정 밖에서 지운다.
+ * ./gradlew jmh -PjmhIncludes=BulkLoadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class BulkLoadBenchmark {
+
+    static final int FLUSH_SIZE = 1_000;
+    static final int TEAMS = 100;
+
+    @Param({"100000"})
+    public int members;
+
+    @Param({"SINGLE_ROW", "POOLED_BATCH"})
+    public String mode;
+
+    BenchmarkDataset dataset;
+    EntityManager em;
+    TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var properties = mode.equals("SINGLE_ROW")
+                ? new String[]{
+                        "spring.jpa.properties.jpastudy.id.allocation_size.member_seq=1",
+                        "spring.jpa.properties.jpastudy.id.allocation_size.team_seq=1",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=0",
+                        "spring.jpa.properties.hibernate.order_inserts=false"}
+                : new String[0];
+        dataset = BenchmarkDataset.start("bulk-load-" + mode, 0, 0, properties);
+        em = dataset.entityManager();
+        tx = dataset.transaction();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteAll() {
+        tx.executeWithoutResult(status -> {
+            em.createNativeQuery("delete from team_stats").executeUpdate();
+            em.createNativeQuery("delete from text_gram").executeUpdate();
+            em.createNativeQuery("delete from member").executeUpdate();
+            em.createNativeQuery("delete from team").executeUpdate();
+        });
+    }
+
+    @Benchmark
+    public void load() {
+        tx.executeWithoutResult(status -> {
+            var teamIds = new ArrayList<Long>(TEAMS);
+            for (int i = 0; i < TEAMS; i++) {
+                var team = new Team("team" + i);
+                em.persist(team);
+                teamIds.add(team.getId());
+            }
+
+            for (int i = 0; i < members; i++) {
+                var member = new Member("member" + i, i % 100);
+                member.setTeam(em.getReference(Team.class, teamIds.get(i % TEAMS)));
+                em.persist(member);
+                if ((i + 1) % FLUSH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 크기에 따른 changeTeam + flush 지연. 트랜잭션은 매번 롤백해서 팀 크기를 유지한다
+ * <p>
+ * queued 는 members 를 읽지 않은 채로 옮기고, loaded 는 옮기기 전에 두 팀의 members 를 읽는다 (컬렉션이 초기화된 경우).
+ * queued 는 팀 크기와 관계없이 일정해야 한다.
+ * ./gradlew jmh -PjmhIncludes=ChangeTeamBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChangeTeamBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int teamSize;
+
+    @Param({"queued", "loaded"})
+    public String members;
+
+    BenchmarkDataset dataset;
+    EntityManager em;
+    TransactionTemplate transaction;
+    List<Long> teamIds;
+    List<Long> memberIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start("change-team", teamSize * 2, 2);
+        em = dataset.entityManager();
+        transaction = dataset.transaction();
+        var queryFactory = dataset.queryFactory();
+        teamIds = dataset.readOnlyTransaction().execute(status -> queryFactory.select(team.id)
+                                                                              .from(team)
+                                                                              .orderBy(team.id.asc())
+                                                                              .fetch());
+        memberIds = dataset.readOnlyTransaction().execute(status -> queryFactory.select(member.id)
+                                                                                .from(member)
+                                                                                .limit(1_000)
+                                                                                .fetch());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public Member changeTeam() {
+        var memberId = memberIds.get(ThreadLocalRandom.current().nextInt(memberIds.size()));
+        return transaction.execute(status -> {
+            status.setRollbackOnly();
+            var moved = em.find(Member.class, memberId);
+            var from = moved.getTeam();
+            var to = em.find(Team.class, from.getId().equals(teamIds.get(0)) ? teamIds.get(1) : teamIds.get(0));
+            if (members.equals("loaded")) {
+                from.getMembers().size();
+                to.getMembers().size();
+            }
+            moved.changeTeam(to);
+            em.flush();
+            return moved;
+        });
+    }
+}
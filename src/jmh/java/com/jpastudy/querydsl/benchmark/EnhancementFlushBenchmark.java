@@ -0,0 +1,107 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.entity.Member;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 10만 명을 영속성 컨텍스트에 올린 상태에서 flush 한 번의 시간과 컨텍스트가 잡고 있는 힙
+ * <p>
+ * 향상하지 않으면 엔티티마다 로딩 시점 스냅샷을 들고 flush 때 모든 필드를 비교하고,
+ * 향상하면 setter 가 바뀐 속성만 기록하므로 스냅샷 비교가 없다. 빌드를 바꿔 두 번 돌려 비교한다.
+ * 향상 여부(enhanced)와 컨텍스트가 잡은 힙(contextHeapMegabytes)은 Context 카운터로 나온다.
+ * ./gradlew jmh -PjmhIncludes=EnhancementFlushBenchmark
+ * ./gradlew jmh -PjmhIncludes=EnhancementFlushBenchmark -Phibernate.enhance=false
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class EnhancementFlushBenchmark {
+
+    static final int MEMBERS = 100_000;
+    static final boolean ENHANCED = ManagedEntity.class.isAssignableFrom(Member.class);
+
+    /**
+     * flush 전에 바꾸는 회원 비율(%)
+     */
+    @Param({"0", "1"})
+    public int dirtyPercent;
+
+    BenchmarkDataset dataset;
+    EntityManagerFactory emf;
+    EntityManager em;
+    long contextHeap;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Context {
+
+        public long enhanced;
+        public long contextHeapMegabytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start("enhancement-flush", MEMBERS, 100);
+        emf = dataset.bean(EntityManagerFactory.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void load() {
+        var before = usedHeap();
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+        contextHeap = usedHeap() - before;
+
+        int step = dirtyPercent == 0 ? Integer.MAX_VALUE : 100 / dirtyPercent;
+        for (int i = 0; i < members.size(); i += step) {
+            members.get(i).setAge(members.get(i).getAge() + 1);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void rollback() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    @Benchmark
+    public void flush(Context context) {
+        em.flush();
+        context.enhanced = ENHANCED ? 1 : 0;
+        context.contextHeapMegabytes = contextHeap / (1024 * 1024);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,104 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * Member / Team 보조 인덱스 유무에 따른 MemberTest 조회 패턴 지연 시간
+ * <p>
+ * indexed=false 는 적재 후 보조 인덱스를 지운다. idx_member_team_age 는 FK 제약이 쓰고 있어 남겨 둔다.
+ * <p>
+ * ./gradlew jmh -PjmhIncludes=IndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IndexBenchmark {
+
+    private static final List<String> DROPPABLE = List.of(
+            "idx_member_username_age", "idx_member_age_username", "idx_team_name");
+
+    @Param({"1000000"})
+    public int members;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    BenchmarkDataset dataset;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start("index-" + indexed, members, 100);
+        queryFactory = dataset.queryFactory();
+        readOnly = dataset.readOnlyTransaction();
+        if (!indexed) {
+            var em = dataset.entityManager();
+            dataset.transaction().executeWithoutResult(status -> DROPPABLE.forEach(
+                    index -> em.createNativeQuery("drop index " + index).executeUpdate()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public Member usernameEq() {
+        var username = "member" + ThreadLocalRandom.current().nextInt(members);
+        return readOnly.execute(status -> queryFactory.selectFrom(member)
+                                                      .where(member.username.eq(username))
+                                                      .fetchOne());
+    }
+
+    @Benchmark
+    public List<Member> ageBetweenOrderByUsernameDesc() {
+        var from = ThreadLocalRandom.current().nextInt(90);
+        return readOnly.execute(status -> queryFactory.selectFrom(member)
+                                                      .where(member.age.between(from, from + 1))
+                                                      .orderBy(member.username.desc())
+                                                      .limit(20)
+                                                      .fetch());
+    }
+
+    @Benchmark
+    public Team teamNameEq() {
+        var name = "team" + ThreadLocalRandom.current().nextInt(dataset.getTeams());
+        return readOnly.execute(status -> queryFactory.selectFrom(team)
+                                                      .where(team.name.eq(name))
+                                                      .fetchOne());
+    }
+
+    /**
+     * MemberTest 의 세타 조인. team.name 인덱스가 있으면 member 한 행마다 인덱스 탐색 한 번
+     */
+    @Benchmark
+    public List<Tuple> thetaJoin() {
+        return readOnly.execute(status -> queryFactory.select(member.id, team.id)
+                                                      .from(member, team)
+                                                      .where(member.username.eq(team.name))
+                                                      .fetch());
+    }
+}
@@ -0,0 +1,95 @@
+package com.jpastudy.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /v1/members 에 동시 요청을 보내 지연 시간 분포를 잰다. 503(대기열 초과)은 rejected 로 따로 센다
+ * <p>
+ * ./gradlew jmh -PjmhIncludes=MemberSearchLoadBenchmark
+ * 동시 요청 수는 {@code @Threads} 로 정한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(32)
+public class MemberSearchLoadBenchmark {
+
+    @Param({"100000"})
+    public int members;
+
+    BenchmarkDataset dataset;
+    HttpClient client;
+    String baseUri;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rejected = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.startWeb("member-search-load", members, 100);
+        client = HttpClient.newHttpClient();
+        baseUri = "http://localhost:" + dataset.port() + "/v1/members?";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public int search(Responses responses) throws IOException, InterruptedException {
+        var response = client.send(HttpRequest.newBuilder(randomSearch()).build(),
+                                   HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 503) {
+            responses.rejected++;
+        } else if (response.statusCode() != 200) {
+            throw new IllegalStateException("unexpected status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    private URI randomSearch() {
+        var random = ThreadLocalRandom.current();
+        List<String> params = new ArrayList<>();
+        params.add("size=20");
+        if (random.nextBoolean()) {
+            params.add("teamName=team" + random.nextInt(100));
+        }
+        if (random.nextBoolean()) {
+            var from = random.nextInt(90);
+            params.add("ageGoe=" + from);
+            params.add("ageLoe=" + (from + 10));
+        }
+        return URI.create(baseUri + String.join("&", params));
+    }
+}
@@ -0,0 +1,170 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.persistence.EvictionPolicy;
+import com.jpastudy.querydsl.persistence.PersistenceContextGovernor;
+import com.jpastudy.querydsl.query.ReadOnlyJPAQueryFactory;
+import com.jpastudy.querydsl.stats.TeamStatsRepository;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+
+/**
+ * 한 트랜잭션에서 회원 전체를 keyset 으로 훑으며 age 를 고치는 배치의 시간과 최대 힙 사용량 비교
+ * <p>
+ * 제한 없음 / flush+clear / LRU detach / 읽기 전용 로딩 + flush+clear. 페이지마다 checkpoint 하고, 매번 롤백해서 같은 데이터를 본다.
+ * 최대 힙은 peakHeapMegabytes 로 나오며, 힙 풀마다의 peak 를 더한 값이라 실제 최대치보다 조금 크게 나온다.
+ * -Xmx4g 에서 UNBOUNDED 가 OutOfMemoryError 로 끝나는 것도 결과다.
+ * ./gradlew jmh -PjmhIncludes=PersistenceContextBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class PersistenceContextBenchmark {
+
+    static final int PAGE_SIZE = 1_000;
+    static final int MAX_ENTITIES = 10_000;
+
+    @Param({"5000000"})
+    public int members;
+
+    @Param({"UNBOUNDED", "FLUSH_CLEAR", "DETACH_LRU", "READ_ONLY"})
+    public String mode;
+
+    BenchmarkDataset dataset;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    ReadOnlyJPAQueryFactory readOnlyQueryFactory;
+    PersistenceContextGovernor governor;
+    TransactionTemplate tx;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+
+        public long peakHeapMegabytes;
+
+        List<MemoryPoolMXBean> pools;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                                     .filter(pool -> pool.getType() == MemoryType.HEAP)
+                                     .collect(Collectors.toList());
+        }
+
+        @Setup(Level.Invocation)
+        public void resetPeak() {
+            System.gc();
+            pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            peakHeapMegabytes = 0;
+        }
+
+        void recordPeak() {
+            var peak = pools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            peakHeapMegabytes = peak / 1024 / 1024;
+        }
+    }
+
+    /**
+     * 엔티티로 넣으면 적재가 측정보다 오래 걸리므로 system_range 로 한 번에 넣는다
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start("persistence-context", 0, 0);
+        em = dataset.entityManager();
+        queryFactory = dataset.queryFactory();
+        readOnlyQueryFactory = dataset.bean(ReadOnlyJPAQueryFactory.class);
+        governor = dataset.bean(PersistenceContextGovernor.class);
+        tx = dataset.transaction();
+        tx.executeWithoutResult(status -> {
+            em.createNativeQuery("insert into team (team_id, name) select x, 'team' || x from system_range(1, 100)")
+              .executeUpdate();
+            em.createNativeQuery("insert into member (member_id, username, age, team_id)"
+                                         + " select x, 'member' || x, mod(x, 100), mod(x, 100) + 1"
+                                         + " from system_range(1, " + members + ")")
+              .executeUpdate();
+            dataset.bean(TeamStatsRepository.class).recomputeAll();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public long scanAndUpdate(Heap heap) {
+        Long scanned = tx.execute(status -> {
+            status.setRollbackOnly();
+            if (mode.equals("UNBOUNDED")) {
+                return scan(null);
+            }
+            var policy = mode.equals("DETACH_LRU") ? EvictionPolicy.DETACH_LRU : EvictionPolicy.FLUSH_CLEAR;
+            try (var scope = governor.open(MAX_ENTITIES, policy)) {
+                return scan(scope::checkpoint);
+            }
+        });
+        heap.recordPeak();
+        return scanned == null ? 0 : scanned;
+    }
+
+    private long scan(Runnable checkpoint) {
+        long scanned = 0;
+        long lastId = 0;
+        for (var page = page(lastId); !page.isEmpty(); page = page(lastId)) {
+            for (Member m : page) {
+                m.setAge(m.getAge() + 1);
+            }
+            scanned += page.size();
+            lastId = page.get(page.size() - 1).getId();
+            if (checkpoint != null) {
+                checkpoint.run();
+            }
+        }
+        em.flush();
+        return scanned;
+    }
+
+    /**
+     * READ_ONLY 는 스냅샷 없이 읽고 고칠 엔티티만 쓰기 가능으로 돌린다
+     */
+    private List<Member> page(long lastId) {
+        var factory = mode.equals("READ_ONLY") ? readOnlyQueryFactory : queryFactory;
+        var page = factory.selectFrom(member)
+                          .where(member.id.gt(lastId))
+                          .orderBy(member.id.asc())
+                          .limit(PAGE_SIZE)
+                          .fetch();
+        if (factory == readOnlyQueryFactory) {
+            var session = em.unwrap(Session.class);
+            page.forEach(m -> session.setReadOnly(m, false));
+        }
+        return page;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+
+/**
+ * querydsl.metrics 를 끈 것과 켠 것(10% 샘플링, 전부 기록)의 쿼리 지연 비교. off 대비 차이가 계측 비용이다
+ * <p>
+ * 짧은 쿼리일수록 비율이 커지므로 인덱스를 타는 한 행 조회와 20 행 조회를 잰다.
+ * ./gradlew jmh -PjmhIncludes=QueryMetricsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryMetricsBenchmark {
+
+    @Param({"off", "sampled", "full"})
+    public String metrics;
+
+    BenchmarkDataset dataset;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start("query-metrics-" + metrics, 100_000, 100,
+                                         "querydsl.metrics.enabled=" + !metrics.equals("off"),
+                                         "querydsl.metrics.sample-rate=" + (metrics.equals("full") ? "1.0" : "0.1"),
+                                         "querydsl.metrics.slow-threshold=0");
+        queryFactory = dataset.queryFactory();
+        readOnly = dataset.readOnlyTransaction();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public String singleRow() {
+        var username = "member" + ThreadLocalRandom.current().nextInt(dataset.getMembers());
+        return readOnly.execute(status -> queryFactory.select(member.username)
+                                                      .from(member)
+                                                      .where(member.username.eq(username))
+                                                      .fetchOne());
+    }
+
+    @Benchmark
+    public List<Member> page() {
+        var age = ThreadLocalRandom.current().nextInt(100);
+        return readOnly.execute(status -> queryFactory.selectFrom(member)
+                                                      .where(member.age.eq(age))
+                                                      .orderBy(member.username.asc())
+                                                      .limit(20)
+                                                      .fetch());
+    }
+}
@@ -0,0 +1,152 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.dto.MemberDto;
+import com.jpastudy.querydsl.dto.QMemberDto;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.QMember;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static com.querydsl.jpa.JPAExpressions.select;
+
+/**
+ * MemberTest 에서 쓰는 대표적인 쿼리 모양별 지연 시간
+ * <p>
+ * ./gradlew jmh  (결과: build/results/jmh/results.json)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryShapeBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int members;
+
+    BenchmarkDataset dataset;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate readOnly;
+    TransactionTemplate rollback;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start("query-shape", members, 100);
+        queryFactory = dataset.queryFactory();
+        readOnly = dataset.readOnlyTransaction();
+        rollback = dataset.transaction();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    private String randomTeamName() {
+        return "team" + ThreadLocalRandom.current().nextInt(dataset.getTeams());
+    }
+
+    @Benchmark
+    public Member selectByUsername() {
+        var username = "member" + ThreadLocalRandom.current().nextInt(members);
+        return readOnly.execute(status -> queryFactory.selectFrom(member)
+                                                      .where(member.username.eq(username))
+                                                      .fetchOne());
+    }
+
+    @Benchmark
+    public List<Member> join() {
+        var teamName = randomTeamName();
+        return readOnly.execute(status -> queryFactory.select(member)
+                                                      .from(member)
+                                                      .join(member.team, team)
+                                                      .where(team.name.eq(teamName))
+                                                      .fetch());
+    }
+
+    @Benchmark
+    public List<Member> fetchJoin() {
+        var teamName = randomTeamName();
+        return readOnly.execute(status -> queryFactory.selectFrom(member)
+                                                      .join(member.team, team).fetchJoin()
+                                                      .where(team.name.eq(teamName))
+                                                      .fetch());
+    }
+
+    @Benchmark
+    public List<Member> subQueryMax() {
+        var memberSub = new QMember("memberSub");
+        return readOnly.execute(status -> queryFactory.selectFrom(member)
+                                                      .where(member.age.eq(select(memberSub.age.max())
+                                                                                   .from(memberSub)))
+                                                      .limit(100)
+                                                      .fetch());
+    }
+
+    @Benchmark
+    public List<Member> subQueryIn() {
+        var memberSub = new QMember("memberSub");
+        return readOnly.execute(status -> queryFactory.selectFrom(member)
+                                                      .where(member.age.in(select(memberSub.age)
+                                                                                   .from(memberSub)
+                                                                                   .where(memberSub.age.gt(97))))
+                                                      .limit(100)
+                                                      .fetch());
+    }
+
+    @Benchmark
+    public List<Tuple> groupBy() {
+        return readOnly.execute(status -> queryFactory.select(team.name, member.age.avg())
+                                                      .from(member)
+                                                      .join(member.team, team)
+                                                      .groupBy(team.name)
+                                                      .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> dtoProjection() {
+        var age = ThreadLocalRandom.current().nextInt(100);
+        return readOnly.execute(status -> queryFactory.select(new QMemberDto(member.username, member.age))
+                                                      .from(member)
+                                                      .where(member.age.eq(age))
+                                                      .fetch());
+    }
+
+    @Benchmark
+    public Long bulkUpdate() {
+        var teamName = randomTeamName();
+        return rollback.execute(status -> {
+            status.setRollbackOnly();
+            return queryFactory.update(member)
+                               .set(member.age, member.age.add(1))
+                               .where(member.team.id.in(select(team.id).from(team).where(team.name.eq(teamName))))
+                               .execute();
+        });
+    }
+
+    @Benchmark
+    public Long bulkDelete() {
+        var teamName = randomTeamName();
+        return rollback.execute(status -> {
+            status.setRollbackOnly();
+            return queryFactory.delete(member)
+                               .where(member.team.id.in(select(team.id).from(team).where(team.name.eq(teamName))))
+                               .execute();
+        });
+    }
+}
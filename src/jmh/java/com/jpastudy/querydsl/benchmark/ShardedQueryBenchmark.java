@@ -0,0 +1,76 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.shard.PartitionKey;
+import com.jpastudy.querydsl.shard.ShardedQueryExecutor;
+import com.querydsl.core.Tuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * 200만 회원에서 팀별 집계와 정렬 top-N 을 파티션 1 ~ 8 개로 나눠 병렬 실행할 때의 지연
+ * <p>
+ * parallelism=1 이 한 커넥션에서 그대로 실행한 기준선이다. 코어 수보다 크게 잡으면 더 빨라지지 않는다.
+ * ./gradlew jmh -PjmhIncludes=ShardedQueryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShardedQueryBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"member_id", "team_id"})
+    public String partitionKey;
+
+    BenchmarkDataset dataset;
+    ShardedQueryExecutor executor;
+    PartitionKey key;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start("sharded-query", 2_000_000, 1_000,
+                                         "spring.datasource.hikari.maximum-pool-size=16");
+        executor = new ShardedQueryExecutor(dataset.queryFactory(), dataset.bean(PlatformTransactionManager.class),
+                                            parallelism);
+        key = PartitionKey.valueOf(partitionKey.toUpperCase());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+        dataset.close();
+    }
+
+    @Benchmark
+    public List<Tuple> aggregateByTeam() {
+        return executor.aggregate(key, qf -> qf.from(member).join(member.team, team),
+                                  List.of(team.name),
+                                  member.count(), member.age.sum(), member.age.avg(),
+                                  member.age.min(), member.age.max());
+    }
+
+    @Benchmark
+    public List<Tuple> topN() {
+        return executor.fetch(key, qf -> qf.select(member.username, member.age)
+                                           .from(member)
+                                           .where(member.username.like("member%9"))
+                                           .orderBy(member.age.desc(), member.username.asc())
+                                           .limit(20));
+    }
+}
@@ -0,0 +1,119 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.QuerydslApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 새 JVM 을 띄워 HelloController 가 처음 응답할 때까지의 시간 (프로세스 시작부터) 비교
+ * <p>
+ * 기본 설정 / prod 프로필 / prod 프로필 + AppCDS. jar 클래스패스와 CDS 아카이브 경로는 gradle 이 시스템 프로퍼티로 넘겨준다.
+ * ./gradlew startupBenchmark (cdsArchive 후 이 벤치마크만 돌린다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 10)
+public class StartupBenchmark {
+
+    static final long TIMEOUT_MILLIS = 120_000;
+
+    @Param({"DEFAULT", "PROD", "PROD_CDS"})
+    public String mode;
+
+    String classpath;
+    List<String> jvmArgs;
+    List<String> args;
+    int port;
+    Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        classpath = System.getProperty("benchmark.startup.classpath", System.getProperty("java.class.path"));
+        jvmArgs = new ArrayList<>();
+        args = mode.equals("DEFAULT") ? List.of() : List.of("--spring.profiles.active=prod");
+        if (mode.equals("PROD_CDS")) {
+            var archive = System.getProperty("benchmark.startup.cds-archive");
+            if (archive == null || !Files.exists(Path.of(archive))) {
+                throw new IllegalStateException("CDS archive not found, run ./gradlew cdsArchive first");
+            }
+            jvmArgs.addAll(List.of("-Xshare:auto", "-XX:SharedArchiveFile=" + archive));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void choosePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+            process = null;
+        }
+    }
+
+    @Benchmark
+    public void timeToFirstRequest() throws Exception {
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", classpath, QuerydslApplication.class.getName(),
+                               "--server.port=" + port, "--spring.main.banner-mode=off"));
+        command.addAll(args);
+
+        var start = System.nanoTime();
+        process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("build/startup-benchmark.log")))
+                .start();
+        while (!hello(port)) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("application exited, see build/startup-benchmark.log");
+            }
+            if (System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS)) {
+                throw new IllegalStateException("timed out");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static boolean hello(int port) {
+        try {
+            var connection = (HttpURLConnection) new URL("http://localhost:" + port + "/").openConnection();
+            try (var in = connection.getInputStream()) {
+                return connection.getResponseCode() == 200 && new String(in.readAllBytes()).equals("Hello");
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
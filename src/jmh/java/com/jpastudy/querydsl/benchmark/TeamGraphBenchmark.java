@@ -0,0 +1,97 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.dto.TeamMembersDto;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.repository.TeamGraphLoader;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 페이지 + members 조회: 컬렉션 fetch join (메모리 페이징) 과 TeamGraphLoader 의 지연 비교.
+ * 문장 수는 TeamGraphLoaderTest 가 확인한다
+ * <p>
+ * ./gradlew jmh -PjmhIncludes=TeamGraphBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TeamGraphBenchmark {
+
+    static final int PAGE_SIZE = 20;
+
+    @Param({"100000"})
+    public int members;
+
+    @Param({"1000"})
+    public int teams;
+
+    BenchmarkDataset dataset;
+    JPAQueryFactory queryFactory;
+    TeamGraphLoader loader;
+    TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start("team-graph", members, teams);
+        queryFactory = dataset.queryFactory();
+        loader = dataset.bean(TeamGraphLoader.class);
+        readOnly = dataset.readOnlyTransaction();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    /**
+     * Hibernate 가 limit 없이 전부 읽고 메모리에서 자른다 (HHH000104)
+     */
+    @Benchmark
+    public int fetchJoin() {
+        return readOnly.execute(status -> touch(queryFactory.selectFrom(team)
+                                                            .distinct()
+                                                            .leftJoin(team.members, member).fetchJoin()
+                                                            .orderBy(team.id.asc())
+                                                            .offset(offset())
+                                                            .limit(PAGE_SIZE)
+                                                            .fetch()));
+    }
+
+    @Benchmark
+    public int twoPhaseEntities() {
+        return readOnly.execute(status -> touch(loader.findTeamsWithMembers(null, offset(), PAGE_SIZE)));
+    }
+
+    @Benchmark
+    public List<TeamMembersDto> twoPhaseDtos() {
+        return readOnly.execute(status -> loader.findTeamDtos(null, offset(), PAGE_SIZE));
+    }
+
+    private long offset() {
+        return teams / 2;
+    }
+
+    private static int touch(List<Team> page) {
+        var size = 0;
+        for (Team t : page) {
+            size += t.getMembers().size();
+        }
+        return size;
+    }
+}
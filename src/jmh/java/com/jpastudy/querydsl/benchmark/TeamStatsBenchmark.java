@@ -0,0 +1,73 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.dto.QTeamAgeStats;
+import com.jpastudy.querydsl.dto.TeamAgeStats;
+import com.jpastudy.querydsl.stats.TeamStatsRepository;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * testGroup / testAggregation 모양의 팀별 집계: member 전체 group by 와 team_stats 조회 비교
+ * <p>
+ * ./gradlew jmh -PjmhIncludes=TeamStatsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TeamStatsBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int members;
+
+    BenchmarkDataset dataset;
+    JPAQueryFactory queryFactory;
+    TeamStatsRepository repository;
+    TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start("team-stats", members, 100);
+        queryFactory = dataset.queryFactory();
+        repository = dataset.bean(TeamStatsRepository.class);
+        readOnly = dataset.readOnlyTransaction();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public List<TeamAgeStats> groupByScan() {
+        return readOnly.execute(status -> queryFactory.select(new QTeamAgeStats(team.name,
+                                                                                member.count(),
+                                                                                member.age.sum(),
+                                                                                member.age.min(),
+                                                                                member.age.max()))
+                                                      .from(member)
+                                                      .join(member.team, team)
+                                                      .groupBy(team.name)
+                                                      .fetch());
+    }
+
+    @Benchmark
+    public List<TeamAgeStats> materialized() {
+        return repository.aggregateByTeamName();
+    }
+}
@@ -0,0 +1,154 @@
+package com.jpastudy.querydsl.benchmark;
+
+import com.jpastudy.querydsl.stats.TeamStatsRepository;
+import com.jpastudy.querydsl.text.TextIndexRepository;
+import com.jpastudy.querydsl.text.TextSearch;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * 대소문자 무시 접두어/부분 문자열 검색: lower(..) like 전체 스캔과 TextSearch (n-gram 색인) 의 지연 비교
+ * <p>
+ * 회원마다 gram 이 열 개 남짓 생겨 인메모리 H2 로는 힙이 모자라므로 파일 DB 를 쓴다.
+ * 스키마를 update 로 두고 회원 수가 같으면 이전 trial 의 데이터와 색인을 그대로 쓴다.
+ * ./gradlew jmh -PjmhIncludes=TextSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TextSearchBenchmark {
+
+    static final int TEAMS = 1_000;
+
+    @Param({"1000000"})
+    public int members;
+
+    /**
+     * PREFIX_U 는 모든 회원이 걸리는 gram 뿐이라 TextSearch 도 like 로 돈다
+     */
+    @Param({"INFIX_R12345", "INFIX_4242", "PREFIX_USER9999", "PREFIX_U", "TEAM_INFIX_AM77"})
+    public String query;
+
+    BenchmarkDataset dataset;
+    JPAQueryFactory queryFactory;
+    TextSearch textSearch;
+    TransactionTemplate readOnly;
+    Predicate like;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start("text-search", 0, 0,
+                                         "spring.datasource.url=jdbc:h2:file:./build/text-search-benchmark/db",
+                                         "spring.jpa.hibernate.ddl-auto=update");
+        queryFactory = dataset.queryFactory();
+        textSearch = dataset.bean(TextSearch.class);
+        readOnly = dataset.readOnlyTransaction();
+        load();
+
+        switch (query) {
+            case "INFIX_R12345":
+                like = member.username.containsIgnoreCase("r12345");
+                break;
+            case "INFIX_4242":
+                like = member.username.containsIgnoreCase("4242");
+                break;
+            case "PREFIX_USER9999":
+                like = member.username.startsWithIgnoreCase("USER9999");
+                break;
+            case "PREFIX_U":
+                like = member.username.startsWithIgnoreCase("u");
+                break;
+            case "TEAM_INFIX_AM77":
+                like = team.name.containsIgnoreCase("am77");
+                break;
+            default:
+                throw new IllegalArgumentException(query);
+        }
+        var likeRows = like();
+        var indexedRows = ngram();
+        if (likeRows != indexedRows) {
+            throw new IllegalStateException(query + ": like " + likeRows + " rows, n-gram " + indexedRows + " rows");
+        }
+    }
+
+    private void load() {
+        Long loaded = readOnly.execute(status -> queryFactory.select(member.count()).from(member).fetchOne());
+        if (loaded != null && loaded == members) {
+            return;
+        }
+        EntityManager em = dataset.entityManager();
+        dataset.transaction().executeWithoutResult(status -> {
+            em.createNativeQuery("delete from text_gram").executeUpdate();
+            em.createNativeQuery("delete from team_stats").executeUpdate();
+            em.createNativeQuery("delete from member").executeUpdate();
+            em.createNativeQuery("delete from team").executeUpdate();
+            em.createNativeQuery("insert into team (team_id, name)"
+                                         + " select x, 'Team' || x from system_range(1, " + TEAMS + ")")
+              .executeUpdate();
+            em.createNativeQuery("insert into member (member_id, username, age, team_id)"
+                                         + " select x, 'User' || x, mod(x, 100), mod(x, " + TEAMS + ") + 1"
+                                         + " from system_range(1, " + members + ")")
+              .executeUpdate();
+            dataset.bean(TeamStatsRepository.class).recomputeAll();
+        });
+        dataset.bean(TextIndexRepository.class).rebuildAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public long like() {
+        return count(() -> like);
+    }
+
+    /**
+     * gram 을 고르는 조회까지 포함해서 잰다
+     */
+    @Benchmark
+    public long ngram() {
+        return count(() -> {
+            switch (query) {
+                case "INFIX_R12345":
+                    return textSearch.usernameContains(member, "r12345");
+                case "INFIX_4242":
+                    return textSearch.usernameContains(member, "4242");
+                case "PREFIX_USER9999":
+                    return textSearch.usernameStartsWith(member, "USER9999");
+                case "PREFIX_U":
+                    return textSearch.usernameStartsWith(member, "u");
+                default:
+                    return textSearch.nameContains(team, "am77");
+            }
+        });
+    }
+
+    private long count(Supplier<Predicate> predicate) {
+        Long count = readOnly.execute(status -> queryFactory.select(member.count())
+                                                            .from(member)
+                                                            .join(member.team, team)
+                                                            .where(predicate.get())
+                                                            .fetchOne());
+        return count == null ? 0 : count;
+    }
+}
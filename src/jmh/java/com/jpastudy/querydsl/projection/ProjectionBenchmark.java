@@ -0,0 +1,72 @@
+package com.jpastudy.querydsl.projection;
+
+import com.jpastudy.querydsl.dto.MemberDto;
+import com.jpastudy.querydsl.dto.QMemberDto;
+import com.jpastudy.querydsl.dto.UserDto;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+
+/**
+ * 한 행을 DTO 로 변환하는 비용 비교 (리플렉션 기반 Projections vs CompiledProjections vs @QueryProjection)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+    private final FactoryExpression<MemberDto> reflectionBean = Projections.bean(MemberDto.class, member.username, member.age);
+    private final FactoryExpression<MemberDto> reflectionFields = Projections.fields(MemberDto.class, member.username, member.age);
+    private final FactoryExpression<UserDto> reflectionConstructor = Projections.constructor(UserDto.class, member.username, member.age);
+    private final FactoryExpression<MemberDto> queryProjection = new QMemberDto(member.username, member.age);
+
+    private final FactoryExpression<MemberDto> compiledBean = CompiledProjections.bean(MemberDto.class, member.username, member.age);
+    private final FactoryExpression<MemberDto> compiledFields = CompiledProjections.fields(MemberDto.class, member.username, member.age);
+    private final FactoryExpression<UserDto> compiledConstructor = CompiledProjections.constructor(UserDto.class, member.username, member.age);
+
+    private final Object[] row = {"member1", 10};
+
+    @Benchmark
+    public MemberDto reflectionBean() {
+        return reflectionBean.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberDto reflectionFields() {
+        return reflectionFields.newInstance(row);
+    }
+
+    @Benchmark
+    public UserDto reflectionConstructor() {
+        return reflectionConstructor.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberDto queryProjection() {
+        return queryProjection.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberDto compiledBean() {
+        return compiledBean.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberDto compiledFields() {
+        return compiledFields.newInstance(row);
+    }
+
+    @Benchmark
+    public UserDto compiledConstructor() {
+        return compiledConstructor.newInstance(row);
+    }
+}
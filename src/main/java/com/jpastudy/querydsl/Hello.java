@@ -1,6 +1,9 @@
 package com.jpastudy.querydsl;
 
+import com.jpastudy.querydsl.entity.id.PooledSequenceGenerator;
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -9,7 +12,12 @@ import javax.persistence.Id;
 @Data
 @Entity
 public class Hello {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "hello_seq")
+    @GenericGenerator(name = "hello_seq", strategy = PooledSequenceGenerator.NAME, parameters = {
+            @Parameter(name = "sequence_name", value = "hello_seq"),
+            @Parameter(name = "increment_size", value = "50")
+    })
     private Long id;
     private String name;
     private int age;
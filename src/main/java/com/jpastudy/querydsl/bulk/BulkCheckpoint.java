@@ -0,0 +1,58 @@
+package com.jpastudy.querydsl.bulk;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 청크 분할 결과와 완료된 청크. 실패한 작업은 이 체크포인트로 이어서 실행한다
+ */
+public class BulkCheckpoint {
+
+    private final List<ChunkRange> chunks;
+    private final Set<ChunkRange> completed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong affectedRows = new AtomicLong();
+
+    public BulkCheckpoint(List<ChunkRange> chunks) {
+        this.chunks = List.copyOf(chunks);
+    }
+
+    void complete(ChunkRange chunk, long affected) {
+        if (completed.add(chunk)) {
+            affectedRows.addAndGet(affected);
+        }
+    }
+
+    public List<ChunkRange> getChunks() {
+        return chunks;
+    }
+
+    public Set<ChunkRange> getCompleted() {
+        return Collections.unmodifiableSet(completed);
+    }
+
+    public List<ChunkRange> getPending() {
+        return chunks.stream()
+                     .filter(chunk -> !completed.contains(chunk))
+                     .collect(Collectors.toList());
+    }
+
+    public int getTotalChunks() {
+        return chunks.size();
+    }
+
+    public int getCompletedChunks() {
+        return completed.size();
+    }
+
+    public long getAffectedRows() {
+        return affectedRows.get();
+    }
+
+    public boolean isComplete() {
+        return completed.size() == chunks.size();
+    }
+}
@@ -0,0 +1,38 @@
+package com.jpastudy.querydsl.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 청크 트랜잭션 안에서 mutation 전후로, 그리고 Querydsl update/delete 문 전후로 호출된다 ({@link BulkHooks})
+ * <p>
+ * 벌크 연산은 엔티티 이벤트를 거치지 않으므로, 엔티티에서 파생된 데이터를 맞춰야 하는 쪽이 빈으로 등록한다.
+ */
+public interface BulkChunkHook {
+
+    /**
+     * false 면 beforeChunk / beforeStatement 를 부르지 않는다. update/delete 문 하나에 관심 있는 hook 이 없으면 id 도 읽지 않는다
+     */
+    default boolean supports(BulkMutation mutation) {
+        return true;
+    }
+
+    /**
+     * mutation 직전에 호출된다. 반환한 작업은 같은 트랜잭션에서 mutation 직후에 실행된다
+     */
+    Runnable beforeChunk(BulkMutation mutation, ChunkRange range);
+
+    /**
+     * Querydsl update/delete 문 직전에 호출된다. ids 는 같은 조건으로 미리 읽은, 문이 바꿀 행의 id 다 (오름차순).
+     * 반환한 작업은 같은 트랜잭션에서 문 직후에 실행된다
+     * <p>
+     * 기본 구현은 이어지는 id 끼리 묶어 {@link #beforeChunk} 를 부른다. 드문드문 맞는 행이 범위 재계산이 되지 않는다.
+     */
+    default Runnable beforeStatement(BulkMutation mutation, List<Long> ids) {
+        var after = new ArrayList<Runnable>();
+        for (ChunkRange range : ChunkRange.runs(ids)) {
+            after.add(beforeChunk(mutation, range));
+        }
+        return () -> after.forEach(Runnable::run);
+    }
+}
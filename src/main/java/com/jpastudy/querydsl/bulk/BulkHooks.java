@@ -0,0 +1,133 @@
+package com.jpastudy.querydsl.bulk;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 엔티티 이벤트를 거치지 않는 벌크 update/delete 전후로 {@link BulkChunkHook} 을 실행한다
+ * <p>
+ * {@link ChunkedBulkExecutor} 는 청크 범위를 넘긴다. Querydsl update/delete 문은 실행 전에 같은 조건으로 id 를 읽어
+ * 그 id 만 넘기므로, 두 행만 맞는 문이 그 사이의 모든 행을 다시 계산하지 않는다.
+ * 맞는 행이 jpastudy.bulk.statement-id-limit 를 넘으면 id 를 메모리에 들지 않고 최소~최대 범위를 넘긴다.
+ * 그만큼 큰 변경은 {@link ChunkedBulkExecutor} 로 나눠 실행하는 편이 낫다.
+ * 청크 안에서 실행되는 update/delete 문은 hook 을 다시 부르지 않는다.
+ */
+@Component
+public class BulkHooks {
+
+    public static final BulkHooks NONE = new BulkHooks(List::of, 0);
+
+    private static final ThreadLocal<Boolean> IN_CHUNK = new ThreadLocal<>();
+
+    private final Supplier<List<BulkChunkHook>> hooks;
+    private final int idLimit;
+
+    @Autowired
+    public BulkHooks(ObjectProvider<BulkChunkHook> hooks,
+                     @Value("${jpastudy.bulk.statement-id-limit:10000}") int idLimit) {
+        // hook 빈이 JPAQueryFactory 를 쓰므로 실행할 때 찾는다
+        this(() -> hooks.orderedStream().collect(Collectors.toList()), idLimit);
+    }
+
+    private BulkHooks(Supplier<List<BulkChunkHook>> hooks, int idLimit) {
+        this.hooks = hooks;
+        this.idLimit = idLimit;
+    }
+
+    /**
+     * update/delete 문 하나를 실행한다. 관심 있는 hook 이 없거나 조건에 맞는 행이 없으면 그냥 실행한다
+     *
+     * @param assigned update 가 바꾸는 속성 이름. delete 면 null
+     */
+    public long execute(EntityManager em, EntityPath<?> entity, Predicate where, Set<String> assigned,
+                        LongSupplier statement) {
+        if (IN_CHUNK.get() != null) {
+            return statement.getAsLong();
+        }
+        var id = idPath(em, entity);
+        if (id == null) {
+            return statement.getAsLong();
+        }
+        var mutation = BulkMutation.statement(entity, id, where, assigned);
+        var interested = interested(mutation);
+        if (interested.isEmpty()) {
+            return statement.getAsLong();
+        }
+        var ids = new JPAQuery<Long>(em).select(id)
+                                        .from(entity)
+                                        .where(where)
+                                        .orderBy(id.asc())
+                                        .limit(idLimit + 1L)
+                                        .fetch();
+        if (ids.isEmpty()) {
+            return statement.getAsLong();
+        }
+        if (ids.size() <= idLimit) {
+            var after = new ArrayList<Runnable>(interested.size());
+            for (BulkChunkHook hook : interested) {
+                after.add(hook.beforeStatement(mutation, ids));
+            }
+            var affected = statement.getAsLong();
+            after.forEach(Runnable::run);
+            return affected;
+        }
+        var max = new JPAQuery<Long>(em).select(id.max())
+                                        .from(entity)
+                                        .where(where)
+                                        .fetchOne();
+        return run(interested, mutation, new ChunkRange(ids.get(0) - 1, max == null ? ids.get(ids.size() - 1) : max),
+                   statement);
+    }
+
+    long executeChunk(BulkMutation mutation, ChunkRange range, LongSupplier chunk) {
+        IN_CHUNK.set(Boolean.TRUE);
+        try {
+            return run(interested(mutation), mutation, range, chunk);
+        } finally {
+            IN_CHUNK.remove();
+        }
+    }
+
+    private List<BulkChunkHook> interested(BulkMutation mutation) {
+        return hooks.get().stream()
+                    .filter(hook -> hook.supports(mutation))
+                    .collect(Collectors.toList());
+    }
+
+    private static long run(List<BulkChunkHook> hooks, BulkMutation mutation, ChunkRange range,
+                            LongSupplier statement) {
+        var after = new ArrayList<Runnable>(hooks.size());
+        for (BulkChunkHook hook : hooks) {
+            after.add(hook.beforeChunk(mutation, range));
+        }
+        var affected = statement.getAsLong();
+        after.forEach(Runnable::run);
+        return affected;
+    }
+
+    /**
+     * Long 단일 id 를 가진 엔티티만 범위로 나타낼 수 있다
+     */
+    private static NumberPath<Long> idPath(EntityManager em, EntityPath<?> entity) {
+        var type = em.getMetamodel().entity(entity.getType());
+        if (!type.hasSingleIdAttribute() || type.getIdType().getJavaType() != Long.class) {
+            return null;
+        }
+        return Expressions.numberPath(Long.class, entity, type.getId(Long.class).getName());
+    }
+}
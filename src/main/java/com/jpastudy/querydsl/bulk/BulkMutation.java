@@ -0,0 +1,79 @@
+package com.jpastudy.querydsl.bulk;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * 청크 단위로 나눠 실행할 벌크 update/delete
+ * <p>
+ * 각 청크에는 {@code condition and id > from and id <= to} 조건이 붙는다.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class BulkMutation {
+
+    private final EntityPath<?> entity;
+    private final NumberPath<Long> id;
+    private final Predicate condition;
+    private final BiFunction<JPAQueryFactory, Predicate, Long> action;
+    /**
+     * update 가 바꾸는 속성 이름. null 이면 delete 이거나 알 수 없다
+     */
+    @Getter(AccessLevel.NONE)
+    private final Set<String> assigned;
+
+    public static BulkMutation update(EntityPath<?> entity, NumberPath<Long> id, Predicate condition,
+                                      Consumer<JPAUpdateClause> assignments) {
+        return new BulkMutation(entity, id, condition, (queryFactory, where) -> {
+            var clause = queryFactory.update(entity).where(where);
+            assignments.accept(clause);
+            return clause.execute();
+        }, null);
+    }
+
+    public static BulkMutation delete(EntityPath<?> entity, NumberPath<Long> id, Predicate condition) {
+        return new BulkMutation(entity, id, condition,
+                                (queryFactory, where) -> queryFactory.delete(entity).where(where).execute(), null);
+    }
+
+    public static BulkMutation of(EntityPath<?> entity, NumberPath<Long> id, Predicate condition,
+                                  BiFunction<JPAQueryFactory, Predicate, Long> action) {
+        return new BulkMutation(entity, id, condition, action, null);
+    }
+
+    /**
+     * 이미 만들어진 update/delete 문을 {@link BulkChunkHook} 에 알릴 때 쓴다. 청크로 나눠 실행할 수는 없다
+     *
+     * @param assigned update 가 바꾸는 속성 이름. delete 면 null
+     */
+    public static BulkMutation statement(EntityPath<?> entity, NumberPath<Long> id, Predicate condition,
+                                         Set<String> assigned) {
+        return new BulkMutation(entity, id, condition, null, assigned == null ? null : Set.copyOf(assigned));
+    }
+
+    /**
+     * 이 mutation 이 property 의 값을 바꿀 수 있는지. delete 이거나 무엇을 바꾸는지 모르면 true
+     */
+    public boolean assigns(String property) {
+        return assigned == null || assigned.contains(property);
+    }
+
+    long execute(JPAQueryFactory queryFactory, ChunkRange range) {
+        if (action == null) {
+            throw new IllegalStateException("statement mutation cannot be executed in chunks: " + entity);
+        }
+        var where = ExpressionUtils.allOf(condition, id.gt(range.getFromExclusive()), id.loe(range.getToInclusive()));
+        return action.apply(queryFactory, where);
+    }
+}
@@ -0,0 +1,19 @@
+package com.jpastudy.querydsl.bulk;
+
+/**
+ * 일부 청크가 실패했다. 완료된 청크는 이미 커밋되었으므로 {@link #getCheckpoint()} 로 이어서 실행한다
+ */
+public class BulkMutationException extends RuntimeException {
+
+    private final transient BulkCheckpoint checkpoint;
+
+    public BulkMutationException(BulkCheckpoint checkpoint, Throwable cause) {
+        super("bulk mutation stopped after " + checkpoint.getCompletedChunks() + "/" + checkpoint.getTotalChunks()
+                      + " chunks", cause);
+        this.checkpoint = checkpoint;
+    }
+
+    public BulkCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+}
@@ -0,0 +1,21 @@
+package com.jpastudy.querydsl.bulk;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class BulkOptions {
+
+    @Builder.Default
+    private final int chunkSize = 1_000;
+    @Builder.Default
+    private final int parallelism = 1;
+    @Builder.Default
+    private final BulkProgressListener listener = checkpoint -> {
+    };
+
+    public static BulkOptions defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,10 @@
+package com.jpastudy.querydsl.bulk;
+
+@FunctionalInterface
+public interface BulkProgressListener {
+
+    /**
+     * 청크 하나가 커밋될 때마다 호출된다. 병렬 실행 시 여러 스레드에서 호출될 수 있다
+     */
+    void onProgress(BulkCheckpoint checkpoint);
+}
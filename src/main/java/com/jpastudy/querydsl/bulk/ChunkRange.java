@@ -0,0 +1,37 @@
+package com.jpastudy.querydsl.bulk;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * (fromExclusive, toInclusive] 범위의 id
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class ChunkRange {
+
+    private final long fromExclusive;
+    private final long toInclusive;
+
+    /**
+     * 오름차순 id 를 이어지는 것끼리 묶은 범위. 범위에 ids 밖의 id 는 들어가지 않는다
+     */
+    static List<ChunkRange> runs(List<Long> sortedIds) {
+        var ranges = new ArrayList<ChunkRange>();
+        int start = 0;
+        for (int i = 1; i <= sortedIds.size(); i++) {
+            if (i == sortedIds.size() || sortedIds.get(i) != sortedIds.get(i - 1) + 1) {
+                ranges.add(new ChunkRange(sortedIds.get(start) - 1, sortedIds.get(i - 1)));
+                start = i;
+            }
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,158 @@
+package com.jpastudy.querydsl.bulk;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 큰 벌크 update/delete 를 id 범위 청크로 나눠 청크마다 따로 커밋한다
+ * <p>
+ * 한 번에 잠그는 행과 언두 로그가 청크 크기로 제한되어 동시 트래픽을 오래 막지 않는다.
+ * 청크마다 커밋하므로 트랜잭션 밖에서 호출해야 한다.
+ */
+@Slf4j
+@Component
+public class ChunkedBulkExecutor {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate chunkTransaction;
+    private final BulkHooks hooks;
+
+    public ChunkedBulkExecutor(JPAQueryFactory queryFactory,
+                               EntityManagerFactory emf,
+                               PlatformTransactionManager transactionManager,
+                               BulkHooks hooks) {
+        this.queryFactory = queryFactory;
+        this.emf = emf;
+        this.hooks = hooks;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long execute(BulkMutation mutation, BulkOptions options) {
+        return resume(mutation, plan(mutation, options.getChunkSize()), options);
+    }
+
+    /**
+     * 조건에 맞는 id 를 chunkSize 개씩 끊어 범위를 만든다. id 는 건너뛰며 읽으므로 메모리는 청크 수에만 비례한다
+     */
+    public BulkCheckpoint plan(BulkMutation mutation, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        var id = mutation.getId();
+        var chunks = readTransaction.execute(status -> {
+            var ranges = new ArrayList<ChunkRange>();
+            var max = queryFactory.select(id.max())
+                                  .from(mutation.getEntity())
+                                  .where(mutation.getCondition())
+                                  .fetchOne();
+            if (max == null) {
+                return ranges;
+            }
+            long from = Long.MIN_VALUE;
+            while (from < max) {
+                var to = queryFactory.select(id)
+                                     .from(mutation.getEntity())
+                                     .where(ExpressionUtils.allOf(mutation.getCondition(), id.gt(from)))
+                                     .orderBy(id.asc())
+                                     .offset(chunkSize - 1)
+                                     .limit(1)
+                                     .fetchOne();
+                var upper = to == null ? max : to;
+                ranges.add(new ChunkRange(from, upper));
+                from = upper;
+            }
+            return ranges;
+        });
+        return new BulkCheckpoint(chunks);
+    }
+
+    /**
+     * 완료되지 않은 청크만 실행한다. 실패하면 새 청크는 시작하지 않고 {@link BulkMutationException} 을 던진다
+     */
+    public long resume(BulkMutation mutation, BulkCheckpoint checkpoint, BulkOptions options) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("chunked bulk mutation commits every chunk, call it outside a transaction");
+        }
+
+        var pending = checkpoint.getPending();
+        var pool = Executors.newFixedThreadPool(Math.max(1, Math.min(options.getParallelism(), pending.size())));
+        var failure = new AtomicReference<Throwable>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ChunkRange chunk : pending) {
+                futures.add(pool.submit(() -> {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    try {
+                        Long affected = chunkTransaction.execute(status -> executeChunk(mutation, chunk));
+                        checkpoint.complete(chunk, affected == null ? 0 : affected);
+                        options.getListener().onProgress(checkpoint);
+                    } catch (RuntimeException e) {
+                        log.warn("bulk chunk {} failed", chunk, e);
+                        failure.compareAndSet(null, e);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        } finally {
+            pool.shutdownNow();
+            evict(mutation.getEntity().getType());
+        }
+
+        if (failure.get() != null) {
+            throw new BulkMutationException(checkpoint, failure.get());
+        }
+        return checkpoint.getAffectedRows();
+    }
+
+    private long executeChunk(BulkMutation mutation, ChunkRange chunk) {
+        return hooks.executeChunk(mutation, chunk, () -> mutation.execute(queryFactory, chunk));
+    }
+
+    /**
+     * 호출 스레드에 묶인 영속성 컨텍스트(open-in-view 등)와 2차 캐시에서 변경된 타입의 엔티티를 내린다
+     */
+    private void evict(Class<?> type) {
+        emf.getCache().evict(type);
+
+        var em = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (em == null) {
+            return;
+        }
+        var persistenceContext = em.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+        for (Object entity : new ArrayList<>(persistenceContext.getEntitiesByKey().values())) {
+            if (type.isInstance(entity)) {
+                em.detach(entity);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.jpastudy.querydsl.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 2차 캐시 / 쿼리 캐시 region 별 적중률
+ * <p>
+ * Hibernate 통계로 세므로 jpastudy.cache.enabled 와 jpastudy.cache.statistics 가 모두 true 일 때만 등록된다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "jpastudy.cache", name = {"enabled", "statistics"}, havingValue = "true")
+public class SecondLevelCacheMetrics {
+
+    private final Statistics statistics;
+
+    public SecondLevelCacheMetrics(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public Map<String, RegionStats> regions() {
+        var result = new TreeMap<String, RegionStats>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            var region = region(name);
+            if (region != null) {
+                result.put(name, region);
+            }
+        }
+        return result;
+    }
+
+    public RegionStats region(String name) {
+        var region = statistics.getCacheRegionStatistics(name);
+        if (region == null) {
+            return null;
+        }
+        return new RegionStats(region.getHitCount(), region.getMissCount(), region.getPutCount());
+    }
+
+    public RegionStats queryCache() {
+        return new RegionStats(statistics.getQueryCacheHitCount(),
+                               statistics.getQueryCacheMissCount(),
+                               statistics.getQueryCachePutCount());
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class RegionStats {
+        private final long hits;
+        private final long misses;
+        private final long puts;
+
+        public double getHitRatio() {
+            var total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
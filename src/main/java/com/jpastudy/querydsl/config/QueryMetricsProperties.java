@@ -0,0 +1,29 @@
+package com.jpastudy.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.metrics")
+public class QueryMetricsProperties {
+
+    private boolean enabled = false;
+    /**
+     * 0 ~ 1. 이 비율의 호출만 호출 위치를 찾아 기록한다
+     */
+    private double sampleRate = 1.0;
+    /**
+     * 0 이면 느린 쿼리를 남기지 않는다
+     */
+    private Duration slowThreshold = Duration.ZERO;
+    private int slowQueryCapacity = 100;
+    /**
+     * 느린 쿼리 기록과 WARN 로그에 바인딩 값(회원 이름 등)을 그대로 남긴다. 끄면 값 대신 마스킹 문자열을 남긴다
+     */
+    private boolean includeBindings = false;
+    private int maxCallSites = 500;
+}
@@ -0,0 +1,81 @@
+package com.jpastudy.querydsl.config;
+
+import com.jpastudy.querydsl.bulk.BulkHooks;
+import com.jpastudy.querydsl.metrics.QueryMetrics;
+import com.jpastudy.querydsl.metrics.SlowQueryEndpoint;
+import com.jpastudy.querydsl.query.CachingJPAQueryFactory;
+import com.jpastudy.querydsl.query.JpqlShapeCache;
+import com.jpastudy.querydsl.query.ReadOnlyJPAQueryFactory;
+import com.jpastudy.querydsl.query.RewritingJPAQueryFactory;
+import com.jpastudy.querydsl.query.SubQueryRewriter;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+@EnableConfigurationProperties(QueryMetricsProperties.class)
+public class QuerydslConfig {
+
+    @Bean
+    public JpqlShapeCache jpqlShapeCache(@Value("${querydsl.jpql-cache.max-size:0}") int maxSize) {
+        return new JpqlShapeCache(maxSize);
+    }
+
+    @Bean
+    public SubQueryRewriter subQueryRewriter(@Value("${querydsl.rewrite.scalar-subqueries:false}") boolean scalarSubQueries,
+                                             @Value("${querydsl.rewrite.in-to-exists:false}") boolean inToExists) {
+        return new SubQueryRewriter(scalarSubQueries, inToExists);
+    }
+
+    @Bean
+    public QueryMetrics queryMetrics(QueryMetricsProperties properties, ObjectProvider<MeterRegistry> meterRegistry,
+                                     EntityManagerFactory emf) {
+        var registry = meterRegistry.getIfAvailable();
+        if (!properties.isEnabled() || registry == null) {
+            return QueryMetrics.DISABLED;
+        }
+        return new QueryMetrics(registry, emf, properties.getSampleRate(), properties.getSlowThreshold(),
+                                properties.getSlowQueryCapacity(), properties.getMaxCallSites(),
+                                properties.isIncludeBindings());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "querydsl.metrics", name = "enabled", havingValue = "true")
+    public SlowQueryEndpoint slowQueryEndpoint(QueryMetrics queryMetrics) {
+        return new SlowQueryEndpoint(queryMetrics);
+    }
+
+    /**
+     * 캐시와 계측이 모두 꺼져 있어도 update/delete 가 {@link BulkHooks} 를 거치도록 CachingJPAQueryFactory 를 쓴다
+     */
+    @Bean
+    @Primary
+    public JPAQueryFactory jpaQueryFactory(EntityManager em, JpqlShapeCache jpqlShapeCache,
+                                           SubQueryRewriter subQueryRewriter, QueryMetrics queryMetrics,
+                                           BulkHooks bulkHooks) {
+        if (subQueryRewriter.isEnabled()) {
+            return new RewritingJPAQueryFactory(em, jpqlShapeCache, queryMetrics, bulkHooks, subQueryRewriter);
+        }
+        return new CachingJPAQueryFactory(em, jpqlShapeCache, queryMetrics, bulkHooks);
+    }
+
+    /**
+     * 쿼리마다 읽기 전용 트랜잭션으로 실행한다. replica 가 설정되어 있으면 replica 로 간다
+     */
+    @Bean
+    public ReadOnlyJPAQueryFactory readOnlyQueryFactory(EntityManager em, JpqlShapeCache jpqlShapeCache,
+                                                        SubQueryRewriter subQueryRewriter, QueryMetrics queryMetrics,
+                                                        PlatformTransactionManager transactionManager) {
+        return new ReadOnlyJPAQueryFactory(em, jpqlShapeCache, queryMetrics, subQueryRewriter, transactionManager);
+    }
+}
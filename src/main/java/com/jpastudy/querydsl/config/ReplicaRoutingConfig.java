@@ -0,0 +1,77 @@
+package com.jpastudy.querydsl.config;
+
+import com.jpastudy.querydsl.datasource.Replica;
+import com.jpastudy.querydsl.datasource.ReplicaRouter;
+import com.jpastudy.querydsl.datasource.ReplicaRoutingDataSource;
+import com.jpastudy.querydsl.datasource.ReplicaRoutingTransactionManager;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+
+/**
+ * jpastudy.datasource.replicas 가 있으면 읽기 전용 트랜잭션을 replica 로 보낸다
+ * <p>
+ * primary 와 replica 풀은 빈으로 등록하지 않아 p6spy 는 라우팅 DataSource 하나만 감싼다.
+ * 읽기 전용 여부를 커넥션을 받기 전에 알아야 하므로 트랜잭션 매니저도 바꾼다.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+@ConditionalOnProperty(prefix = "jpastudy.datasource", name = "replicas[0].url")
+public class ReplicaRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRouter replicaRouter(DataSourceProperties dataSourceProperties,
+                                       ReplicaRoutingProperties properties,
+                                       Environment environment) {
+        var primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        var replicas = new ArrayList<Replica>();
+        for (var endpoint : properties.getReplicas()) {
+            var name = endpoint.getName() == null ? "replica" + (replicas.size() + 1) : endpoint.getName();
+            var pool = DataSourceBuilder.create()
+                                        .type(HikariDataSource.class)
+                                        .driverClassName(dataSourceProperties.determineDriverClassName())
+                                        .url(endpoint.getUrl())
+                                        .username(endpoint.getUsername() == null
+                                                          ? dataSourceProperties.determineUsername()
+                                                          : endpoint.getUsername())
+                                        .password(endpoint.getPassword() == null
+                                                          ? dataSourceProperties.determinePassword()
+                                                          : endpoint.getPassword())
+                                        .build();
+            pool.setPoolName(name);
+            pool.setMaximumPoolSize(endpoint.getMaximumPoolSize());
+            replicas.add(new Replica(name, pool));
+        }
+        return new ReplicaRouter(primary, replicas, properties.getBalancing(), properties.getMaxLag(),
+                                 properties.getLagQuery(), properties.isFallbackToPrimary(),
+                                 properties.getCheckInterval());
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaRouter replicaRouter) {
+        return new ReplicaRoutingDataSource(replicaRouter);
+    }
+
+    @Bean
+    public ReplicaRoutingTransactionManager transactionManager(
+            ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        var transactionManager = new ReplicaRoutingTransactionManager();
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+}
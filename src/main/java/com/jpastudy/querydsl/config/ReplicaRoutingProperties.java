@@ -0,0 +1,39 @@
+package com.jpastudy.querydsl.config;
+
+import com.jpastudy.querydsl.datasource.ReplicaBalancing;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jpastudy.datasource")
+public class ReplicaRoutingProperties {
+
+    private List<Endpoint> replicas = new ArrayList<>();
+    private ReplicaBalancing balancing = ReplicaBalancing.ROUND_ROBIN;
+    private Duration maxLag = Duration.ofSeconds(5);
+    /**
+     * replica 에서 지연을 밀리초로 돌려주는 쿼리
+     */
+    private String lagQuery;
+    private Duration checkInterval = Duration.ofSeconds(5);
+    private boolean fallbackToPrimary = true;
+
+    @Getter
+    @Setter
+    public static class Endpoint {
+        private String name;
+        private String url;
+        /**
+         * 비어 있으면 spring.datasource 의 값을 쓴다
+         */
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,68 @@
+package com.jpastudy.querydsl.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Team/Member 2차 캐시와 쿼리 캐시
+ * <p>
+ * 인-프로세스 Caffeine(JCache) 캐시를 region 별 최대 개수/TTL 로 만든다.
+ * Querydsl 벌크 update/delete 는 Hibernate 가 해당 엔티티/컬렉션 region 과 쿼리 캐시를 무효화한다.
+ * <p>
+ * jpastudy.cache.enabled=true 일 때만 켜진다. 적중률 통계는 모든 캐시 접근에 비용이 붙으므로
+ * jpastudy.cache.statistics=true 일 때만 Hibernate 통계와 JCache 통계를 함께 켠다.
+ */
+@Configuration
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+@ConditionalOnProperty(prefix = "jpastudy.cache", name = "enabled", havingValue = "true", matchIfMissing = false)
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(SecondLevelCacheProperties properties) {
+        var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        // 컨텍스트마다 별도의 CacheManager 를 쓰도록 URI 를 구분한다
+        var cacheManager = provider.getCacheManager(URI.create("jpastudy:" + UUID.randomUUID()),
+                                                    provider.getDefaultClassLoader());
+
+        properties.getRegions().forEach((name, region) -> {
+            var configuration = new CaffeineConfiguration<Object, Object>();
+            configuration.setMaximumSize(OptionalLong.of(region.getMaxSize()));
+            configuration.setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()));
+            configuration.setStatisticsEnabled(properties.isStatistics());
+            cacheManager.createCache(name, configuration);
+        });
+
+        // 쿼리 캐시의 유효성 판단에 쓰이므로 만료되거나 밀려나면 안 된다
+        var timestamps = new CaffeineConfiguration<Object, Object>();
+        timestamps.setStatisticsEnabled(properties.isStatistics());
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestamps);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager,
+                                                                    SecondLevelCacheProperties cacheProperties) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.use_query_cache", true);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "create");
+            if (cacheProperties.isStatistics()) {
+                properties.put("hibernate.generate_statistics", true);
+            }
+        };
+    }
+}
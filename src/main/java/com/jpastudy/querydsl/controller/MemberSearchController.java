@@ -0,0 +1,36 @@
+package com.jpastudy.querydsl.controller;
+
+import com.jpastudy.querydsl.dto.MemberSearchCondition;
+import com.jpastudy.querydsl.dto.MemberTeamDto;
+import com.jpastudy.querydsl.paging.KeysetPage;
+import com.jpastudy.querydsl.paging.KeysetSort;
+import com.jpastudy.querydsl.service.MemberQueryService;
+import com.jpastudy.querydsl.service.QueryExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 회원 검색 API. 쿼리는 {@link QueryExecutor} 에서 실행되고 요청 스레드는 바로 반환된다
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberSearchController {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final MemberQueryService memberQueryService;
+    private final QueryExecutor queryExecutor;
+
+    @GetMapping("/v1/members")
+    public CompletableFuture<KeysetPage<MemberTeamDto>> searchMembers(MemberSearchCondition condition,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "20") int size,
+                                                                      @RequestParam(defaultValue = "ASC_NULLS_LAST") KeysetSort sort) {
+        var pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return queryExecutor.submit(() -> memberQueryService.search(condition, cursor, pageSize, sort));
+    }
+}
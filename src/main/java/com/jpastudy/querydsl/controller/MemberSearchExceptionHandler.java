@@ -0,0 +1,38 @@
+package com.jpastudy.querydsl.controller;
+
+import com.jpastudy.querydsl.dto.ErrorResponse;
+import com.jpastudy.querydsl.paging.InvalidCursorException;
+import com.jpastudy.querydsl.service.QueryRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * 검색 API 의 예외를 상태 코드로 바꾼다
+ * <p>
+ * 쿼리는 {@link com.jpastudy.querydsl.service.QueryExecutor} 스레드에서 실행되므로 잘못된 커서도
+ * CompletableFuture 를 거쳐 비동기 dispatch 에서 여기로 온다.
+ * 응답 메시지는 고정 문구만 쓰고 예외 메시지(요청 값, 내부 상태)는 내보내지 않는다.
+ */
+@RestControllerAdvice(assignableTypes = MemberSearchController.class)
+public class MemberSearchExceptionHandler {
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> invalidCursor(InvalidCursorException e) {
+        return ResponseEntity.badRequest()
+                             .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "invalid cursor"));
+    }
+
+    /**
+     * 조회 대기열이 가득 찼다. 잠시 뒤 다시 시도하면 된다
+     */
+    @ExceptionHandler(QueryRejectedException.class)
+    public ResponseEntity<ErrorResponse> rejected(QueryRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER, "1")
+                             .body(new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                                                     "too many concurrent queries"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.jpastudy.querydsl.datasource;
+
+import lombok.Getter;
+
+import javax.sql.DataSource;
+
+/**
+ * 읽기 전용 트랜잭션을 받는 replica 하나와 마지막 점검 결과
+ */
+@Getter
+public class Replica {
+
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean available;
+    private volatile long lagMillis;
+    /**
+     * 점검 쿼리 응답 시간의 지수 이동 평균
+     */
+    private volatile long latencyNanos;
+
+    public Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    void update(long latencyNanos, long lagMillis, boolean available) {
+        this.latencyNanos = this.latencyNanos == 0 ? latencyNanos : (this.latencyNanos * 4 + latencyNanos) / 5;
+        this.lagMillis = lagMillis;
+        this.available = available;
+    }
+
+    void markDown() {
+        this.available = false;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(available=" + available + ", lag=" + lagMillis + "ms, latency=" + latencyNanos / 1_000 + "us)";
+    }
+}
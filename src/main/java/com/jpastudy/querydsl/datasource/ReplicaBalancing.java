@@ -0,0 +1,39 @@
+package com.jpastudy.querydsl.datasource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 사용할 수 있는 replica 들 중 어디에 먼저 커넥션을 요청할지 정한다
+ */
+public enum ReplicaBalancing {
+
+    /**
+     * 요청마다 시작 위치를 하나씩 돌린다
+     */
+    ROUND_ROBIN,
+    /**
+     * 점검 응답 시간이 짧은 순. 같으면 round robin 순서를 따른다
+     */
+    LEAST_LATENCY;
+
+    /**
+     * 앞의 replica 가 실패하면 다음 replica 를 쓰도록 전체 순서를 돌려준다
+     */
+    List<Replica> order(List<Replica> candidates, int tick) {
+        var size = candidates.size();
+        var ordered = new ArrayList<Replica>(size);
+        if (size == 0) {
+            return ordered;
+        }
+        var start = Math.floorMod(tick, size);
+        for (int i = 0; i < size; i++) {
+            ordered.add(candidates.get((start + i) % size));
+        }
+        if (this == LEAST_LATENCY) {
+            ordered.sort(Comparator.comparingLong(Replica::getLatencyNanos));
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,165 @@
+package com.jpastudy.querydsl.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * primary 와 replica 커넥션 풀을 들고 읽기 전용 요청을 replica 로 나눈다
+ * <p>
+ * replica 는 주기적으로 점검해 응답 시간과 지연(lag)을 잰다. 점검에 실패하거나 지연이 maxLag 를 넘으면
+ * 다음 점검까지 빠지고, 커넥션을 받다 실패한 replica 도 바로 빠진다.
+ * 쓸 수 있는 replica 가 없으면 primary 로 보내거나 (fallbackToPrimary) 예외를 던진다.
+ */
+@Slf4j
+public class ReplicaRouter implements Closeable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReplicaBalancing balancing;
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final boolean fallbackToPrimary;
+    private final AtomicInteger ticks = new AtomicInteger();
+    private final LongAdder primaryFallbacks = new LongAdder();
+    private final ScheduledExecutorService checker;
+
+    /**
+     * lagQuery 는 replica 에서 지연을 밀리초 숫자 하나로 돌려주는 쿼리. 없으면 지연은 0 으로 보고 연결만 점검한다.
+     * checkInterval 이 0 이면 주기 점검 없이 {@link #checkReplicas()} 를 직접 불러야 한다
+     */
+    public ReplicaRouter(DataSource primary, List<Replica> replicas, ReplicaBalancing balancing, Duration maxLag,
+                         String lagQuery, boolean fallbackToPrimary, Duration checkInterval) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.balancing = balancing;
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagQuery = lagQuery;
+        this.fallbackToPrimary = fallbackToPrimary;
+
+        checkReplicas();
+        if (checkInterval.isZero() || checkInterval.isNegative()) {
+            this.checker = null;
+        } else {
+            this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "replica-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            var millis = checkInterval.toMillis();
+            checker.scheduleWithFixedDelay(this::checkReplicas, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * replica 를 쓸 수 없어 primary 로 보낸 읽기 전용 요청 수
+     */
+    public long getPrimaryFallbackCount() {
+        return primaryFallbacks.sum();
+    }
+
+    Connection getConnection(boolean readOnly, ConnectionSource source) throws SQLException {
+        if (!readOnly) {
+            return source.get(primary);
+        }
+        var candidates = replicas.stream().filter(Replica::isAvailable).collect(Collectors.toList());
+        SQLException failure = null;
+        for (var replica : balancing.order(candidates, ticks.getAndIncrement())) {
+            try {
+                return source.get(replica.getDataSource());
+            } catch (SQLException e) {
+                log.warn("replica {} is unavailable", replica.getName(), e);
+                replica.markDown();
+                failure = e;
+            }
+        }
+        if (!fallbackToPrimary) {
+            throw new SQLException("no available replica: " + replicas, failure);
+        }
+        primaryFallbacks.increment();
+        return source.get(primary);
+    }
+
+    /**
+     * 모든 replica 의 응답 시간과 지연을 재서 사용 여부를 갱신한다
+     */
+    public void checkReplicas() {
+        for (var replica : replicas) {
+            var start = System.nanoTime();
+            try (var connection = replica.getDataSource().getConnection()) {
+                var lag = lagQuery == null ? validate(connection) : lag(connection);
+                var available = lag <= maxLagMillis;
+                if (!available && replica.isAvailable()) {
+                    log.warn("replica {} lags {}ms behind (max {}ms)", replica.getName(), lag, maxLagMillis);
+                }
+                replica.update(System.nanoTime() - start, lag, available);
+            } catch (SQLException | RuntimeException e) {
+                if (replica.isAvailable()) {
+                    log.warn("replica {} check failed", replica.getName(), e);
+                }
+                replica.markDown();
+            }
+        }
+    }
+
+    private static long validate(Connection connection) throws SQLException {
+        if (!connection.isValid(1)) {
+            throw new SQLException("connection is not valid");
+        }
+        return 0;
+    }
+
+    private long lag(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                return 0;
+            }
+            var lag = resultSet.getLong(1);
+            return resultSet.wasNull() ? 0 : lag;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        close(primary);
+        replicas.forEach(replica -> close(replica.getDataSource()));
+    }
+
+    private static void close(DataSource dataSource) {
+        if (dataSource instanceof Closeable) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (Exception e) {
+                log.warn("failed to close {}", dataSource, e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+}
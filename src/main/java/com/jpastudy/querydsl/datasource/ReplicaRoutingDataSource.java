@@ -0,0 +1,33 @@
+package com.jpastudy.querydsl.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 읽기 전용 트랜잭션의 커넥션은 {@link ReplicaRouter} 가 고른 replica 에서, 나머지는 primary 에서 받는다
+ * <p>
+ * 읽기 전용 여부는 {@link ReplicaRoutingTransactionManager} 가 트랜잭션 시작 전에 남긴 값을 본다.
+ * 트랜잭션 밖의 쿼리는 primary 로 간다.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final ReplicaRouter router;
+
+    public ReplicaRoutingDataSource(ReplicaRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return router.getConnection(ReplicaRoutingTransactionManager.isCurrentTransactionReadOnly(),
+                                    dataSource -> dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return router.getConnection(ReplicaRoutingTransactionManager.isCurrentTransactionReadOnly(),
+                                    dataSource -> dataSource.getConnection(username, password));
+    }
+}
@@ -0,0 +1,52 @@
+package com.jpastudy.querydsl.datasource;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 트랜잭션을 시작하기 전에 읽기 전용 여부를 스레드에 남겨 {@link ReplicaRoutingDataSource} 가 볼 수 있게 한다
+ * <p>
+ * Hibernate 는 읽기 전용 트랜잭션을 시작하면서 커넥션을 받으므로
+ * 그 뒤에 설정되는 TransactionSynchronizationManager 의 읽기 전용 표시로는 늦다.
+ * REQUIRES_NEW 로 중첩될 수 있어 스택으로 쌓는다.
+ */
+public class ReplicaRoutingTransactionManager extends JpaTransactionManager {
+
+    private static final ThreadLocal<Deque<Boolean>> READ_ONLY = ThreadLocal.withInitial(ArrayDeque::new);
+
+    static boolean isCurrentTransactionReadOnly() {
+        var stack = READ_ONLY.get();
+        return !stack.isEmpty() && stack.peek();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        READ_ONLY.get().push(definition.isReadOnly());
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            pop();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            pop();
+        }
+    }
+
+    private static void pop() {
+        var stack = READ_ONLY.get();
+        stack.poll();
+        if (stack.isEmpty()) {
+            READ_ONLY.remove();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.jpastudy.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ErrorResponse {
+
+    private int status;
+    private String message;
+}
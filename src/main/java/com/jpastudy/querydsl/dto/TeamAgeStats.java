@@ -0,0 +1,32 @@
+package com.jpastudy.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 팀별 member.age 의 count / sum / avg / min / max
+ */
+@Data
+@NoArgsConstructor
+public class TeamAgeStats {
+
+    private String teamName;
+    private long count;
+    private long sum;
+    private Integer min;
+    private Integer max;
+
+    @QueryProjection
+    public TeamAgeStats(String teamName, Number count, Number sum, Integer min, Integer max) {
+        this.teamName = teamName;
+        this.count = count == null ? 0 : count.longValue();
+        this.sum = sum == null ? 0 : sum.longValue();
+        this.min = min;
+        this.max = max;
+    }
+
+    public double getAvg() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+}
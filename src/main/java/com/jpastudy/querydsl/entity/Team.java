@@ -1,31 +1,54 @@
 package com.jpastudy.querydsl.entity;
 
+import com.jpastudy.querydsl.entity.collection.QueuedRemoveBagType;
+import com.jpastudy.querydsl.entity.id.PooledSequenceGenerator;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.CollectionType;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@BatchSize(size = 100)
 public class Team {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = PooledSequenceGenerator.NAME, parameters = {
+            @Parameter(name = "sequence_name", value = "team_seq"),
+            @Parameter(name = "increment_size", value = "50")
+    })
     @Column(name = "team_id")
     private Long id;
     private String name;
+    /**
+     * 읽지 않은 상태에서 add/remove 는 쌓아 두기만 한다. 회원 수나 포함 여부만 필요하면 TeamMemberRepository 를 쓴다
+     */
     @OneToMany(mappedBy = "team")
+    @CollectionType(type = QueuedRemoveBagType.NAME)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team-members")
+    @BatchSize(size = 100)
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
@@ -0,0 +1,34 @@
+package com.jpastudy.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 팀별 member.age 집계. 회원 변경을 따라 SQL 로 갱신되므로 애플리케이션에서는 읽기만 한다
+ * <p>
+ * member 테이블과 동기화되어 있어 조회 전에 회원 변경이 먼저 flush 된다.
+ */
+@Entity
+@Immutable
+@Synchronize("member")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private long memberCount;
+    private long ageSum;
+    private Integer minAge;
+    private Integer maxAge;
+}
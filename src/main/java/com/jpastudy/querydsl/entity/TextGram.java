@@ -0,0 +1,44 @@
+package com.jpastudy.querydsl.entity;
+
+import com.jpastudy.querydsl.text.TextField;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * 문자열 필드의 n-gram 역색인. 한 행이 (필드, gram, 그 gram 을 가진 행의 id) 이다
+ * <p>
+ * 회원/팀 변경을 따라 SQL 로 갱신되므로 애플리케이션에서는 읽기만 한다.
+ * 기본 키 (field, gram, owner_id) 가 gram 으로 찾는 인덱스이고, owner 인덱스는 값이 바뀐 행의 gram 을 지울 때 쓴다.
+ */
+@Entity
+@Immutable
+@Synchronize({"member", "team"})
+@IdClass(TextGramId.class)
+@Table(indexes = @Index(name = "idx_text_gram_owner", columnList = "field, owner_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TextGram {
+    @Id
+    @Enumerated(EnumType.STRING)
+    private TextField field;
+    @Id
+    @Column(length = 3)
+    private String gram;
+    @Id
+    @Column(name = "owner_id")
+    private Long ownerId;
+}
@@ -0,0 +1,17 @@
+package com.jpastudy.querydsl.entity;
+
+import com.jpastudy.querydsl.text.TextField;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class TextGramId implements Serializable {
+    private TextField field;
+    private String gram;
+    private Long ownerId;
+}
@@ -0,0 +1,47 @@
+package com.jpastudy.querydsl.entity.collection;
+
+import org.hibernate.collection.internal.PersistentBag;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.List;
+
+/**
+ * 초기화하지 않은 inverse(mappedBy) 컬렉션에서 remove 를 add 처럼 쌓아 두는 bag
+ * <p>
+ * PersistentBag 은 add 만 쌓고 remove 는 전체를 읽는다. 여기서는 remove 도 쌓았다가 컬렉션을 읽을 때 반영하고,
+ * flush 하면 쌓인 작업을 버린다 (FK 는 Member 쪽에서 바뀐다). 쌓이는 동안 컬렉션은 dirty 라서 2차 캐시 항목도 지워진다.
+ */
+public class QueuedRemoveBag extends PersistentBag {
+
+    public QueuedRemoveBag() {
+    }
+
+    public QueuedRemoveBag(SharedSessionContractImplementor session) {
+        super(session);
+    }
+
+    public QueuedRemoveBag(SharedSessionContractImplementor session, List<?> list) {
+        super(session, list);
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        if (isOperationQueueEnabled()) {
+            queueOperation(new SimpleRemove(element));
+            return true;
+        }
+        return super.remove(element);
+    }
+
+    final class SimpleRemove extends AbstractValueDelayedOperation {
+
+        SimpleRemove(Object orphan) {
+            super(null, orphan);
+        }
+
+        @Override
+        public void operate() {
+            bag.remove(getOrphan());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.jpastudy.querydsl.entity.collection;
+
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.usertype.UserCollectionType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code @CollectionType(type = QueuedRemoveBagType.NAME)} 로 List 매핑에 {@link QueuedRemoveBag} 을 쓴다
+ */
+public class QueuedRemoveBagType implements UserCollectionType {
+
+    public static final String NAME = "com.jpastudy.querydsl.entity.collection.QueuedRemoveBagType";
+
+    @Override
+    public PersistentCollection instantiate(SharedSessionContractImplementor session, CollectionPersister persister) {
+        return new QueuedRemoveBag(session);
+    }
+
+    @Override
+    public PersistentCollection wrap(SharedSessionContractImplementor session, Object collection) {
+        return new QueuedRemoveBag(session, (List<?>) collection);
+    }
+
+    @Override
+    public Iterator<?> getElementsIterator(Object collection) {
+        return ((Collection<?>) collection).iterator();
+    }
+
+    @Override
+    public boolean contains(Object collection, Object entity) {
+        return ((Collection<?>) collection).contains(entity);
+    }
+
+    @Override
+    public Object indexOf(Object collection, Object entity) {
+        int index = ((List<?>) collection).indexOf(entity);
+        return index < 0 ? null : index;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object replaceElements(Object original, Object target, CollectionPersister persister, Object owner,
+                                  Map copyCache, SharedSessionContractImplementor session) {
+        var result = (Collection<Object>) target;
+        result.clear();
+        for (Object element : (Collection<?>) original) {
+            result.add(persister.getElementType().replace(element, null, session, owner, copyCache));
+        }
+        return result;
+    }
+
+    @Override
+    public Object instantiate(int anticipatedSize) {
+        return anticipatedSize <= 0 ? new ArrayList<>() : new ArrayList<>(anticipatedSize);
+    }
+}
@@ -0,0 +1,357 @@
+package com.jpastudy.querydsl.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.importer.SequenceBlockAllocator.IdRange;
+import com.jpastudy.querydsl.stats.TeamStatsRepository;
+import com.jpastudy.querydsl.text.TextField;
+import com.jpastudy.querydsl.text.TextIndexRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Member / Team 을 영속성 컨텍스트를 거치지 않고 JDBC 배치 insert 로 적재한다
+ * <p>
+ * 팀 이름은 메모리의 이름 → id 맵으로 풀고, 없는 팀은 만들어서 맵에 넣는다.
+ * id 는 엔티티와 같은 시퀀스에서 pooled-lo 블록 단위로 받는다.
+ * 배치마다 커밋하고, 끝나면 적재한 id 범위와 회원이 들어간 팀만 2차 캐시, 팀 집계, n-gram 색인에 반영한다.
+ * 적재 비용이 기존 테이블 크기에 비례하지 않는다.
+ */
+@Slf4j
+@Component
+public class BulkImporter {
+
+    private static final String INSERT_TEAM = "insert into team (team_id, name) values (?, ?)";
+    private static final String INSERT_MEMBER = "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final SessionFactoryImplementor sessionFactory;
+    private final ObjectMapper objectMapper;
+    private final TeamStatsRepository teamStats;
+    private final TextIndexRepository textIndex;
+    private final int defaultBatchSize;
+
+    public BulkImporter(DataSource dataSource,
+                        EntityManagerFactory emf,
+                        ObjectMapper objectMapper,
+                        TeamStatsRepository teamStats,
+                        TextIndexRepository textIndex,
+                        @Value("${jpastudy.import.batch-size:1000}") int defaultBatchSize) {
+        this.dataSource = dataSource;
+        this.sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        this.objectMapper = objectMapper;
+        this.teamStats = teamStats;
+        this.textIndex = textIndex;
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    public ImportReport importTeams(Reader reader, ImportFormat format) {
+        return importTeams(reader, format, defaultBatchSize);
+    }
+
+    public ImportReport importTeams(Reader reader, ImportFormat format, int batchSize) {
+        var parser = new ImportRecordParser(format, objectMapper, "name");
+        return run(batchSize, null, (connection, teams) -> {
+            long rows = 0;
+            for (var fields : records(reader, parser)) {
+                if (fields[0] != null && teams.resolve(fields[0]) != null) {
+                    rows++;
+                }
+            }
+            return rows;
+        });
+    }
+
+    public ImportReport importMembers(Reader reader, ImportFormat format) {
+        return importMembers(reader, format, defaultBatchSize);
+    }
+
+    public ImportReport importMembers(Reader reader, ImportFormat format, int batchSize) {
+        var parser = new ImportRecordParser(format, objectMapper, "username", "age", "teamName");
+        var ids = allocator(Member.class);
+        return run(batchSize, ids, (connection, teams) -> {
+            long rows = 0;
+            try (var insert = connection.prepareStatement(INSERT_MEMBER)) {
+                for (var fields : records(reader, parser)) {
+                    insert.setLong(1, ids.next(connection));
+                    insert.setString(2, fields[0]);
+                    insert.setInt(3, fields[1] == null ? 0 : Integer.parseInt(fields[1].trim()));
+                    var teamId = fields[2] == null ? null : teams.resolveForMember(fields[2]);
+                    if (teamId == null) {
+                        insert.setNull(4, Types.BIGINT);
+                    } else {
+                        insert.setLong(4, teamId);
+                    }
+                    insert.addBatch();
+                    if (++rows % batchSize == 0) {
+                        teams.flush();
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+                teams.flush();
+                insert.executeBatch();
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * H2 의 CSVREAD 로 파일을 DB 안에서 바로 적재한다 (COPY 와 같은 방식)
+     * <p>
+     * 행마다 시퀀스를 한 번씩 호출하므로 id 사이에 pooled-lo 블록 크기만큼 간격이 생기지만
+     * Hibernate 가 같은 블록을 받는 일은 없다. 파일은 username,age,teamName 헤더가 있는 CSV 여야 한다.
+     * 새 id 는 모두 적재 전 최대 id 보다 크므로 적재 전후 최대 id 사이를 다시 색인한다.
+     */
+    public ImportReport importMembersWithCsvRead(Path csv) {
+        var file = csv.toAbsolutePath().toString();
+        var teamSequence = sequenceName(Team.class);
+        var memberSequence = sequenceName(Member.class);
+        var dialect = sessionFactory.getJdbcServices().getDialect();
+        // 테이블 함수의 컬럼은 prepare 시점에 정해져야 하므로 파일 경로는 바인딩하지 않고 리터럴로 넣는다
+        var source = "csvread('" + file.replace("'", "''") + "', null, 'charset=UTF-8')";
+
+        var peak = new PeakHeap();
+        var start = System.nanoTime();
+        long createdTeams;
+        long rows;
+        var members = new ArrayList<IdRange>();
+        var teams = new ArrayList<IdRange>();
+        var memberTeams = new HashSet<Long>();
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            var memberMax = maxId(connection, "member", "member_id");
+            var teamMax = maxId(connection, "team", "team_id");
+            try (var insertTeams = connection.prepareStatement(
+                    "insert into team (team_id, name)"
+                            + " select " + dialect.getSelectSequenceNextValString(teamSequence) + ", d.teamName"
+                            + " from (select distinct teamName from " + source + " where teamName is not null) d"
+                            + " where not exists (select 1 from team t where t.name = d.teamName)");
+                 var insertMembers = connection.prepareStatement(
+                         "insert into member (member_id, username, age, team_id)"
+                                 + " select " + dialect.getSelectSequenceNextValString(memberSequence)
+                                 + ", c.username, cast(c.age as int), t.team_id"
+                                 + " from " + source + " c"
+                                 + " left join team t on t.name = c.teamName")) {
+                createdTeams = insertTeams.executeUpdate();
+                rows = insertMembers.executeUpdate();
+            }
+            members.add(new IdRange(memberMax, maxId(connection, "member", "member_id")));
+            teams.add(new IdRange(teamMax, maxId(connection, "team", "team_id")));
+            try (var select = connection.prepareStatement(
+                    "select distinct team_id from member where member_id > ? and team_id is not null")) {
+                select.setLong(1, memberMax);
+                try (var resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        memberTeams.add(resultSet.getLong(1));
+                    }
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("csvread import failed: " + file, e);
+        }
+        afterImport(members, teams, memberTeams);
+        var report = new ImportReport(rows, createdTeams, System.nanoTime() - start, peak.get());
+        log.info("csvread import {}", report);
+        return report;
+    }
+
+    /**
+     * @param memberIds 회원 id 를 나눠준 allocator. 팀만 적재하면 null
+     */
+    private ImportReport run(int batchSize, SequenceBlockAllocator memberIds, ImportTask task) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        var peak = new PeakHeap();
+        var start = System.nanoTime();
+        long rows;
+        long createdTeams;
+        TeamResolver teams = null;
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                teams = new TeamResolver(connection, batchSize);
+                rows = task.run(connection, teams);
+                teams.flush();
+                teams.close();
+                connection.commit();
+                createdTeams = teams.created;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("import failed", e);
+        } finally {
+            // 실패해도 앞서 커밋된 배치가 있으므로 항상 정리한다
+            afterImport(memberIds == null ? List.of() : memberIds.ranges(),
+                        teams == null ? List.of() : teams.allocator.ranges(),
+                        teams == null ? Set.of() : teams.memberTeams);
+        }
+        var report = new ImportReport(rows, createdTeams, System.nanoTime() - start, peak.get());
+        log.info("import {}", report);
+        return report;
+    }
+
+    /**
+     * JDBC 로 직접 쓴 행은 2차 캐시와 팀 집계, n-gram 색인이 알지 못하므로 적재한 범위만 반영한다
+     * <p>
+     * insert 만 하므로 기존 Member / Team 엔티티 캐시는 그대로 맞다. 회원이 늘어난 팀의 members 컬렉션과
+     * 새 행을 못 본 쿼리 캐시만 비운다.
+     */
+    private void afterImport(List<IdRange> members, List<IdRange> teams, Collection<Long> memberTeams) {
+        var cache = sessionFactory.getCache();
+        cache.evictCollectionData(Team.class.getName() + ".members");
+        cache.evictQueryRegions();
+        teamStats.recompute(memberTeams);
+        for (IdRange range : members) {
+            textIndex.reindex(TextField.MEMBER_USERNAME, range.getFromExclusive(), range.getToInclusive());
+        }
+        for (IdRange range : teams) {
+            textIndex.reindex(TextField.TEAM_NAME, range.getFromExclusive(), range.getToInclusive());
+        }
+    }
+
+    private static long maxId(Connection connection, String table, String idColumn) throws SQLException {
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery("select coalesce(max(" + idColumn + "), 0) from " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private SequenceBlockAllocator allocator(Class<?> entityType) {
+        return new SequenceBlockAllocator(sessionFactory.getJdbcServices().getDialect(),
+                                          sessionFactory.getMetamodel().entityPersister(entityType));
+    }
+
+    private String sequenceName(Class<?> entityType) {
+        return SequenceBlockAllocator.sequenceName(sessionFactory.getMetamodel().entityPersister(entityType));
+    }
+
+    private static Iterable<String[]> records(Reader reader, ImportRecordParser parser) {
+        var lines = new BufferedReader(reader).lines();
+        return () -> lines.filter(line -> !line.isBlank())
+                          .skip(parser.hasHeader() ? 1 : 0)
+                          .map(parser::parse)
+                          .iterator();
+    }
+
+    @FunctionalInterface
+    private interface ImportTask {
+        long run(Connection connection, TeamResolver teams) throws SQLException;
+    }
+
+    /**
+     * 팀 이름 → id 맵. 처음에 기존 팀을 모두 읽고, 새 이름은 id 를 받아 배치 insert 에 쌓는다
+     */
+    private class TeamResolver {
+
+        private final Map<String, Long> ids = new HashMap<>();
+        private final Set<Long> memberTeams = new HashSet<>();
+        private final Connection connection;
+        private final SequenceBlockAllocator allocator;
+        private final PreparedStatement insert;
+        private final int batchSize;
+        private int pending;
+        private long created;
+
+        TeamResolver(Connection connection, int batchSize) throws SQLException {
+            this.connection = connection;
+            this.allocator = allocator(Team.class);
+            this.batchSize = batchSize;
+            try (var statement = connection.createStatement();
+                 var resultSet = statement.executeQuery("select team_id, name from team")) {
+                while (resultSet.next()) {
+                    ids.put(resultSet.getString(2), resultSet.getLong(1));
+                }
+            }
+            this.insert = connection.prepareStatement(INSERT_TEAM);
+        }
+
+        /**
+         * 새 팀은 flush 전까지 insert 되지 않으므로 member insert 배치보다 먼저 flush 해야 한다
+         */
+        Long resolve(String name) throws SQLException {
+            var id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            id = allocator.next(connection);
+            ids.put(name, id);
+            insert.setLong(1, id);
+            insert.setString(2, name);
+            insert.addBatch();
+            created++;
+            if (++pending >= batchSize) {
+                flush();
+            }
+            return id;
+        }
+
+        /**
+         * 회원이 들어가는 팀. 적재가 끝나면 이 팀들의 집계만 다시 계산한다
+         */
+        Long resolveForMember(String name) throws SQLException {
+            var id = resolve(name);
+            memberTeams.add(id);
+            return id;
+        }
+
+        void flush() throws SQLException {
+            if (pending > 0) {
+                insert.executeBatch();
+                pending = 0;
+            }
+        }
+
+        void close() throws SQLException {
+            insert.close();
+        }
+    }
+
+    /**
+     * 생성 시점부터 힙 메모리 풀의 최대 사용량 합
+     */
+    static class PeakHeap {
+
+        private final List<MemoryPoolMXBean> pools;
+
+        PeakHeap() {
+            this.pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                                          .filter(pool -> pool.getType() == MemoryType.HEAP)
+                                          .collect(Collectors.toList());
+            pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        }
+
+        long get() {
+            return pools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.jpastudy.querydsl.importer;
+
+public enum ImportFormat {
+    /**
+     * username,age,teamName (팀 파일은 name). 첫 줄은 헤더
+     */
+    CSV,
+    /**
+     * 한 줄에 JSON 객체 하나. {"username":..,"age":..,"teamName":..} / {"name":..}
+     */
+    JSON_LINES
+}
@@ -0,0 +1,86 @@
+package com.jpastudy.querydsl.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV / JSON lines 한 줄을 필드 목록으로 바꾼다
+ */
+class ImportRecordParser {
+
+    private final ImportFormat format;
+    private final String[] fieldNames;
+    private final ObjectMapper objectMapper;
+
+    ImportRecordParser(ImportFormat format, ObjectMapper objectMapper, String... fieldNames) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.fieldNames = fieldNames;
+    }
+
+    boolean hasHeader() {
+        return format == ImportFormat.CSV;
+    }
+
+    String[] parse(String line) {
+        return format == ImportFormat.CSV ? parseCsv(line) : parseJson(line);
+    }
+
+    private String[] parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("invalid json line: " + line, e);
+        }
+        var values = new String[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+            var value = node.get(fieldNames[i]);
+            values[i] = value == null || value.isNull() ? null : value.asText();
+        }
+        return values;
+    }
+
+    /**
+     * 큰따옴표로 감싼 필드와 "" 이스케이프를 지원한다. 빈 필드는 null
+     */
+    private String[] parseCsv(String line) {
+        List<String> values = new ArrayList<>(fieldNames.length);
+        var current = new StringBuilder();
+        var quoted = false;
+        var wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                values.add(current.length() == 0 && !wasQuoted ? null : current.toString());
+                current.setLength(0);
+                wasQuoted = false;
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.length() == 0 && !wasQuoted ? null : current.toString());
+
+        var result = new String[fieldNames.length];
+        for (int i = 0; i < result.length && i < values.size(); i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+}
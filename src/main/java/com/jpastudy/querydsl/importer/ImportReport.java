@@ -0,0 +1,25 @@
+package com.jpastudy.querydsl.importer;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class ImportReport {
+
+    private final long rows;
+    private final long createdTeams;
+    private final long elapsedNanos;
+    private final long peakHeapBytes;
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d rows (+%,d teams) in %,d ms, %,.0f rows/s, peak heap %,d MB",
+                             rows, createdTeams, elapsedNanos / 1_000_000, getRowsPerSecond(),
+                             peakHeapBytes / (1024 * 1024));
+    }
+}
@@ -0,0 +1,91 @@
+package com.jpastudy.querydsl.importer;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hibernate 의 pooled-lo 최적화와 같은 방식으로 id 를 나눠준다
+ * <p>
+ * 시퀀스 값 v 하나로 [v, v + incrementSize) 를 쓰므로 JPA 로 저장되는 엔티티와 id 가 겹치지 않는다.
+ * 나눠준 id 는 이어지는 블록끼리 합쳐 {@link #ranges()} 로 남긴다.
+ */
+class SequenceBlockAllocator {
+
+    private final String nextValueSql;
+    private final int incrementSize;
+    private final List<IdRange> ranges = new ArrayList<>();
+    private IdRange current;
+    private long next;
+    private long upperLimit;
+
+    SequenceBlockAllocator(Dialect dialect, EntityPersister persister) {
+        var generator = generator(persister);
+        this.nextValueSql = dialect.getSequenceNextValString(generator.getDatabaseStructure().getName());
+        this.incrementSize = generator.getOptimizer().getIncrementSize();
+    }
+
+    static String sequenceName(EntityPersister persister) {
+        return generator(persister).getDatabaseStructure().getName();
+    }
+
+    private static SequenceStyleGenerator generator(EntityPersister persister) {
+        var generator = persister.getIdentifierGenerator();
+        if (!(generator instanceof SequenceStyleGenerator)) {
+            throw new IllegalArgumentException(persister.getEntityName() + " is not sequence generated: " + generator);
+        }
+        return (SequenceStyleGenerator) generator;
+    }
+
+    long next(Connection connection) throws SQLException {
+        if (next >= upperLimit) {
+            try (var statement = connection.createStatement();
+                 var resultSet = statement.executeQuery(nextValueSql)) {
+                resultSet.next();
+                next = resultSet.getLong(1);
+                upperLimit = next + incrementSize;
+            }
+            if (current == null || current.toInclusive != next - 1) {
+                current = new IdRange(next - 1, next - 1);
+                ranges.add(current);
+            }
+        }
+        current.toInclusive = next;
+        return next++;
+    }
+
+    /**
+     * 지금까지 나눠준 id. 다른 세션의 블록이 끼어들지 않았으면 범위 하나다
+     */
+    List<IdRange> ranges() {
+        return Collections.unmodifiableList(ranges);
+    }
+
+    /**
+     * (fromExclusive, toInclusive] id 범위
+     */
+    static final class IdRange {
+
+        private final long fromExclusive;
+        private long toInclusive;
+
+        IdRange(long fromExclusive, long toInclusive) {
+            this.fromExclusive = fromExclusive;
+            this.toInclusive = toInclusive;
+        }
+
+        long getFromExclusive() {
+            return fromExclusive;
+        }
+
+        long getToInclusive() {
+            return toInclusive;
+        }
+    }
+}
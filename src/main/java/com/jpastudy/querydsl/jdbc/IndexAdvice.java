@@ -0,0 +1,22 @@
+package com.jpastudy.querydsl.jdbc;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@ToString(of = {"table", "columns"})
+@RequiredArgsConstructor
+public class IndexAdvice {
+
+    private final String table;
+    private final List<String> columns;
+    private final String sql;
+    private final String plan;
+
+    public String getDdlHint() {
+        return table + "(" + String.join(", ", columns) + ")";
+    }
+}
@@ -0,0 +1,195 @@
+package com.jpastudy.querydsl.jdbc;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 개발용 인덱스 어드바이저
+ * <p>
+ * p6spy 로 실행된 select 문을 모양별로 하나씩 모아 두었다가 H2 EXPLAIN 을 돌려
+ * 테이블 풀 스캔이 나온 문장과 그 테이블에 걸면 좋을 인덱스 컬럼을 알려준다.
+ * 컬럼 순서는 등호 조건, 첫 번째 범위 조건 (범위 조건이 없으면 정렬 컬럼) 순이다.
+ * <p>
+ * jpastudy.index-advisor.enabled=true 일 때만 등록되고, 종료할 때 결과를 로그로 남긴다.
+ * EXPLAIN 은 DataSource 가 살아 있어야 하므로 빈 소멸이 시작되기 전인 ContextClosedEvent 에서 돌린다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "jpastudy.index-advisor", name = "enabled", havingValue = "true")
+public class IndexAdvisor extends SimpleJdbcEventListener implements ApplicationListener<ContextClosedEvent> {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*\"?(\\w+)\"?\\.\"?(\\w+)\"?\\.tableScan\\s*\\*/",
+                                                              Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE_ALIAS = Pattern.compile("\\b(?:from|join)\\s+(\\w+)\\s+(?:as\\s+)?(\\w+)");
+    private static final Set<String> KEYWORDS = Set.of("where", "on", "inner", "left", "right", "outer",
+                                                       "cross", "join", "order", "group", "limit", "offset");
+
+    private final DataSource dataSource;
+    private final int maxStatements;
+    private final Map<String, String> samples = new ConcurrentHashMap<>();
+
+    /**
+     * DataSource 는 p6spy 리스너보다 늦게 만들어지므로 지연 주입한다
+     */
+    public IndexAdvisor(@Lazy DataSource dataSource,
+                        @Value("${jpastudy.index-advisor.max-statements:500}") int maxStatements) {
+        this.dataSource = dataSource;
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        var sql = statementInformation.getSql();
+        if (e != null || sql == null || samples.size() >= maxStatements) {
+            return;
+        }
+        if (!strip(sql).startsWith("select")) {
+            return;
+        }
+        samples.putIfAbsent(StatementScope.shapeOf(sql), statementInformation.getSqlWithValues());
+    }
+
+    public void clear() {
+        samples.clear();
+    }
+
+    /**
+     * 모아 둔 문장마다 EXPLAIN 을 돌려 풀 스캔을 찾는다
+     */
+    public List<IndexAdvice> advise() {
+        var result = new ArrayList<IndexAdvice>();
+        try (var connection = dataSource.getConnection();
+             var statement = connection.createStatement()) {
+            for (var sample : samples.values()) {
+                String plan;
+                try (var resultSet = statement.executeQuery("explain " + sample)) {
+                    resultSet.next();
+                    plan = resultSet.getString(1);
+                } catch (SQLException e) {
+                    log.debug("explain failed: {}", sample, e);
+                    continue;
+                }
+                result.addAll(analyze(sample, plan));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("index advisor failed", e);
+        }
+        return result;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        report();
+    }
+
+    public void report() {
+        if (samples.isEmpty()) {
+            return;
+        }
+        for (var advice : advise()) {
+            log.warn("table scan on {}: create index on {} -- {}",
+                     advice.getTable(), advice.getDdlHint(), advice.getSql());
+        }
+    }
+
+    static List<IndexAdvice> analyze(String sql, String plan) {
+        var result = new ArrayList<IndexAdvice>();
+        var scanned = new LinkedHashSet<String>();
+        var matcher = TABLE_SCAN.matcher(plan);
+        while (matcher.find()) {
+            scanned.add(matcher.group(2).toLowerCase(Locale.ROOT));
+        }
+        for (var table : scanned) {
+            var columns = suggestColumns(sql, table);
+            if (!columns.isEmpty()) {
+                result.add(new IndexAdvice(table, columns, sql, plan));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 풀 스캔된 테이블의 별칭으로 걸린 조건 컬럼을 찾아 인덱스 컬럼 순서를 정한다. 조건이 없으면 빈 목록
+     */
+    static List<String> suggestColumns(String sql, String table) {
+        var normalized = strip(sql);
+        var from = normalized.indexOf(" from ");
+        if (from < 0) {
+            return List.of();
+        }
+        var body = normalized.substring(from);
+        var orderBy = body.indexOf(" order by ");
+        var predicates = orderBy < 0 ? body : body.substring(0, orderBy);
+        var ordering = orderBy < 0 ? "" : body.substring(orderBy);
+
+        var equality = new LinkedHashSet<String>();
+        var range = new LinkedHashSet<String>();
+        for (var alias : aliases(body).getOrDefault(table, List.of())) {
+            var a = Pattern.quote(alias);
+            var left = Pattern.compile("\\b" + a + "\\.(\\w+)\\s*(<=|>=|=|<|>|\\bbetween\\b|\\blike\\b|\\bin\\b|\\bis\\b)")
+                              .matcher(predicates);
+            while (left.find()) {
+                var operator = left.group(2);
+                if (operator.equals("=") || operator.equals("in") || operator.equals("is")) {
+                    equality.add(left.group(1));
+                } else {
+                    range.add(left.group(1));
+                }
+            }
+            var right = Pattern.compile("(<=|>=|=|<|>)\\s*" + a + "\\.(\\w+)").matcher(predicates);
+            while (right.find()) {
+                (right.group(1).equals("=") ? equality : range).add(right.group(2));
+            }
+        }
+        range.removeAll(equality);
+
+        var columns = new LinkedHashSet<>(equality);
+        if (!range.isEmpty()) {
+            columns.add(range.iterator().next());
+        } else {
+            for (var alias : aliases(body).getOrDefault(table, List.of())) {
+                var order = Pattern.compile("\\b" + Pattern.quote(alias) + "\\.(\\w+)").matcher(ordering);
+                while (order.find()) {
+                    columns.add(order.group(1));
+                }
+            }
+        }
+        return List.copyOf(columns);
+    }
+
+    private static Map<String, List<String>> aliases(String body) {
+        var result = new HashMap<String, List<String>>();
+        var matcher = TABLE_ALIAS.matcher(body);
+        while (matcher.find()) {
+            if (!KEYWORDS.contains(matcher.group(2))) {
+                result.computeIfAbsent(matcher.group(1), key -> new ArrayList<>()).add(matcher.group(2));
+            }
+        }
+        return result;
+    }
+
+    private static String strip(String sql) {
+        var withoutComments = COMMENT.matcher(sql).replaceAll(" ");
+        return StatementScope.shapeOf(withoutComments).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,17 @@
+package com.jpastudy.querydsl.jdbc;
+
+import java.util.Map;
+
+public class NPlusOneDetectedException extends RuntimeException {
+
+    private final Map<String, Integer> repeatedShapes;
+
+    public NPlusOneDetectedException(Map<String, Integer> repeatedShapes) {
+        super("N+1 suspected, repeated statements: " + repeatedShapes);
+        this.repeatedShapes = repeatedShapes;
+    }
+
+    public Map<String, Integer> getRepeatedShapes() {
+        return repeatedShapes;
+    }
+}
@@ -0,0 +1,55 @@
+package com.jpastudy.querydsl.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 같은 모양의 문장이 threshold 를 넘게 반복되면 N+1 로 보고 경고하거나 실패시킨다
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector {
+
+    public enum Mode {
+        OFF, LOG, FAIL
+    }
+
+    private final int threshold;
+    private final Mode mode;
+
+    public NPlusOneDetector(@Value("${jpastudy.n-plus-one.threshold:10}") int threshold,
+                            @Value("${jpastudy.n-plus-one.mode:LOG}") Mode mode) {
+        this.threshold = threshold;
+        this.mode = mode;
+    }
+
+    public StatementScope open(String name) {
+        return open(name, threshold, mode);
+    }
+
+    /**
+     * scope 를 닫을 때 검사한다. FAIL 이면 {@link NPlusOneDetectedException} 을 던진다
+     */
+    public StatementScope open(String name, int threshold, Mode mode) {
+        return new StatementScope(scope -> check(name, scope, threshold, mode));
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    private void check(String name, StatementScope scope, int threshold, Mode mode) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        var repeated = scope.getRepeatedShapes(threshold);
+        if (repeated.isEmpty()) {
+            return;
+        }
+        if (mode == Mode.FAIL) {
+            throw new NPlusOneDetectedException(repeated);
+        }
+        log.warn("N+1 suspected in {} ({} statements): {}", name, scope.getStatementCount(), repeated);
+    }
+}
@@ -0,0 +1,22 @@
+package com.jpastudy.querydsl.jdbc;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 로 가로챈 모든 문장 실행을 현재 스레드의 {@link StatementScope} 에 기록한다
+ */
+@Component
+public class StatementCountListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        var sql = statementInformation.getSql();
+        if (sql != null) {
+            StatementScope.record(sql);
+        }
+    }
+}
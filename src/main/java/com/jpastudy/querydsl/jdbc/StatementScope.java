@@ -0,0 +1,98 @@
+package com.jpastudy.querydsl.jdbc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 한 요청/작업 동안 실행된 JDBC 문장을 모양(SQL 문자열)별로 센다.
+ * <p>
+ * 현재 스레드에 열린 scope 에만 집계되며, 중첩해서 열면 바깥 scope 에도 함께 집계된다.
+ */
+public class StatementScope implements AutoCloseable {
+
+    private static final ThreadLocal<StatementScope> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<long[]> EXECUTED = ThreadLocal.withInitial(() -> new long[1]);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private final StatementScope parent;
+    private final Map<String, Integer> countsByShape = new LinkedHashMap<>();
+    private final Consumer<StatementScope> onClose;
+    private int statementCount;
+    private boolean closed;
+
+    StatementScope(Consumer<StatementScope> onClose) {
+        this.parent = CURRENT.get();
+        this.onClose = onClose;
+        CURRENT.set(this);
+    }
+
+    public static StatementScope open() {
+        return new StatementScope(null);
+    }
+
+    /**
+     * scope 와 관계없이 현재 스레드에서 실행된 문장 수. 두 시점의 차이로 구간의 문장 수를 잰다
+     */
+    public static long executedOnCurrentThread() {
+        return EXECUTED.get()[0];
+    }
+
+    static void record(String sql) {
+        EXECUTED.get()[0]++;
+        for (var scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.add(sql);
+        }
+    }
+
+    static String shapeOf(String sql) {
+        var collapsed = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(collapsed).replaceAll("(?)");
+    }
+
+    private void add(String sql) {
+        statementCount++;
+        countsByShape.merge(shapeOf(sql), 1, Integer::sum);
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public Map<String, Integer> getCountsByShape() {
+        return countsByShape;
+    }
+
+    /**
+     * threshold 보다 많이 반복된 모양
+     */
+    public Map<String, Integer> getRepeatedShapes(int threshold) {
+        var repeated = new LinkedHashMap<String, Integer>();
+        countsByShape.forEach((shape, count) -> {
+            if (count > threshold) {
+                repeated.put(shape, count);
+            }
+        });
+        return repeated;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (CURRENT.get() == this) {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+        if (onClose != null) {
+            onClose.accept(this);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.jpastudy.querydsl.metrics;
+
+import java.util.List;
+
+/**
+ * 쿼리를 실행한 애플리케이션 코드의 위치 (Class.method:line)
+ * <p>
+ * Querydsl, 이 프로젝트의 쿼리 래퍼, Spring/Hibernate/JDK 프레임과 프록시 클래스는 건너뛴다.
+ */
+final class CallSite {
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    private static final List<String> INFRASTRUCTURE = List.of(
+            "com.querydsl.",
+            "com.jpastudy.querydsl.query.",
+            "com.jpastudy.querydsl.metrics.",
+            "org.springframework.",
+            "org.hibernate.",
+            "java.",
+            "javax.",
+            "jdk.",
+            "sun.",
+            "com.sun.");
+
+    static final String UNKNOWN = "unknown";
+
+    private CallSite() {
+    }
+
+    static String current() {
+        return WALKER.walk(frames -> frames.filter(frame -> !isInfrastructure(frame.getClassName()))
+                                           .findFirst()
+                                           .map(frame -> simpleName(frame.getClassName()) + "."
+                                                   + frame.getMethodName() + ":" + frame.getLineNumber())
+                                           .orElse(UNKNOWN));
+    }
+
+    private static boolean isInfrastructure(String className) {
+        if (className.contains("$$")) {
+            return true;
+        }
+        for (var prefix : INFRASTRUCTURE) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,209 @@
+package com.jpastudy.querydsl.metrics;
+
+import com.jpastudy.querydsl.jdbc.StatementScope;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Querydsl fetch/execute 를 호출 위치별로 잰다
+ * <p>
+ * 모든 호출은 시간만 재고, sampleRate 비율로 뽑힌 호출만 호출 위치를 찾아 Micrometer 에 기록한다.
+ * 그래서 querydsl.query 타이머의 count 는 실제 호출 수 × sampleRate 다.
+ * slowThreshold 를 넘은 호출은 뽑히지 않았어도 JPQL 과 바인딩 값을 남긴다. 바인딩 값은 includeBindings 일 때만 그대로 남기고
+ * 아니면 개수만 알 수 있게 가린다.
+ * <ul>
+ *     <li>querydsl.query: 지연 시간 (p50/p95/p99)</li>
+ *     <li>querydsl.query.rows: 돌려준 행 수 (execute 는 바뀐 행 수)</li>
+ *     <li>querydsl.query.statements: 실행된 JDBC 문장 수 (p6spy 가 켜져 있을 때)</li>
+ *     <li>querydsl.query.persistence-context: 실행 직후 영속성 컨텍스트의 엔티티 수 (트랜잭션 안에서만)</li>
+ *     <li>querydsl.query.slow: 느린 쿼리 수</li>
+ * </ul>
+ */
+@Slf4j
+public class QueryMetrics {
+
+    public static final QueryMetrics DISABLED = new QueryMetrics(null, null, 0, Duration.ZERO, 0, 0);
+
+    static final String OTHER_CALL_SITE = "other";
+    static final String MASKED_BINDING = "****";
+
+    private final MeterRegistry registry;
+    private final EntityManagerFactory emf;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final int slowQueryCapacity;
+    private final int maxCallSites;
+    private final boolean includeBindings;
+    private final Map<String, SiteMeters> meters = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    public QueryMetrics(MeterRegistry registry, EntityManagerFactory emf, double sampleRate,
+                        Duration slowThreshold, int slowQueryCapacity, int maxCallSites) {
+        this(registry, emf, sampleRate, slowThreshold, slowQueryCapacity, maxCallSites, false);
+    }
+
+    /**
+     * slowThreshold 가 0 이면 느린 쿼리를 남기지 않는다
+     */
+    public QueryMetrics(MeterRegistry registry, EntityManagerFactory emf, double sampleRate,
+                        Duration slowThreshold, int slowQueryCapacity, int maxCallSites, boolean includeBindings) {
+        this.registry = registry;
+        this.emf = emf;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowQueryCapacity = slowQueryCapacity;
+        this.maxCallSites = maxCallSites;
+        this.includeBindings = includeBindings;
+    }
+
+    public boolean isEnabled() {
+        return registry != null;
+    }
+
+    public <R> R record(String operation, Supplier<R> action, ToLongFunction<R> rows, Supplier<QueryText> text) {
+        if (!isEnabled()) {
+            return action.get();
+        }
+        var sampled = sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        var statementsBefore = StatementScope.executedOnCurrentThread();
+        var start = System.nanoTime();
+        R result = null;
+        var failed = true;
+        try {
+            result = action.get();
+            failed = false;
+            return result;
+        } finally {
+            var elapsed = System.nanoTime() - start;
+            var slow = slowThresholdNanos > 0 && elapsed >= slowThresholdNanos;
+            if (sampled || slow) {
+                var rowCount = failed ? 0 : rows.applyAsLong(result);
+                var statements = StatementScope.executedOnCurrentThread() - statementsBefore;
+                var site = meters(CallSite.current(), operation, failed);
+                if (sampled) {
+                    site.record(elapsed, rowCount, statements, persistenceContextSize());
+                }
+                if (slow) {
+                    site.slow.increment();
+                    slow(site.callSite, operation, elapsed, rowCount, statements, text);
+                }
+            }
+        }
+    }
+
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public void clearSlowQueries() {
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    private void slow(String callSite, String operation, long elapsedNanos, long rows, long statements,
+                      Supplier<QueryText> text) {
+        QueryText described;
+        try {
+            described = text.get();
+        } catch (RuntimeException e) {
+            described = new QueryText("<" + e + ">", List.of());
+        }
+        var bindings = includeBindings
+                ? described.getBindings()
+                : Collections.nCopies(described.getBindings().size(), MASKED_BINDING);
+        var slowQuery = new SlowQuery(Instant.now(), callSite, operation, elapsedNanos / 1_000_000.0,
+                                      rows, statements, described.getJpql(), bindings);
+        log.warn("slow query {}ms at {} ({} rows, {} statements): {} {}",
+                 slowQuery.getElapsedMillis(), callSite, rows, statements,
+                 slowQuery.getJpql(), slowQuery.getBindings());
+        synchronized (slowQueries) {
+            if (slowQueries.size() >= slowQueryCapacity) {
+                slowQueries.pollFirst();
+            }
+            if (slowQueryCapacity > 0) {
+                slowQueries.addLast(slowQuery);
+            }
+        }
+    }
+
+    private long persistenceContextSize() {
+        var em = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (em == null) {
+            return -1;
+        }
+        return em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+    }
+
+    private SiteMeters meters(String callSite, String operation, boolean failed) {
+        var key = callSite + ' ' + operation + ' ' + failed;
+        var site = meters.get(key);
+        if (site != null) {
+            return site;
+        }
+        if (meters.size() >= maxCallSites && !callSite.equals(OTHER_CALL_SITE)) {
+            // 호출 위치가 너무 많으면 태그 수가 늘지 않도록 하나로 묶는다
+            return meters(OTHER_CALL_SITE, operation, failed);
+        }
+        return meters.computeIfAbsent(key, k -> new SiteMeters(registry, callSite, operation, failed));
+    }
+
+    private static class SiteMeters {
+
+        private final String callSite;
+        private final Timer latency;
+        private final DistributionSummary rows;
+        private final DistributionSummary statements;
+        private final DistributionSummary persistenceContext;
+        private final Counter slow;
+
+        SiteMeters(MeterRegistry registry, String callSite, String operation, boolean failed) {
+            this.callSite = callSite;
+            var tags = new String[]{"call.site", callSite, "operation", operation,
+                                    "outcome", failed ? "error" : "success"};
+            this.latency = Timer.builder("querydsl.query")
+                                .tags(tags)
+                                .publishPercentiles(0.5, 0.95, 0.99)
+                                .percentilePrecision(2)
+                                .register(registry);
+            this.rows = DistributionSummary.builder("querydsl.query.rows").tags(tags).register(registry);
+            this.statements = DistributionSummary.builder("querydsl.query.statements").tags(tags).register(registry);
+            this.persistenceContext = DistributionSummary.builder("querydsl.query.persistence-context")
+                                                         .baseUnit("entities")
+                                                         .tags(tags)
+                                                         .register(registry);
+            this.slow = Counter.builder("querydsl.query.slow").tags(tags).register(registry);
+        }
+
+        void record(long elapsedNanos, long rowCount, long statementCount, long persistenceContextSize) {
+            latency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            rows.record(rowCount);
+            statements.record(statementCount);
+            if (persistenceContextSize >= 0) {
+                persistenceContext.record(persistenceContextSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.jpastudy.querydsl.metrics;
+
+import com.querydsl.jpa.JPQLSerializer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 느린 쿼리로 남길 JPQL 과 바인딩 값. 느린 쿼리일 때만 만든다
+ */
+@Getter
+@RequiredArgsConstructor
+public class QueryText {
+
+    private final String jpql;
+    private final List<String> bindings;
+
+    public static QueryText of(JPQLSerializer serializer) {
+        return new QueryText(serializer.toString().trim(),
+                             serializer.getConstants().stream().map(String::valueOf).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,25 @@
+package com.jpastudy.querydsl.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 임계값보다 오래 걸린 쿼리 한 번의 기록. jpql 은 바꾸기 전 Querydsl 식을 직렬화한 것이고 bindings 는 ?1 부터의 값이다
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SlowQuery {
+    private final Instant timestamp;
+    private final String callSite;
+    private final String operation;
+    private final double elapsedMillis;
+    private final long rows;
+    private final long statements;
+    private final String jpql;
+    private final List<String> bindings;
+}
@@ -0,0 +1,32 @@
+package com.jpastudy.querydsl.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * /actuator/slowqueries 로 최근 느린 쿼리를 보여주고 DELETE 로 비운다
+ * <p>
+ * 웹에는 기본으로 노출하지 않는다. management.endpoints.web.exposure.include 에 추가할 때는 actuator 경로에 인증을 걸어야 한다.
+ */
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final QueryMetrics metrics;
+
+    public SlowQueryEndpoint(QueryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        return metrics.getSlowQueries();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        metrics.clearSlowQueries();
+    }
+}
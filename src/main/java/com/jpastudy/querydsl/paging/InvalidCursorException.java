@@ -0,0 +1,11 @@
+package com.jpastudy.querydsl.paging;
+
+/**
+ * 클라이언트가 보낸 cursor 를 풀 수 없다. 요청 값 오류이므로 API 에서는 400 으로 응답한다
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String token) {
+        super("invalid cursor: " + token);
+    }
+}
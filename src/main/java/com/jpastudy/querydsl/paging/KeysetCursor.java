@@ -0,0 +1,58 @@
+package com.jpastudy.querydsl.paging;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 마지막으로 본 행의 (username, member_id)
+ * <p>
+ * 클라이언트에게는 {@link #encode()} 결과인 불투명 문자열로만 노출한다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class KeysetCursor {
+
+    private static final char NULL_FLAG = '0';
+    private static final char VALUE_FLAG = '1';
+
+    private final String username;
+    private final Long id;
+
+    public KeysetCursor(String username, Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("cursor id must not be null");
+        }
+        this.username = username;
+        this.id = id;
+    }
+
+    public String encode() {
+        var raw = id + ":" + (username == null ? String.valueOf(NULL_FLAG) : VALUE_FLAG + username);
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var separator = raw.indexOf(':');
+            var id = Long.valueOf(raw.substring(0, separator));
+            var flag = raw.charAt(separator + 1);
+            if (flag == NULL_FLAG) {
+                return new KeysetCursor(null, id);
+            }
+            if (flag == VALUE_FLAG) {
+                return new KeysetCursor(raw.substring(separator + 2), id);
+            }
+        } catch (RuntimeException ignored) {
+            // fall through
+        }
+        throw new InvalidCursorException(token);
+    }
+}
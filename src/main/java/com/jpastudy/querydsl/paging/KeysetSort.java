@@ -0,0 +1,27 @@
+package com.jpastudy.querydsl.paging;
+
+import com.querydsl.core.types.Order;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * username 정렬 방향과 null 위치
+ * <p>
+ * member_id 는 항상 username 과 같은 방향의 tiebreaker 로 붙는다.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public enum KeysetSort {
+    ASC_NULLS_FIRST(Order.ASC, false),
+    ASC_NULLS_LAST(Order.ASC, true),
+    DESC_NULLS_FIRST(Order.DESC, false),
+    DESC_NULLS_LAST(Order.DESC, true);
+
+    private final Order order;
+    private final boolean nullsLast;
+
+    public boolean isAscending() {
+        return order == Order.ASC;
+    }
+}
@@ -0,0 +1,110 @@
+package com.jpastudy.querydsl.paging;
+
+import com.jpastudy.querydsl.dto.MemberTeamDto;
+import com.jpastudy.querydsl.dto.QMemberTeamDto;
+import com.jpastudy.querydsl.entity.Member;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.OrderSpecifier.NullHandling;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * offset 대신 마지막으로 본 (username, member_id) 이후만 조회하는 seek 방식 페이징
+ * <p>
+ * 건너뛴 행을 읽고 버리지 않으므로 몇 번째 페이지든 조회 비용이 같다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberKeysetPager {
+
+    private final JPAQueryFactory queryFactory;
+
+    public KeysetPage<Member> fetchPage(Predicate condition, String cursor, int size, KeysetSort sort) {
+        checkSize(size);
+        var rows = queryFactory.selectFrom(member)
+                               .where(condition, seek(decode(cursor), sort))
+                               .orderBy(orderBy(sort))
+                               .limit(size + 1)
+                               .fetch();
+
+        return slice(rows, size, last -> new KeysetCursor(last.getUsername(), last.getId()));
+    }
+
+    /**
+     * 팀을 left join 한 DTO 페이지. condition 에서 {@code QTeam.team} 을 쓸 수 있다
+     */
+    public KeysetPage<MemberTeamDto> fetchTeamPage(Predicate condition, String cursor, int size, KeysetSort sort) {
+        checkSize(size);
+        var rows = queryFactory.select(new QMemberTeamDto(member.id,
+                                                          member.username,
+                                                          member.age,
+                                                          team.id,
+                                                          team.name))
+                               .from(member)
+                               .leftJoin(member.team, team)
+                               .where(condition, seek(decode(cursor), sort))
+                               .orderBy(orderBy(sort))
+                               .limit(size + 1)
+                               .fetch();
+
+        return slice(rows, size, last -> new KeysetCursor(last.getUsername(), last.getMemberId()));
+    }
+
+    private static void checkSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+    }
+
+    private static KeysetCursor decode(String cursor) {
+        return cursor == null ? null : KeysetCursor.decode(cursor);
+    }
+
+    private static <T> KeysetPage<T> slice(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+
+        var content = new ArrayList<>(rows.subList(0, size));
+        return new KeysetPage<>(content, cursorOf.apply(content.get(size - 1)).encode());
+    }
+
+    public static OrderSpecifier<?>[] orderBy(KeysetSort sort) {
+        var nullHandling = sort.isNullsLast() ? NullHandling.NullsLast : NullHandling.NullsFirst;
+        return new OrderSpecifier<?>[]{
+                new OrderSpecifier<>(sort.getOrder(), member.username, nullHandling),
+                new OrderSpecifier<>(sort.getOrder(), member.id)
+        };
+    }
+
+    /**
+     * 정렬 순서상 cursor 보다 뒤에 오는 행만 남기는 조건
+     */
+    public static BooleanExpression seek(KeysetCursor after, KeysetSort sort) {
+        if (after == null) {
+            return null;
+        }
+
+        var idAfter = sort.isAscending() ? member.id.gt(after.getId()) : member.id.lt(after.getId());
+
+        if (after.getUsername() == null) {
+            var restOfNulls = member.username.isNull().and(idAfter);
+            return sort.isNullsLast() ? restOfNulls : restOfNulls.or(member.username.isNotNull());
+        }
+
+        var username = after.getUsername();
+        var usernameAfter = sort.isAscending() ? member.username.gt(username) : member.username.lt(username);
+        var seek = usernameAfter.or(member.username.eq(username).and(idAfter));
+        return sort.isNullsLast() ? seek.or(member.username.isNull()) : seek;
+    }
+}
@@ -0,0 +1,17 @@
+package com.jpastudy.querydsl.persistence;
+
+/**
+ * 관리 엔티티 수가 한도를 넘었을 때 영속성 컨텍스트를 줄이는 방법. 둘 다 먼저 flush 한다
+ */
+public enum EvictionPolicy {
+
+    /**
+     * 전부 비운다. 들고 있던 엔티티는 모두 준영속이 된다
+     */
+    FLUSH_CLEAR,
+
+    /**
+     * 한도의 3/4 까지 오래 쓰지 않은 엔티티부터 detach 한다. 최근에 find/로딩한 엔티티는 남는다
+     */
+    DETACH_LRU
+}
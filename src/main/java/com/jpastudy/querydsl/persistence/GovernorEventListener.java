@@ -0,0 +1,35 @@
+package com.jpastudy.querydsl.persistence;
+
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+/**
+ * 열린 {@link GovernorScope} 에 엔티티 접근을 기록한다. 없으면 ThreadLocal 조회 한 번으로 끝난다
+ */
+class GovernorEventListener implements PostLoadEventListener, LoadEventListener {
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        var scope = GovernorScope.current();
+        if (scope != null) {
+            scope.touch(event.getSession().generateEntityKey(event.getId(), event.getPersister()));
+        }
+    }
+
+    /**
+     * 이미 관리 중인 엔티티를 find 로 다시 꺼낸 경우도 접근으로 친다
+     */
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        var scope = GovernorScope.current();
+        if (scope == null || event.getResult() == null) {
+            return;
+        }
+        var entry = event.getSession().getPersistenceContextInternal().getEntry(event.getResult());
+        if (entry != null) {
+            scope.touch(entry.getEntityKey());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.jpastudy.querydsl.persistence;
+
+import org.hibernate.FlushMode;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 현재 스레드의 영속성 컨텍스트 크기를 제한하는 구간
+ * <p>
+ * {@link #checkpoint()} 에서만 관리 엔티티 수를 보고 한도를 넘었으면 줄인다. 쿼리 도중에는 손대지 않으므로
+ * 페이지를 다 처리한 뒤처럼 손에 든 엔티티를 놓아도 되는 지점에서 부른다. 중첩해서 열면 안쪽 scope 가 적용된다.
+ */
+public class GovernorScope implements AutoCloseable {
+
+    private static final ThreadLocal<GovernorScope> CURRENT = new ThreadLocal<>();
+
+    private final GovernorScope parent;
+    private final EntityManager em;
+    private final int maxEntities;
+    private final EvictionPolicy policy;
+    /**
+     * 접근 순서. DETACH_LRU 일 때만 채운다
+     */
+    private final LinkedHashMap<EntityKey, Boolean> recent = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int peakEntities;
+    private int clearCount;
+    private long detachedCount;
+    private boolean closed;
+
+    GovernorScope(EntityManager em, int maxEntities, EvictionPolicy policy) {
+        if (maxEntities <= 0) {
+            throw new IllegalArgumentException("maxEntities must be positive: " + maxEntities);
+        }
+        this.parent = CURRENT.get();
+        this.em = em;
+        this.maxEntities = maxEntities;
+        this.policy = policy;
+        CURRENT.set(this);
+    }
+
+    static GovernorScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 한도를 넘었으면 flush 한 뒤 clear 하거나 오래된 엔티티를 detach 한다. 트랜잭션 안이어야 한다
+     *
+     * @throws IllegalStateException FlushMode.MANUAL 인데 flush 되지 않은 변경이나 새 엔티티가 있어 비우면 잃어버리는 경우
+     */
+    public void checkpoint() {
+        enforce(em.unwrap(SessionImplementor.class));
+    }
+
+    void touch(EntityKey key) {
+        if (policy == EvictionPolicy.DETACH_LRU) {
+            recent.put(key, Boolean.TRUE);
+        }
+    }
+
+    private void enforce(SessionImplementor session) {
+        var managed = session.getPersistenceContextInternal().getNumberOfManagedEntities();
+        peakEntities = Math.max(peakEntities, managed);
+        if (managed <= maxEntities) {
+            return;
+        }
+
+        if (session.getHibernateFlushMode() != FlushMode.MANUAL) {
+            session.flush();
+        } else if (session.isDirty()) {
+            // 읽기 전용 트랜잭션처럼 변경이 없으면 비워도 되지만, 남은 변경을 버릴 수는 없다
+            throw new IllegalStateException("cannot evict pending changes under FlushMode.MANUAL; flush first");
+        }
+        if (policy == EvictionPolicy.FLUSH_CLEAR) {
+            session.clear();
+            recent.clear();
+            clearCount++;
+        } else {
+            detachLeastRecentlyUsed(session, managed - maxEntities * 3 / 4);
+        }
+    }
+
+    /**
+     * 로딩 기록이 없는 엔티티(persist 한 것)를 먼저, 그다음 접근한 지 오래된 순서로 detach 한다
+     */
+    private void detachLeastRecentlyUsed(SessionImplementor session, int count) {
+        var context = session.getPersistenceContextInternal();
+        var victims = new ArrayList<>(count);
+        for (Map.Entry<Object, EntityEntry> entry : context.reentrantSafeEntityEntries()) {
+            if (victims.size() >= count) {
+                break;
+            }
+            if (!recent.containsKey(entry.getValue().getEntityKey())) {
+                victims.add(entry.getKey());
+            }
+        }
+        var keys = recent.keySet().iterator();
+        while (victims.size() < count && keys.hasNext()) {
+            var entity = context.getEntity(keys.next());
+            keys.remove();
+            if (entity != null) {
+                victims.add(entity);
+            }
+        }
+        victims.forEach(session::evict);
+        detachedCount += victims.size();
+    }
+
+    /**
+     * 이 구간에서 본 가장 많은 관리 엔티티 수
+     */
+    public int getPeakEntities() {
+        return peakEntities;
+    }
+
+    public int getClearCount() {
+        return clearCount;
+    }
+
+    public long getDetachedCount() {
+        return detachedCount;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.jpastudy.querydsl.persistence;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 긴 트랜잭션에서 영속성 컨텍스트가 한없이 커지지 않게 관리 엔티티 수를 제한한다
+ * <pre>
+ * try (var scope = governor.open(10_000, EvictionPolicy.FLUSH_CLEAR)) {
+ *     for (...) {
+ *         // 페이지 단위로 읽고 수정한다
+ *         scope.checkpoint(); // 한도를 넘었으면 flush + clear 된다
+ *     }
+ * }
+ * </pre>
+ * checkpoint 뒤에는 이전 페이지의 엔티티가 준영속일 수 있으므로 다시 쓰지 않는 작업에서만 연다.
+ * FlushMode.MANUAL 에서는 flush 하지 않으므로 남은 변경이 있으면 checkpoint 가 예외를 던진다.
+ * 스냅샷까지 없애려면 ReadOnlyJPAQueryFactory 로 읽는다.
+ */
+@Component
+public class PersistenceContextGovernor {
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+
+    public PersistenceContextGovernor(EntityManagerFactory emf, EntityManager em) {
+        this.emf = emf;
+        this.em = em;
+    }
+
+    @PostConstruct
+    void register() {
+        var listener = new GovernorEventListener();
+        var registry = emf.unwrap(SessionFactoryImplementor.class)
+                          .getServiceRegistry()
+                          .getService(EventListenerRegistry.class);
+        // 기본 리스너 뒤에 붙어 로딩이 끝난 다음에 본다
+        registry.appendListeners(EventType.POST_LOAD, listener);
+        registry.appendListeners(EventType.LOAD, listener);
+    }
+
+    /**
+     * 현재 스레드에 구간을 연다. try-with-resources 로 닫는다
+     */
+    public GovernorScope open(int maxEntities, EvictionPolicy policy) {
+        return new GovernorScope(em, maxEntities, policy);
+    }
+}
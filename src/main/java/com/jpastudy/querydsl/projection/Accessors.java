@@ -0,0 +1,142 @@
+package com.jpastudy.querydsl.projection;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * DTO 클래스별로 한 번만 생성해 재사용하는 접근자 캐시
+ */
+final class Accessors {
+
+    private static final Map<Class<?>, Supplier<Object>> INSTANTIATORS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<String, BiConsumer<Object, Object>>> SETTERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<String, BiConsumer<Object, Object>>> FIELDS = new ConcurrentHashMap<>();
+
+    private Accessors() {
+    }
+
+    static Supplier<Object> instantiator(Class<?> type) {
+        return INSTANTIATORS.computeIfAbsent(type, Accessors::createInstantiator);
+    }
+
+    static BiConsumer<Object, Object> setter(Class<?> type, String property) {
+        return SETTERS.computeIfAbsent(type, key -> new ConcurrentHashMap<>())
+                      .computeIfAbsent(property, key -> createSetter(type, key));
+    }
+
+    static BiConsumer<Object, Object> field(Class<?> type, String property) {
+        return FIELDS.computeIfAbsent(type, key -> new ConcurrentHashMap<>())
+                     .computeIfAbsent(property, key -> createFieldSetter(type, key));
+    }
+
+    /**
+     * 인자를 Object[] 하나로 받아 생성자를 호출하는 핸들. 타입은 {@code (Object[])Object}
+     */
+    static MethodHandle spreadConstructor(Constructor<?> constructor) {
+        try {
+            var handle = lookup(constructor.getDeclaringClass()).unreflectConstructor(constructor);
+            return handle.asType(handle.type().generic())
+                         .asSpreader(Object[].class, constructor.getParameterCount());
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access " + constructor, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> createInstantiator(Class<?> type) {
+        try {
+            var lookup = lookup(type);
+            var constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            var site = LambdaMetafactory.metafactory(lookup,
+                                                     "get",
+                                                     MethodType.methodType(Supplier.class),
+                                                     MethodType.methodType(Object.class),
+                                                     constructor,
+                                                     MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(type.getName() + " needs an accessible no-args constructor", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> createSetter(Class<?> type, String property) {
+        var method = findSetter(type, property);
+        try {
+            var lookup = lookup(type);
+            var parameterType = wrap(method.getParameterTypes()[0]);
+            var site = LambdaMetafactory.metafactory(lookup,
+                                                     "accept",
+                                                     MethodType.methodType(BiConsumer.class),
+                                                     MethodType.methodType(void.class, Object.class, Object.class),
+                                                     lookup.unreflect(method),
+                                                     MethodType.methodType(void.class, type, parameterType));
+            return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Cannot compile setter " + method, e);
+        }
+    }
+
+    private static BiConsumer<Object, Object> createFieldSetter(Class<?> type, String property) {
+        var field = findField(type, property);
+        try {
+            var handle = lookup(field.getDeclaringClass()).unreflectSetter(field);
+            var generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (target, value) -> {
+                try {
+                    generic.invokeExact(target, value);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access " + field, e);
+        }
+    }
+
+    private static Method findSetter(Class<?> type, String property) {
+        var name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name)
+                    && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("No setter " + name + " on " + type.getName());
+    }
+
+    private static Field findField(Class<?> type, String property) {
+        for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+            try {
+                var field = current.getDeclaredField(property);
+                if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                    return field;
+                }
+            } catch (NoSuchFieldException ignored) {
+                // 상위 클래스에서 계속 찾는다
+            }
+        }
+        throw new IllegalArgumentException("No field " + property + " on " + type.getName());
+    }
+
+    private static MethodHandles.Lookup lookup(Class<?> type) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+    }
+
+    static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+}
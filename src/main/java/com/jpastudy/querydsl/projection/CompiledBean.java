@@ -0,0 +1,55 @@
+package com.jpastudy.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 기본 생성자 + setter(또는 필드)로 값을 채우는 프로젝션. null 값은 건너뛴다.
+ */
+public class CompiledBean<T> extends FactoryExpressionBase<T> {
+
+    private final List<Expression<?>> args;
+    private final Supplier<Object> instantiator;
+    private final BiConsumer<Object, Object>[] writers;
+
+    @SuppressWarnings("unchecked")
+    CompiledBean(Class<? extends T> type, boolean fieldAccess, Expression<?>... args) {
+        super(type);
+        this.args = Collections.unmodifiableList(Arrays.asList(args.clone()));
+        this.instantiator = Accessors.instantiator(type);
+        this.writers = new BiConsumer[args.length];
+        for (int i = 0; i < args.length; i++) {
+            var property = CompiledProjections.propertyName(args[i]);
+            writers[i] = fieldAccess ? Accessors.field(type, property) : Accessors.setter(type, property);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(Object... values) {
+        var bean = instantiator.get();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                writers[i].accept(bean, values[i]);
+            }
+        }
+        return (T) bean;
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+}
@@ -0,0 +1,93 @@
+package com.jpastudy.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 인자 타입에 맞는 생성자를 MethodHandle 로 호출하는 프로젝션
+ * <p>
+ * primitive 파라미터에 null 이 들어오면 {@code Projections.constructor} 처럼 기본값으로 바꾼다.
+ */
+public class CompiledConstructor<T> extends FactoryExpressionBase<T> {
+
+    private final List<Expression<?>> args;
+    private final MethodHandle constructor;
+    private final Object[] primitiveDefaults;
+
+    CompiledConstructor(Class<? extends T> type, Expression<?>... args) {
+        super(type);
+        this.args = Collections.unmodifiableList(Arrays.asList(args.clone()));
+
+        var target = findConstructor(type, args);
+        this.constructor = Accessors.spreadConstructor(target);
+        this.primitiveDefaults = new Object[args.length];
+        var parameterTypes = target.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i].isPrimitive()) {
+                primitiveDefaults[i] = defaultValue(parameterTypes[i]);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(Object... values) {
+        // 호출한 쪽의 배열(결과 행)은 건드리지 않고, 기본값을 채울 때만 복사한다
+        var arguments = values;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null && primitiveDefaults[i] != null) {
+                if (arguments == values) {
+                    arguments = values.clone();
+                }
+                arguments[i] = primitiveDefaults[i];
+            }
+        }
+        try {
+            return (T) (Object) constructor.invokeExact(arguments);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type, Expression<?>[] args) {
+        for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+            if (Modifier.isPrivate(candidate.getModifiers()) || candidate.getParameterCount() != args.length) {
+                continue;
+            }
+            var parameterTypes = candidate.getParameterTypes();
+            var matches = true;
+            for (int i = 0; i < args.length && matches; i++) {
+                matches = Accessors.wrap(parameterTypes[i]).isAssignableFrom(Accessors.wrap(args[i].getType()));
+            }
+            if (matches) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("No constructor of " + type.getName() + " matches " + Arrays.toString(args));
+    }
+
+    private static Object defaultValue(Class<?> primitive) {
+        return Array.get(Array.newInstance(primitive, 1), 0);
+    }
+}
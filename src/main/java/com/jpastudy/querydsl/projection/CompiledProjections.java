@@ -0,0 +1,50 @@
+package com.jpastudy.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+
+/**
+ * {@link com.querydsl.core.types.Projections} 와 같은 사용법이지만 행마다 리플렉션을 쓰지 않는 프로젝션
+ * <p>
+ * DTO 클래스별 접근자(LambdaMetafactory / MethodHandle)는 처음 한 번만 만들고 캐시한다.
+ */
+public final class CompiledProjections {
+
+    private CompiledProjections() {
+    }
+
+    /**
+     * setter 로 값을 채운다. {@code Projections.bean} 과 대응
+     */
+    public static <T> FactoryExpression<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        return new CompiledBean<>(type, false, exprs);
+    }
+
+    /**
+     * 필드에 직접 값을 채운다. {@code Projections.fields} 와 대응
+     */
+    public static <T> FactoryExpression<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+        return new CompiledBean<>(type, true, exprs);
+    }
+
+    /**
+     * 생성자로 값을 채운다. {@code Projections.constructor} 와 대응
+     */
+    public static <T> FactoryExpression<T> constructor(Class<? extends T> type, Expression<?>... exprs) {
+        return new CompiledConstructor<>(type, exprs);
+    }
+
+    static String propertyName(Expression<?> expr) {
+        if (expr instanceof Path) {
+            return ((Path<?>) expr).getMetadata().getName();
+        }
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            var alias = ((Operation<?>) expr).getArg(1);
+            return alias instanceof Path ? ((Path<?>) alias).getMetadata().getName() : alias.toString();
+        }
+        throw new IllegalArgumentException("Unsupported expression " + expr + ", use a path or an alias");
+    }
+}
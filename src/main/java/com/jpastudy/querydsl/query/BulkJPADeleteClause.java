@@ -0,0 +1,52 @@
+package com.jpastudy.querydsl.query;
+
+import com.jpastudy.querydsl.bulk.BulkHooks;
+import com.jpastudy.querydsl.metrics.QueryMetrics;
+import com.jpastudy.querydsl.metrics.QueryText;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPADeleteClause;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * execute 를 {@link BulkHooks} 로 감싸고 {@link QueryMetrics} 로 재는 JPADeleteClause
+ */
+class BulkJPADeleteClause extends JPADeleteClause {
+
+    private final EntityManager entityManager;
+    private final EntityPath<?> entity;
+    private final QueryMetrics metrics;
+    private final BulkHooks hooks;
+    private final List<Predicate> where = new ArrayList<>();
+
+    BulkJPADeleteClause(EntityManager entityManager, EntityPath<?> entity, JPQLTemplates templates,
+                        QueryMetrics metrics, BulkHooks hooks) {
+        super(entityManager, entity, templates);
+        this.entityManager = entityManager;
+        this.entity = entity;
+        this.metrics = metrics;
+        this.hooks = hooks;
+    }
+
+    @Override
+    public JPADeleteClause where(Predicate... o) {
+        for (Predicate predicate : o) {
+            if (predicate != null) {
+                where.add(predicate);
+            }
+        }
+        return super.where(o);
+    }
+
+    @Override
+    public long execute() {
+        return hooks.execute(entityManager, entity, ExpressionUtils.allOf(where), null,
+                             () -> metrics.record("delete", super::execute, affected -> affected,
+                                                  () -> new QueryText(toString(), List.of())));
+    }
+}
@@ -0,0 +1,95 @@
+package com.jpastudy.querydsl.query;
+
+import com.jpastudy.querydsl.bulk.BulkHooks;
+import com.jpastudy.querydsl.metrics.QueryMetrics;
+import com.jpastudy.querydsl.metrics.QueryText;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * execute 를 {@link BulkHooks} 로 감싸고 {@link QueryMetrics} 로 재는 JPAUpdateClause
+ * <p>
+ * hook 이 범위와 바뀌는 속성을 알 수 있도록 where 조건과 set 한 속성을 기억한다.
+ */
+class BulkJPAUpdateClause extends JPAUpdateClause {
+
+    private final EntityManager entityManager;
+    private final EntityPath<?> entity;
+    private final QueryMetrics metrics;
+    private final BulkHooks hooks;
+    private final List<Predicate> where = new ArrayList<>();
+    private final Set<String> assigned = new LinkedHashSet<>();
+
+    BulkJPAUpdateClause(EntityManager entityManager, EntityPath<?> entity, JPQLTemplates templates,
+                        QueryMetrics metrics, BulkHooks hooks) {
+        super(entityManager, entity, templates);
+        this.entityManager = entityManager;
+        this.entity = entity;
+        this.metrics = metrics;
+        this.hooks = hooks;
+    }
+
+    @Override
+    public <T> JPAUpdateClause set(Path<T> path, T value) {
+        assign(path);
+        return super.set(path, value);
+    }
+
+    @Override
+    public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+        assign(path);
+        return super.set(path, expression);
+    }
+
+    @Override
+    public <T> JPAUpdateClause setNull(Path<T> path) {
+        assign(path);
+        return super.setNull(path);
+    }
+
+    @Override
+    public JPAUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+        paths.forEach(this::assign);
+        return super.set(paths, values);
+    }
+
+    @Override
+    public JPAUpdateClause where(Predicate... o) {
+        for (Predicate predicate : o) {
+            if (predicate != null) {
+                where.add(predicate);
+            }
+        }
+        return super.where(o);
+    }
+
+    @Override
+    public long execute() {
+        return hooks.execute(entityManager, entity, ExpressionUtils.allOf(where), assigned,
+                             () -> metrics.record("update", super::execute, affected -> affected,
+                                                  () -> new QueryText(toString(), List.of())));
+    }
+
+    /**
+     * member.address.city 처럼 중첩된 경로는 루트 바로 아래 속성(address)으로 기억한다
+     */
+    private void assign(Path<?> path) {
+        var property = path;
+        while (property.getMetadata().getParent() != null
+                && !property.getMetadata().getParent().getMetadata().isRoot()) {
+            property = property.getMetadata().getParent();
+        }
+        assigned.add(property.getMetadata().getName());
+    }
+}
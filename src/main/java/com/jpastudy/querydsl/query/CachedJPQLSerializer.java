@@ -0,0 +1,32 @@
+package com.jpastudy.querydsl.query;
+
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * 이미 직렬화한 결과를 돌려주는 직렬화기. AbstractJPAQuery 는 toString() 과 getConstants() 만 사용한다
+ */
+class CachedJPQLSerializer extends JPQLSerializer {
+
+    private final String jpql;
+    private final List<Object> constants;
+
+    CachedJPQLSerializer(JPQLTemplates templates, EntityManager em, String jpql, List<Object> constants) {
+        super(templates, em);
+        this.jpql = jpql;
+        this.constants = constants;
+    }
+
+    @Override
+    public List<Object> getConstants() {
+        return constants;
+    }
+
+    @Override
+    public String toString() {
+        return jpql;
+    }
+}
@@ -0,0 +1,126 @@
+package com.jpastudy.querydsl.query;
+
+import com.jpastudy.querydsl.metrics.QueryMetrics;
+import com.jpastudy.querydsl.metrics.QueryText;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 구조가 같은 쿼리는 직렬화를 건너뛰고 캐시된 JPQL 에 이번 상수만 바인딩하는 JPAQuery
+ * <p>
+ * fetch 계열은 {@link QueryMetrics} 로 잰다. iterate/stream 은 행을 다 읽기 전에 돌아오므로 재지 않는다.
+ */
+public class CachingJPAQuery<T> extends JPAQuery<T> {
+
+    private final JpqlShapeCache cache;
+    private final QueryMetrics metrics;
+
+    public CachingJPAQuery(EntityManager em, JPQLTemplates templates, JpqlShapeCache cache, QueryMetrics metrics) {
+        super(em, templates);
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    public CachingJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata, JpqlShapeCache cache,
+                           QueryMetrics metrics) {
+        super(em, templates, metadata);
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public List<T> fetch() {
+        return metrics.record("fetch", super::fetch, List::size, this::describe);
+    }
+
+    @Override
+    public T fetchOne() {
+        return metrics.record("fetchOne", super::fetchOne, result -> result == null ? 0 : 1, this::describe);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public QueryResults<T> fetchResults() {
+        return metrics.record("fetchResults", super::fetchResults, result -> result.getResults().size(),
+                              this::describe);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public long fetchCount() {
+        return metrics.record("fetchCount", super::fetchCount, count -> 1, this::describe);
+    }
+
+    private QueryText describe() {
+        return QueryText.of(serializeUncached(getMetadata(), false));
+    }
+
+    @Override
+    protected JPQLSerializer serialize(boolean forCount) {
+        return serialize(getMetadata(), forCount);
+    }
+
+    protected JPQLSerializer serialize(QueryMetadata metadata, boolean forCount) {
+        if (!cache.isEnabled()) {
+            return serializeUncached(metadata, forCount);
+        }
+        var shape = QueryShape.of(metadata, forCount);
+        var entry = cache.get(shape);
+
+        if (entry == null) {
+            var serializer = serializeUncached(metadata, forCount);
+            cache.put(shape, toEntry(shape, serializer));
+            return serializer;
+        }
+        if (!entry.isCacheable()) {
+            return serializeUncached(metadata, forCount);
+        }
+
+        var indexes = entry.getConstantIndexes();
+        var constants = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            constants.add(shape.constants().get(index));
+        }
+        return new CachedJPQLSerializer(getTemplates(), entityManager, entry.getJpql(), constants);
+    }
+
+    protected JPQLSerializer serializeUncached(QueryMetadata metadata, boolean forCount) {
+        var serializer = createSerializer();
+        serializer.serialize(metadata, forCount, null);
+        return serializer;
+    }
+
+    protected JpqlShapeCache getCache() {
+        return cache;
+    }
+
+    protected QueryMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static JpqlShapeCache.Entry toEntry(QueryShape shape, JPQLSerializer serializer) {
+        var serialized = serializer.getConstants();
+        var indexes = new int[serialized.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = shape.indexOf(serialized.get(i));
+            if (indexes[i] < 0) {
+                return JpqlShapeCache.Entry.UNCACHEABLE;
+            }
+        }
+        return new JpqlShapeCache.Entry(serializer.toString(), indexes);
+    }
+
+    @Override
+    public CachingJPAQuery<T> clone(EntityManager entityManager) {
+        var query = new CachingJPAQuery<T>(entityManager, getTemplates(), getMetadata().clone(), cache, metrics);
+        query.clone(this);
+        return query;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jpastudy.querydsl.query;
+
+import com.jpastudy.querydsl.bulk.BulkHooks;
+import com.jpastudy.querydsl.metrics.QueryMetrics;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import javax.persistence.EntityManager;
+
+/**
+ * select/selectFrom/from 이 {@link CachingJPAQuery} 를 만들도록 한 JPAQueryFactory
+ * <p>
+ * update/delete 의 execute 도 {@link QueryMetrics} 로 잰다. 느린 update/delete 는 JPQL 만 남고 바인딩 값은 남지 않는다.
+ * update/delete 는 {@link BulkHooks} 를 거쳐 team_stats 같은 파생 데이터도 맞춘다.
+ */
+public class CachingJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final JpqlShapeCache cache;
+    private final QueryMetrics metrics;
+    private final BulkHooks bulkHooks;
+
+    public CachingJPAQueryFactory(EntityManager entityManager, JpqlShapeCache cache) {
+        this(entityManager, cache, QueryMetrics.DISABLED);
+    }
+
+    public CachingJPAQueryFactory(EntityManager entityManager, JpqlShapeCache cache, QueryMetrics metrics) {
+        this(entityManager, cache, metrics, BulkHooks.NONE);
+    }
+
+    public CachingJPAQueryFactory(EntityManager entityManager, JpqlShapeCache cache, QueryMetrics metrics,
+                                  BulkHooks bulkHooks) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.bulkHooks = bulkHooks;
+    }
+
+    public JpqlShapeCache getCache() {
+        return cache;
+    }
+
+    public QueryMetrics getMetrics() {
+        return metrics;
+    }
+
+    public BulkHooks getBulkHooks() {
+        return bulkHooks;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        JPQLTemplates templates = JPAProvider.getTemplates(entityManager);
+        return new CachingJPAQuery<Void>(entityManager, templates, cache, metrics);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new BulkJPAUpdateClause(entityManager, path, JPAProvider.getTemplates(entityManager),
+                                       metrics, bulkHooks);
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new BulkJPADeleteClause(entityManager, path, JPAProvider.getTemplates(entityManager),
+                                       metrics, bulkHooks);
+    }
+}
@@ -0,0 +1,95 @@
+package com.jpastudy.querydsl.query;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 쿼리 구조별로 직렬화한 JPQL 과 상수 바인딩 순서를 보관한다
+ * <p>
+ * 같은 JPQL 문자열을 다시 쓰므로 Hibernate 의 query plan cache 도 그대로 재사용된다.
+ * 최대 개수를 넘는 새 구조는 캐시하지 않고 매번 직렬화한다.
+ */
+public class JpqlShapeCache {
+
+    private final Map<QueryShape, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+
+    public JpqlShapeCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    Entry get(QueryShape shape) {
+        var entry = entries.get(shape);
+        if (entry == null) {
+            misses.increment();
+        } else if (entry.isCacheable()) {
+            hits.increment();
+        } else {
+            bypasses.increment();
+        }
+        return entry;
+    }
+
+    void put(QueryShape shape, Entry entry) {
+        if (entries.size() < maxSize) {
+            entries.putIfAbsent(shape, entry);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 직렬화 중에 상수가 변형되어(like 패턴 등) 캐시할 수 없는 구조의 조회 수
+     */
+    public long getBypassCount() {
+        return bypasses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    static final class Entry {
+
+        static final Entry UNCACHEABLE = new Entry(null, null);
+
+        private final String jpql;
+        private final int[] constantIndexes;
+
+        Entry(String jpql, int[] constantIndexes) {
+            this.jpql = jpql;
+            this.constantIndexes = constantIndexes;
+        }
+
+        boolean isCacheable() {
+            return jpql != null;
+        }
+
+        String getJpql() {
+            return jpql;
+        }
+
+        int[] getConstantIndexes() {
+            return constantIndexes;
+        }
+    }
+}
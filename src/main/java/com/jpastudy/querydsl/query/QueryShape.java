@@ -0,0 +1,231 @@
+package com.jpastudy.querydsl.query;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 상수값을 뺀 쿼리 구조
+ * <p>
+ * 상수는 바인드 파라미터가 되므로 구조가 같으면 JPQL 문자열도 같다.
+ * 단 select 절과 case 식 안의 상수는 리터럴로 직렬화될 수 있어 값까지 키에 넣는다.
+ */
+final class QueryShape {
+
+    private static final Set<Operator> CASE_OPERATORS = Set.of(Ops.CASE, Ops.CASE_WHEN, Ops.CASE_ELSE,
+                                                               Ops.CASE_EQ, Ops.CASE_EQ_WHEN, Ops.CASE_EQ_ELSE);
+
+    private final List<Object> key;
+    private final List<Object> constants;
+    private final int hashCode;
+
+    private QueryShape(List<Object> key, List<Object> constants) {
+        this.key = key;
+        this.constants = constants;
+        this.hashCode = key.hashCode();
+    }
+
+    static QueryShape of(QueryMetadata metadata, boolean forCount) {
+        var builder = new Builder();
+        builder.tokens.add(forCount);
+        builder.metadata(metadata);
+        return new QueryShape(builder.tokens, builder.constants);
+    }
+
+    /**
+     * 트리 순회 순서대로 모은 상수와 파라미터
+     */
+    List<Object> constants() {
+        return constants;
+    }
+
+    /**
+     * 직렬화기가 모은 상수 중 이 구조의 몇 번째 상수인지. 같은 객체가 없으면 -1
+     */
+    int indexOf(Object constant) {
+        for (int i = 0; i < constants.size(); i++) {
+            if (constants.get(i) == constant) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof QueryShape)) {
+            return false;
+        }
+        var other = (QueryShape) o;
+        return hashCode == other.hashCode && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    private enum Marker {
+        NULL, CONSTANT, LITERAL, PARAM, SUBQUERY, JOIN, WHERE, GROUP_BY, HAVING, ORDER_BY, SELECT, END
+    }
+
+    private static final class Builder implements Visitor<Void, Void> {
+
+        private final List<Object> tokens = new ArrayList<>();
+        private final List<Object> constants = new ArrayList<>();
+        private int literalDepth;
+
+        void metadata(QueryMetadata metadata) {
+            tokens.add(metadata.isDistinct());
+            for (JoinExpression join : metadata.getJoins()) {
+                tokens.add(Marker.JOIN);
+                tokens.add(join.getType());
+                tokens.add(join.getFlags());
+                append(join.getTarget());
+                append(join.getCondition());
+            }
+            tokens.add(Marker.WHERE);
+            append(metadata.getWhere());
+            tokens.add(Marker.GROUP_BY);
+            metadata.getGroupBy().forEach(this::append);
+            tokens.add(Marker.HAVING);
+            append(metadata.getHaving());
+            tokens.add(Marker.ORDER_BY);
+            for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+                tokens.add(order.getOrder());
+                tokens.add(order.getNullHandling());
+                append(order.getTarget());
+            }
+            tokens.add(Marker.SELECT);
+            literalDepth++;
+            append(metadata.getProjection());
+            literalDepth--;
+            tokens.add(metadata.getFlags());
+            tokens.add(Marker.END);
+        }
+
+        private void append(Expression<?> expr) {
+            if (expr == null) {
+                tokens.add(Marker.NULL);
+            } else {
+                expr.accept(this, null);
+            }
+        }
+
+        private void constant(Object value) {
+            if (value == null) {
+                tokens.add(Marker.NULL);
+            } else if (literalDepth > 0) {
+                tokens.add(Marker.LITERAL);
+                tokens.add(value);
+            } else {
+                tokens.add(Marker.CONSTANT);
+                tokens.add(value.getClass());
+                tokens.add(firstEqual(value));
+                if (value instanceof Collection) {
+                    tokens.add(Math.min(((Collection<?>) value).size(), 2));
+                }
+            }
+            constants.add(value);
+        }
+
+        /**
+         * 같은 값이 앞에 나왔는지. 직렬화기가 같은 값의 상수를 하나로 합치더라도 구조가 어긋나지 않게 한다
+         */
+        private int firstEqual(Object value) {
+            for (int i = 0; i < constants.size(); i++) {
+                if (value.equals(constants.get(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Void visit(Constant<?> expr, Void context) {
+            constant(expr.getConstant());
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Void context) {
+            tokens.add(expr.getClass());
+            tokens.add(expr.getType());
+            expr.getArgs().forEach(this::append);
+            tokens.add(Marker.END);
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Void context) {
+            var caseOperation = CASE_OPERATORS.contains(expr.getOperator());
+            tokens.add(expr.getOperator());
+            tokens.add(expr.getType());
+            if (caseOperation) {
+                literalDepth++;
+            }
+            expr.getArgs().forEach(this::append);
+            if (caseOperation) {
+                literalDepth--;
+            }
+            tokens.add(Marker.END);
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Void context) {
+            tokens.add(Marker.PARAM);
+            tokens.add(expr);
+            constants.add(expr);
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Void context) {
+            tokens.add(expr);
+            tokens.add(expr.getType());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Void context) {
+            tokens.add(Marker.SUBQUERY);
+            metadata(expr.getMetadata());
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Void context) {
+            tokens.add(expr.getTemplate());
+            tokens.add(expr.getType());
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    append((Expression<?>) arg);
+                } else {
+                    constant(arg);
+                }
+            }
+            tokens.add(Marker.END);
+            return null;
+        }
+    }
+}
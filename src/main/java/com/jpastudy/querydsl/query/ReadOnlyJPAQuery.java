@@ -0,0 +1,65 @@
+package com.jpastudy.querydsl.query;
+
+import com.jpastudy.querydsl.metrics.QueryMetrics;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.JPQLTemplates;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * fetch 계열을 읽기 전용 트랜잭션 안에서 실행하는 {@link RewritingJPAQuery}
+ * <p>
+ * 트랜잭션이 없으면 읽기 전용 트랜잭션을 새로 열어 replica 로 가고, 이미 트랜잭션이 있으면 거기에 참여한다.
+ * iterate/stream 은 결과를 다 읽기 전에 트랜잭션이 끝나므로 감싸지 않는다. 읽기 전용 트랜잭션 안에서 부른다.
+ */
+public class ReadOnlyJPAQuery<T> extends RewritingJPAQuery<T> {
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReadOnlyJPAQuery(EntityManager em, JPQLTemplates templates, JpqlShapeCache cache, QueryMetrics metrics,
+                            SubQueryRewriter rewriter, TransactionTemplate readOnlyTransaction) {
+        super(em, templates, cache, metrics, rewriter);
+        this.readOnlyTransaction = readOnlyTransaction;
+    }
+
+    public ReadOnlyJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata,
+                            JpqlShapeCache cache, QueryMetrics metrics, SubQueryRewriter rewriter,
+                            TransactionTemplate readOnlyTransaction) {
+        super(em, templates, metadata, cache, metrics, rewriter);
+        this.readOnlyTransaction = readOnlyTransaction;
+    }
+
+    @Override
+    public List<T> fetch() {
+        return readOnlyTransaction.execute(status -> super.fetch());
+    }
+
+    @Override
+    public T fetchOne() {
+        return readOnlyTransaction.execute(status -> super.fetchOne());
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public QueryResults<T> fetchResults() {
+        return readOnlyTransaction.execute(status -> super.fetchResults());
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public long fetchCount() {
+        Long count = readOnlyTransaction.execute(status -> super.fetchCount());
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public ReadOnlyJPAQuery<T> clone(EntityManager entityManager) {
+        var query = new ReadOnlyJPAQuery<T>(entityManager, getTemplates(), getMetadata().clone(), getCache(),
+                                            getMetrics(), getRewriter(), readOnlyTransaction);
+        query.clone(this);
+        return query;
+    }
+}
@@ -0,0 +1,67 @@
+package com.jpastudy.querydsl.query;
+
+import com.jpastudy.querydsl.metrics.QueryMetrics;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAInsertClause;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.hibernate.CacheMode;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+/**
+ * select/selectFrom/from 이 {@link ReadOnlyJPAQuery} 를 만들도록 한 JPAQueryFactory. 변경 쿼리는 만들 수 없다
+ * <p>
+ * 엔티티는 읽기-쓰기 트랜잭션에 참여해도 read-only 로 로딩되어 스냅샷을 남기지 않고 dirty checking 에서 빠진다.
+ * 고쳐서 저장하려면 {@code Session.setReadOnly(entity, false)} 를 먼저 부른다.
+ * <p>
+ * 바깥 트랜잭션이 없으면 fetch 마다 짧은 읽기 전용 트랜잭션을 열고 닫으므로, OSIV 밖에서는 돌려받은 엔티티가 이미 준영속이다.
+ * 지연 로딩 연관(member.team, team.members)에 접근하면 LazyInitializationException 이 나므로 fetch join 하거나 DTO 로 projection 한다.
+ * <p>
+ * replica 에서 읽은 엔티티는 primary 보다 늦을 수 있으므로 2차 캐시에 넣지 않는다 (CacheMode.GET: 읽기만 한다).
+ * 엔티티를 lazy 로딩할 때처럼 이 쿼리 밖에서 일어나는 로딩은 세션의 CacheMode 를 따른다.
+ */
+public class ReadOnlyJPAQueryFactory extends RewritingJPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReadOnlyJPAQueryFactory(EntityManager entityManager, JpqlShapeCache cache, QueryMetrics metrics,
+                                   SubQueryRewriter rewriter, PlatformTransactionManager transactionManager) {
+        super(entityManager, cache, metrics, rewriter);
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        JPQLTemplates templates = JPAProvider.getTemplates(entityManager);
+        var query = new ReadOnlyJPAQuery<Void>(entityManager, templates, getCache(), getMetrics(), getRewriter(),
+                                               readOnlyTransaction);
+        query.setHint(QueryHints.READ_ONLY, true);
+        query.setHint(QueryHints.CACHE_MODE, CacheMode.GET);
+        return query;
+    }
+
+    @Override
+    public JPAInsertClause insert(EntityPath<?> path) {
+        throw new UnsupportedOperationException("read-only query factory cannot insert " + path);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        throw new UnsupportedOperationException("read-only query factory cannot update " + path);
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        throw new UnsupportedOperationException("read-only query factory cannot delete " + path);
+    }
+}
@@ -0,0 +1,67 @@
+package com.jpastudy.querydsl.query;
+
+import com.jpastudy.querydsl.metrics.QueryMetrics;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 직렬화 직전에 {@link SubQueryRewriter} 로 서브쿼리를 바꾸는 {@link CachingJPAQuery}
+ * <p>
+ * 스칼라 서브쿼리는 같은 EntityManager 로 먼저 실행된다. toString 은 바꾸기 전 JPQL 을 보여준다.
+ */
+public class RewritingJPAQuery<T> extends CachingJPAQuery<T> {
+
+    private final SubQueryRewriter rewriter;
+
+    public RewritingJPAQuery(EntityManager em, JPQLTemplates templates, JpqlShapeCache cache,
+                             QueryMetrics metrics, SubQueryRewriter rewriter) {
+        super(em, templates, cache, metrics);
+        this.rewriter = rewriter;
+    }
+
+    public RewritingJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata,
+                             JpqlShapeCache cache, QueryMetrics metrics, SubQueryRewriter rewriter) {
+        super(em, templates, metadata, cache, metrics);
+        this.rewriter = rewriter;
+    }
+
+    protected SubQueryRewriter getRewriter() {
+        return rewriter;
+    }
+
+    @Override
+    protected JPQLSerializer serialize(QueryMetadata metadata, boolean forCount) {
+        var result = rewriter.rewrite(metadata, this::evaluate);
+        if (result == null) {
+            return super.serialize(metadata, forCount);
+        }
+        // 리터럴이 들어간 JPQL 은 값마다 달라 캐시에 넣지 않는다
+        return result.isInlinedLiterals()
+                ? serializeUncached(result.getMetadata(), forCount)
+                : super.serialize(result.getMetadata(), forCount);
+    }
+
+    private Object evaluate(SubQueryExpression<?> subQuery) {
+        // 바깥 쿼리의 시간에 포함되므로 따로 재지 않는다
+        return new CachingJPAQuery<>(entityManager, getTemplates(), subQuery.getMetadata().clone(), getCache(),
+                                     QueryMetrics.DISABLED)
+                .fetchOne();
+    }
+
+    @Override
+    public String toString() {
+        return super.serialize(getMetadata(), false).toString().trim();
+    }
+
+    @Override
+    public RewritingJPAQuery<T> clone(EntityManager entityManager) {
+        var query = new RewritingJPAQuery<T>(entityManager, getTemplates(), getMetadata().clone(), getCache(),
+                                             getMetrics(), rewriter);
+        query.clone(this);
+        return query;
+    }
+}
@@ -0,0 +1,44 @@
+package com.jpastudy.querydsl.query;
+
+import com.jpastudy.querydsl.bulk.BulkHooks;
+import com.jpastudy.querydsl.metrics.QueryMetrics;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+
+/**
+ * select/selectFrom/from 이 {@link RewritingJPAQuery} 를 만들도록 한 JPAQueryFactory
+ */
+public class RewritingJPAQueryFactory extends CachingJPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final SubQueryRewriter rewriter;
+
+    public RewritingJPAQueryFactory(EntityManager entityManager, JpqlShapeCache cache, SubQueryRewriter rewriter) {
+        this(entityManager, cache, QueryMetrics.DISABLED, rewriter);
+    }
+
+    public RewritingJPAQueryFactory(EntityManager entityManager, JpqlShapeCache cache, QueryMetrics metrics,
+                                    SubQueryRewriter rewriter) {
+        this(entityManager, cache, metrics, BulkHooks.NONE, rewriter);
+    }
+
+    public RewritingJPAQueryFactory(EntityManager entityManager, JpqlShapeCache cache, QueryMetrics metrics,
+                                    BulkHooks bulkHooks, SubQueryRewriter rewriter) {
+        super(entityManager, cache, metrics, bulkHooks);
+        this.entityManager = entityManager;
+        this.rewriter = rewriter;
+    }
+
+    public SubQueryRewriter getRewriter() {
+        return rewriter;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        JPQLTemplates templates = JPAProvider.getTemplates(entityManager);
+        return new RewritingJPAQuery<Void>(entityManager, templates, getCache(), getMetrics(), rewriter);
+    }
+}
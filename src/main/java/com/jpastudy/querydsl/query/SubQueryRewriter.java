@@ -0,0 +1,325 @@
+package com.jpastudy.querydsl.query;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.JoinExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.SubQueryExpressionImpl;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.TemplateFactory;
+import com.querydsl.core.types.dsl.Expressions;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 실행 직전에 쿼리의 서브쿼리를 더 싼 모양으로 바꾼다
+ * <p>
+ * 상관관계 없는 스칼라 서브쿼리(group by 없는 집계 하나)는 한 번 실행해서 결과를 상수로 넣는다.
+ * where 에서는 파라미터로 넣는다. select 절은 JPQL 이 파라미터를 받지 않고, 비교 대상과 타입이 다른 자리는
+ * Hibernate 가 바인딩을 거부하므로 숫자 리터럴로 넣는다.
+ * <p>
+ * where 의 {@code x in (select y ...)} 는 and/or 아래에 있을 때만 {@code exists (select 1 ... and y = x)} 로 바꾼다.
+ * 두 식은 null 이 섞이면 false 와 unknown 으로 갈리는데, not 이 없는 where 에서는 둘 다 걸러지므로 결과가 같다.
+ */
+public class SubQueryRewriter {
+
+    private enum Position {
+        /**
+         * select 절이거나 비교 대상과 타입이 달라 파라미터로 바인딩할 수 없는 자리. 리터럴로 넣는다
+         */
+        LITERAL,
+        /**
+         * where 의 and/or 사슬. in → exists 를 해도 된다
+         */
+        PREDICATE,
+        /**
+         * 그 밖의 where 안쪽 (not, 비교 연산의 피연산자 등)
+         */
+        VALUE
+    }
+
+    private final boolean scalarSubQueries;
+    private final boolean inToExists;
+    private final LongAdder scalarRewrites = new LongAdder();
+    private final LongAdder semiJoinRewrites = new LongAdder();
+
+    public SubQueryRewriter(boolean scalarSubQueries, boolean inToExists) {
+        this.scalarSubQueries = scalarSubQueries;
+        this.inToExists = inToExists;
+    }
+
+    public boolean isEnabled() {
+        return scalarSubQueries || inToExists;
+    }
+
+    public long getScalarRewriteCount() {
+        return scalarRewrites.sum();
+    }
+
+    public long getSemiJoinRewriteCount() {
+        return semiJoinRewrites.sum();
+    }
+
+    /**
+     * 바꿀 것이 없으면 null. evaluator 는 스칼라 서브쿼리를 실행해 단일 결과를 돌려준다
+     */
+    Result rewrite(QueryMetadata metadata, Function<SubQueryExpression<?>, Object> evaluator) {
+        if (!isEnabled()) {
+            return null;
+        }
+        var visitor = new RewriteVisitor(evaluator);
+        var projection = metadata.getProjection() == null
+                ? null : metadata.getProjection().accept(visitor, Position.LITERAL);
+        var where = metadata.getWhere() == null
+                ? null : metadata.getWhere().accept(visitor, Position.PREDICATE);
+        if (!visitor.changed) {
+            return null;
+        }
+        var rewritten = metadata.clone();
+        rewritten.setValidate(false);
+        rewritten.setProjection(projection);
+        rewritten.clearWhere();
+        if (where != null) {
+            rewritten.addWhere((Predicate) where);
+        }
+        return new Result(rewritten, visitor.inlinedLiterals);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class Result {
+        private final QueryMetadata metadata;
+        /**
+         * select 절에 값이 리터럴로 들어가 JPQL 이 값마다 달라진다
+         */
+        private final boolean inlinedLiterals;
+    }
+
+    private class RewriteVisitor extends ReplaceVisitor<Position> {
+
+        private final Function<SubQueryExpression<?>, Object> evaluator;
+        private final Map<SubQueryExpression<?>, Object> values = new HashMap<>();
+        private boolean changed;
+        private boolean inlinedLiterals;
+
+        RewriteVisitor(Function<SubQueryExpression<?>, Object> evaluator) {
+            this.evaluator = evaluator;
+        }
+
+        @Override
+        public Expression<?> visit(Operation<?> expr, Position position) {
+            if (inToExists && position == Position.PREDICATE && expr.getOperator() == Ops.IN
+                    && expr.getArg(1) instanceof SubQueryExpression) {
+                var exists = toExists(expr.getArg(0), (SubQueryExpression<?>) expr.getArg(1));
+                if (exists != null) {
+                    semiJoinRewrites.increment();
+                    changed = true;
+                    return exists;
+                }
+            }
+            var operator = expr.getOperator();
+            if (operator == Ops.IN || operator == Ops.NOT_IN || operator == Ops.EXISTS
+                    || operator instanceof Ops.QuantOps) {
+                // 집합을 받는 자리라 상수 하나로 바꿀 수 없다
+                return expr;
+            }
+            var argPosition = position == Position.PREDICATE && (operator == Ops.AND || operator == Ops.OR)
+                    ? Position.PREDICATE
+                    : position == Position.LITERAL ? Position.LITERAL : Position.VALUE;
+
+            var args = new Expression<?>[expr.getArgs().size()];
+            var argsChanged = false;
+            for (int i = 0; i < args.length; i++) {
+                var arg = expr.getArg(i);
+                var target = argPosition;
+                if (arg instanceof SubQueryExpression && target == Position.VALUE && !sameTypeAsOthers(expr, arg)) {
+                    // int 컬럼과 avg(Double) 비교처럼 타입이 다르면 Hibernate 가 파라미터 바인딩을 거부한다
+                    target = Position.LITERAL;
+                }
+                args[i] = arg.accept(this, target);
+                argsChanged |= args[i] != arg;
+            }
+            if (!argsChanged) {
+                return expr;
+            }
+            return expr instanceof Predicate
+                    ? ExpressionUtils.predicate(operator, args)
+                    : ExpressionUtils.operation(expr.getType(), operator, args);
+        }
+
+        /**
+         * 바꾸지 않는 서브쿼리는 안쪽으로 들어가지 않는다
+         */
+        @Override
+        public Expression<?> visit(SubQueryExpression<?> expr, Position position) {
+            if (!scalarSubQueries || !isScalar(expr.getMetadata()) || isCorrelated(expr.getMetadata())) {
+                return expr;
+            }
+            if (!values.containsKey(expr)) {
+                values.put(expr, evaluator.apply(expr));
+            }
+            var value = values.get(expr);
+            if (value == null) {
+                // 빈 집계의 null 은 비교 연산이 is null 로 바뀔 수 있어 그대로 둔다
+                return expr;
+            }
+
+            Expression<?> replacement;
+            if (position == Position.LITERAL) {
+                var literal = literal(value);
+                if (literal == null) {
+                    return expr;
+                }
+                replacement = Expressions.template(expr.getType(), new TemplateFactory('\\').create(literal));
+                inlinedLiterals = true;
+            } else {
+                replacement = ConstantImpl.create(value);
+            }
+            scalarRewrites.increment();
+            changed = true;
+            return replacement;
+        }
+    }
+
+    private static boolean sameTypeAsOthers(Operation<?> operation, Expression<?> subQuery) {
+        for (Expression<?> arg : operation.getArgs()) {
+            if (arg != subQuery && !(arg instanceof SubQueryExpression) && !arg.getType().equals(subQuery.getType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isScalar(QueryMetadata metadata) {
+        var projection = metadata.getProjection();
+        return projection instanceof Operation
+                && ((Operation<?>) projection).getOperator() instanceof Ops.AggOps
+                && metadata.getGroupBy().isEmpty()
+                && metadata.getHaving() == null;
+    }
+
+    private static Predicate toExists(Expression<?> left, SubQueryExpression<?> subQuery) {
+        var metadata = subQuery.getMetadata();
+        var projection = metadata.getProjection();
+        if (projection == null || projection instanceof FactoryExpression
+                || isScalar(metadata) || !metadata.getGroupBy().isEmpty() || metadata.getHaving() != null
+                || metadata.getModifiers().isRestricting()) {
+            return null;
+        }
+        var scope = new Scope();
+        scope.collect(metadata);
+        var leftScope = new Scope();
+        leftScope.collect(left);
+        // 바깥 식이 서브쿼리 안의 같은 이름 별칭에 가려지면 상관 조건의 뜻이 바뀐다
+        if (!Collections.disjoint(leftScope.used, scope.declared)) {
+            return null;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Predicate correlation = ExpressionUtils.eq((Expression) projection, (Expression) left);
+        var correlated = metadata.clone();
+        correlated.setValidate(false);
+        correlated.setProjection(Expressions.ONE);
+        correlated.addWhere(correlation);
+        return ExpressionUtils.predicate(Ops.EXISTS, new SubQueryExpressionImpl<>(Integer.class, correlated));
+    }
+
+    private static boolean isCorrelated(QueryMetadata metadata) {
+        var scope = new Scope();
+        scope.collect(metadata);
+        return !scope.declared.containsAll(scope.used);
+    }
+
+    /**
+     * HQL 숫자 리터럴. 결과 타입이 그대로 유지되는 타입만 다룬다
+     */
+    private static String literal(Object value) {
+        if (value instanceof Integer) {
+            return value.toString();
+        }
+        if (value instanceof Long) {
+            return value + "L";
+        }
+        if (value instanceof Double && Double.isFinite((Double) value)) {
+            return value + "D";
+        }
+        if (value instanceof Float && Float.isFinite((Float) value)) {
+            return value + "F";
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString() + "BD";
+        }
+        return null;
+    }
+
+    /**
+     * 식 안에서 쓰인 경로의 루트와 from/join 으로 선언된 루트. 중첩 서브쿼리까지 모은다
+     */
+    private static class Scope {
+
+        private final Set<Path<?>> used = new HashSet<>();
+        private final Set<Path<?>> declared = new HashSet<>();
+
+        void collect(QueryMetadata metadata) {
+            for (JoinExpression join : metadata.getJoins()) {
+                var target = join.getTarget();
+                if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+                    var alias = (Operation<?>) target;
+                    collect(alias.getArg(0));
+                    declared.add(((Path<?>) alias.getArg(1)).getRoot());
+                } else if (target instanceof Path) {
+                    declared.add(((Path<?>) target).getRoot());
+                } else {
+                    collect(target);
+                }
+                collect(join.getCondition());
+            }
+            collect(metadata.getProjection());
+            collect(metadata.getWhere());
+            metadata.getGroupBy().forEach(this::collect);
+            collect(metadata.getHaving());
+            for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+                collect(order.getTarget());
+            }
+        }
+
+        void collect(Expression<?> expr) {
+            if (expr == null) {
+                return;
+            }
+            if (expr instanceof Path) {
+                used.add(((Path<?>) expr).getRoot());
+            } else if (expr instanceof Operation) {
+                ((Operation<?>) expr).getArgs().forEach(this::collect);
+            } else if (expr instanceof FactoryExpression) {
+                ((FactoryExpression<?>) expr).getArgs().forEach(this::collect);
+            } else if (expr instanceof TemplateExpression) {
+                for (Object arg : ((TemplateExpression<?>) expr).getArgs()) {
+                    if (arg instanceof Expression) {
+                        collect((Expression<?>) arg);
+                    }
+                }
+            } else if (expr instanceof SubQueryExpression) {
+                collect(((SubQueryExpression<?>) expr).getMetadata());
+            }
+        }
+    }
+}
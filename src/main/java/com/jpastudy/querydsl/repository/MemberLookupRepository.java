@@ -0,0 +1,39 @@
+package com.jpastudy.querydsl.repository;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * 자주 쓰는 단건 조회. 결과는 쿼리 캐시에 남는다
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberLookupRepository {
+
+    public static final String QUERY_REGION = "lookup-query";
+
+    private final JPAQueryFactory queryFactory;
+
+    public Member findByUsername(String username) {
+        return queryFactory.selectFrom(member)
+                           .where(member.username.eq(username))
+                           .setHint(QueryHints.CACHEABLE, true)
+                           .setHint(QueryHints.CACHE_REGION, QUERY_REGION)
+                           .fetchFirst();
+    }
+
+    public Team findTeamByName(String name) {
+        return queryFactory.selectFrom(team)
+                           .where(team.name.eq(name))
+                           .setHint(QueryHints.CACHEABLE, true)
+                           .setHint(QueryHints.CACHE_REGION, QUERY_REGION)
+                           .fetchFirst();
+    }
+}
@@ -0,0 +1,215 @@
+package com.jpastudy.querydsl.repository;
+
+import com.jpastudy.querydsl.dto.MemberSearchCondition;
+import com.jpastudy.querydsl.dto.MemberTeamDto;
+import com.jpastudy.querydsl.dto.QMemberTeamDto;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 + 팀 페이징 검색
+ * <p>
+ * 전체 건수는 컨텐츠 크기로 알 수 있으면 count 쿼리를 생략하고,
+ * 필요하면 별도 커넥션에서 컨텐츠 조회와 동시에 실행하며, 같은 조건의 결과는 TTL 동안 캐시한다.
+ */
+@Repository
+public class MemberSearchRepository {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManagerFactory emf;
+    private final TotalCountCache countCache;
+    private final ExecutorService countExecutor;
+    private final Duration asyncCountTimeout;
+
+    public MemberSearchRepository(JPAQueryFactory queryFactory,
+                                  EntityManagerFactory emf,
+                                  @Value("${member.search.count-cache-ttl:0s}") Duration countCacheTtl,
+                                  @Value("${member.search.count-cache-size:10000}") long countCacheSize,
+                                  @Value("${member.search.count-threads:2}") int countThreads,
+                                  @Value("${member.search.async-count-timeout:30s}") Duration asyncCountTimeout) {
+        this.queryFactory = queryFactory;
+        this.emf = emf;
+        this.asyncCountTimeout = asyncCountTimeout;
+        this.countCache = new TotalCountCache(countCacheTtl, countCacheSize);
+        this.countExecutor = Executors.newFixedThreadPool(countThreads);
+    }
+
+    public Page<MemberTeamDto> search(MemberSearchCondition condition, Pageable pageable) {
+        var where = where(condition);
+        var content = content(where, pageable);
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                                              () -> countCache.get(where, () -> count(queryFactory, where)));
+    }
+
+    /**
+     * count 쿼리를 별도 EntityManager(커넥션)에서 컨텐츠 조회와 동시에 실행한다.
+     * <p>
+     * 컨텐츠로 건수를 알 수 있으면 (짧은 첫 페이지, 마지막 페이지) count 는 필요 없다.
+     * 아직 시작 전이면 실행하지 않고, 실행 중이면 JDBC 문장을 취소해 커넥션을 바로 돌려받는다.
+     * 별도 커넥션이므로 현재 트랜잭션에서 아직 커밋하지 않은 변경은 건수에 반영되지 않는다.
+     */
+    public Page<MemberTeamDto> searchWithAsyncCount(MemberSearchCondition condition, Pageable pageable) {
+        var where = where(condition);
+
+        var cached = countCache.getIfPresent(where);
+        if (cached != null) {
+            return new PageImpl<>(content(where, pageable), pageable, cached);
+        }
+
+        var count = new AsyncCount(where);
+        var total = CompletableFuture.supplyAsync(count::run, countExecutor);
+        List<MemberTeamDto> content;
+        try {
+            content = content(where, pageable);
+        } catch (RuntimeException e) {
+            count.cancel();
+            throw e;
+        }
+
+        var page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            long value = total.join();
+            countCache.put(where, value);
+            return value;
+        });
+        // 건수를 추론할 수 있었다면 아직 끝나지 않은 count 를 멈춘다. 이미 끝났으면 아무 일도 없다
+        count.cancel();
+        return page;
+    }
+
+    public void invalidateCountCache() {
+        countCache.invalidateAll();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        countExecutor.shutdownNow();
+    }
+
+    private List<MemberTeamDto> content(Predicate where, Pageable pageable) {
+        return queryFactory.select(new QMemberTeamDto(member.id,
+                                                      member.username,
+                                                      member.age,
+                                                      team.id,
+                                                      team.name))
+                           .from(member)
+                           .leftJoin(member.team, team)
+                           .where(where)
+                           .orderBy(member.id.asc())
+                           .offset(pageable.getOffset())
+                           .limit(pageable.getPageSize())
+                           .fetch();
+    }
+
+    /**
+     * 다른 스레드에서 취소할 수 있는 count. Hibernate Session 에서 다른 스레드가 불러도 되는 것은 cancelQuery 뿐이다
+     * <p>
+     * cancelQuery 는 이미 만들어진 JDBC 문장만 취소하므로, 세션을 연 뒤 문장을 만들기 전에 온 취소는
+     * StatementInspector 에서 한 번 더 확인해 실행하지 않는다. 문장을 만든 직후와 실행 사이에 온 취소는
+     * 놓칠 수 있으므로 JDBC query timeout 으로 count 가 커넥션을 잡는 시간에 상한을 둔다.
+     */
+    private final class AsyncCount {
+
+        private final Predicate where;
+        private Session session;
+        private boolean cancelled;
+
+        private AsyncCount(Predicate where) {
+            this.where = where;
+        }
+
+        long run() {
+            var em = emf.unwrap(SessionFactory.class)
+                        .withOptions()
+                        .statementInspector(this::checkCancelled)
+                        .openSession();
+            try {
+                synchronized (this) {
+                    checkCancelled(null);
+                    session = em;
+                }
+                Long total = countQuery(new JPAQueryFactory(em), where)
+                        .setHint("javax.persistence.query.timeout", asyncCountTimeout.toMillis())
+                        .fetchOne();
+                return total == null ? 0L : total;
+            } finally {
+                synchronized (this) {
+                    session = null;
+                }
+                em.close();
+            }
+        }
+
+        private synchronized String checkCancelled(String sql) {
+            if (cancelled) {
+                throw new CancellationException("count not needed");
+            }
+            return sql;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (session != null) {
+                session.cancelQuery();
+            }
+        }
+    }
+
+    private static long count(JPAQueryFactory queryFactory, Predicate where) {
+        Long total = countQuery(queryFactory, where).fetchOne();
+        return total == null ? 0L : total;
+    }
+
+    private static JPAQuery<Long> countQuery(JPAQueryFactory queryFactory, Predicate where) {
+        return queryFactory.select(member.count())
+                           .from(member)
+                           .leftJoin(member.team, team)
+                           .where(where);
+    }
+
+    public static Predicate where(MemberSearchCondition condition) {
+        return ExpressionUtils.allOf(usernameEq(condition.getUsername()),
+                                     teamNameEq(condition.getTeamName()),
+                                     ageGoe(condition.getAgeGoe()),
+                                     ageLoe(condition.getAgeLoe()));
+    }
+
+    private static Predicate usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private static Predicate teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private static Predicate ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private static Predicate ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
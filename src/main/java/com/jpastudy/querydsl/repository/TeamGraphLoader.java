@@ -0,0 +1,160 @@
+package com.jpastudy.querydsl.repository;
+
+import com.jpastudy.querydsl.dto.MemberDto;
+import com.jpastudy.querydsl.dto.QMemberDto;
+import com.jpastudy.querydsl.dto.TeamMembersDto;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * Team 과 members 컬렉션을 두 단계로 읽는다
+ * <p>
+ * 컬렉션 fetch join 은 팀 행을 회원 수만큼 늘려 offset/limit 을 메모리에서 적용하게 만든다.
+ * 여기서는 팀만 먼저 페이징하고, 그 팀 id 들의 회원을 {@code member.team.id in (...)} 한 번으로 읽어 메모리에서 묶는다.
+ * id 가 batchSize 보다 많으면 in 절을 batchSize 개씩 나눈다. 팀은 id 순이다.
+ */
+@Repository
+public class TeamGraphLoader {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final int batchSize;
+
+    public TeamGraphLoader(JPAQueryFactory queryFactory,
+                           EntityManager em,
+                           @Value("${jpastudy.graph.batch-size:500}") int batchSize) {
+        this.queryFactory = queryFactory;
+        this.em = em;
+        this.batchSize = batchSize;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Team> findTeamsWithMembers(Predicate condition, long offset, int limit) {
+        return findTeamsWithMembers(condition, offset, limit, batchSize);
+    }
+
+    /**
+     * members 가 채워진 Team. 추가 조회 없이 members 를 읽을 수 있고, 트랜잭션이 끝난 뒤에도 읽을 수 있다
+     */
+    @Transactional(readOnly = true)
+    public List<Team> findTeamsWithMembers(Predicate condition, long offset, int limit, int batchSize) {
+        checkBatchSize(batchSize);
+        var ids = queryFactory.select(team.id)
+                              .from(team)
+                              .where(condition)
+                              .orderBy(team.id.asc())
+                              .offset(offset)
+                              .limit(limit)
+                              .fetch();
+
+        var teams = new ArrayList<Team>(ids.size());
+        var membersByTeam = new HashMap<Long, List<Member>>();
+        for (var chunk : chunks(ids, batchSize)) {
+            teams.addAll(queryFactory.selectFrom(team).where(team.id.in(chunk)).fetch());
+            var rows = queryFactory.select(member, member.team.id)
+                                   .from(member)
+                                   .where(member.team.id.in(chunk))
+                                   .orderBy(member.id.asc())
+                                   .fetch();
+            for (var row : rows) {
+                membersByTeam.computeIfAbsent(row.get(member.team.id), key -> new ArrayList<>()).add(row.get(member));
+            }
+        }
+        teams.sort(Comparator.comparing(Team::getId));
+
+        var session = em.unwrap(SessionImplementor.class);
+        for (var t : teams) {
+            assemble(session, t, membersByTeam.getOrDefault(t.getId(), List.of()));
+        }
+        return teams;
+    }
+
+    public List<TeamMembersDto> findTeamDtos(Predicate condition, long offset, int limit) {
+        return findTeamDtos(condition, offset, limit, batchSize);
+    }
+
+    /**
+     * 엔티티를 만들지 않아 영속성 컨텍스트가 커지지 않는다. 회원은 id 순이다
+     */
+    public List<TeamMembersDto> findTeamDtos(Predicate condition, long offset, int limit, int batchSize) {
+        checkBatchSize(batchSize);
+        var teams = new LinkedHashMap<Long, TeamMembersDto>();
+        var page = queryFactory.select(team.id, team.name)
+                               .from(team)
+                               .where(condition)
+                               .orderBy(team.id.asc())
+                               .offset(offset)
+                               .limit(limit)
+                               .fetch();
+        for (var row : page) {
+            teams.put(row.get(team.id), new TeamMembersDto(row.get(team.id), row.get(team.name)));
+        }
+
+        for (var chunk : chunks(new ArrayList<>(teams.keySet()), batchSize)) {
+            var rows = queryFactory.select(member.team.id, new QMemberDto(member.username, member.age))
+                                   .from(member)
+                                   .where(member.team.id.in(chunk))
+                                   .orderBy(member.id.asc())
+                                   .fetch();
+            for (var row : rows) {
+                teams.get(row.get(member.team.id)).getMembers().add(row.get(1, MemberDto.class));
+            }
+        }
+        return new ArrayList<>(teams.values());
+    }
+
+    /**
+     * 아직 읽지 않은 members 컬렉션을 읽은 회원으로 초기화한다.
+     * 스냅샷도 같은 내용으로 잡아 flush 때 변경된 컬렉션으로 보지 않는다.
+     * 초기화 전에 쌓인 add 가 있으면 (changeTeam) 중복될 수 있어 Hibernate 가 직접 읽게 둔다.
+     * Hibernate 가 컬렉션을 읽을 때처럼 batch fetch 대기열에서도 빼서 다른 컬렉션의 batch 조회에 다시 끼지 않게 한다
+     */
+    private static void assemble(SessionImplementor session, Team team, List<Member> members) {
+        if (!(team.getMembers() instanceof PersistentCollection)) {
+            return;
+        }
+        var collection = (PersistentCollection) team.getMembers();
+        var entry = session.getPersistenceContextInternal().getCollectionEntry(collection);
+        if (collection.wasInitialized() || collection.hasQueuedOperations() || entry == null) {
+            return;
+        }
+        collection.beforeInitialize(entry.getLoadedPersister(), members.size());
+        collection.beginRead();
+        collection.endRead();
+        team.getMembers().addAll(members);
+        entry.postInitialize(collection);
+        collection.clearDirty();
+        session.getPersistenceContextInternal().getBatchFetchQueue().removeBatchLoadableCollection(entry);
+    }
+
+    private static void checkBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids, int size) {
+        var chunks = new ArrayList<List<Long>>();
+        for (int from = 0; from < ids.size(); from += size) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + size)));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,43 @@
+package com.jpastudy.querydsl.repository;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Repository;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+
+/**
+ * Team.members 를 초기화하지 않고 회원 수와 포함 여부를 count / exists 로 확인한다
+ * <p>
+ * 이미 읽은 컬렉션이면 메모리에서 답한다. 쿼리 전에 쌓인 회원 변경은 auto flush 로 먼저 반영된다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TeamMemberRepository {
+
+    private final JPAQueryFactory queryFactory;
+
+    public long countMembers(Team team) {
+        if (Hibernate.isInitialized(team.getMembers())) {
+            return team.getMembers().size();
+        }
+        Long count = queryFactory.select(member.count())
+                                 .from(member)
+                                 .where(member.team.eq(team))
+                                 .fetchOne();
+        return count == null ? 0 : count;
+    }
+
+    public boolean containsMember(Team team, Member target) {
+        if (Hibernate.isInitialized(team.getMembers())) {
+            return team.getMembers().contains(target);
+        }
+        return queryFactory.selectOne()
+                           .from(member)
+                           .where(member.eq(target), member.team.eq(team))
+                           .fetchFirst() != null;
+    }
+}
@@ -0,0 +1,77 @@
+package com.jpastudy.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.types.Predicate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 동일한 조건의 전체 건수를 TTL 동안 재사용한다
+ * <p>
+ * Querydsl 표현식은 상수값까지 포함해 구조적으로 equals/hashCode 가 구현되어 있으므로 조건 자체를 키로 쓴다.
+ * 검색어마다 키가 생기므로 최대 개수를 넘으면 오래 안 쓴 조건부터 버린다.
+ */
+public class TotalCountCache {
+
+    private static final Object NO_CONDITION = new Object();
+
+    private final Cache<Object, Long> entries;
+    private final Duration ttl;
+
+    public TotalCountCache(Duration ttl, long maximumSize) {
+        this(ttl, maximumSize, Clock.systemUTC());
+    }
+
+    TotalCountCache(Duration ttl, long maximumSize, Clock clock) {
+        this.ttl = ttl;
+        this.entries = Caffeine.newBuilder()
+                               .maximumSize(maximumSize)
+                               .expireAfterWrite(isEnabled() ? ttl : Duration.ZERO)
+                               .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                               .build();
+    }
+
+    public boolean isEnabled() {
+        return !ttl.isZero() && !ttl.isNegative();
+    }
+
+    public Long getIfPresent(Predicate condition) {
+        if (!isEnabled()) {
+            return null;
+        }
+        return entries.getIfPresent(keyOf(condition));
+    }
+
+    public void put(Predicate condition, long total) {
+        if (isEnabled()) {
+            entries.put(keyOf(condition), total);
+        }
+    }
+
+    public long get(Predicate condition, LongSupplier counter) {
+        var cached = getIfPresent(condition);
+        if (cached != null) {
+            return cached;
+        }
+        var total = counter.getAsLong();
+        put(condition, total);
+        return total;
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    private static Object keyOf(Predicate condition) {
+        return condition == null ? NO_CONDITION : condition;
+    }
+}
@@ -0,0 +1,128 @@
+package com.jpastudy.querydsl.search;
+
+import com.jpastudy.querydsl.dto.MemberSearchCondition;
+import com.jpastudy.querydsl.dto.MemberTeamDto;
+import com.jpastudy.querydsl.dto.QMemberTeamDto;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * 조건 조합을 정해진 몇 가지 모양으로 정규화하는 회원 검색
+ * <p>
+ * 조건마다 있고 없음에 따라 where 절을 만들면 조합 수만큼 SQL 문자열이 생겨 문장 캐시가 흩어진다.
+ * 여기서는 인덱스를 타야 하는 username 만 있을 때와 없을 때로 나누고, 팀 이름과 나이 범위는 항상 같은 식에
+ * 값만 바꿔 넣는다 (팀 이름이 없으면 '', 나이 범위가 없으면 int 최소/최대).
+ * Querydsl 은 null 파라미터를 바인딩하지 않으므로 {@code (:p is null or ...)} 대신 빈 문자열과 경계값을 쓴다.
+ * <p>
+ * 모양이 고정되면 JPQL 직렬화(JpqlShapeCache), Hibernate query plan, H2 세션의 컴파일된 문장(QUERY_CACHE_SIZE)이
+ * 모두 재사용된다. 쓰인 모양 수는 member.search.shapes 게이지로, 모양별 실행 수는 member.search.queries 로 남긴다.
+ */
+@Repository
+public class MemberSearchEngine {
+
+    /**
+     * username 유무 × 정렬 × 첫 페이지 여부 + count 2 개. Hibernate 는 첫 페이지에 offset 을 붙이지 않는다
+     */
+    public static final int MAX_SHAPES = 2 * (MemberSearchSort.values().length * 2 + 1);
+
+    private final JPAQueryFactory queryFactory;
+    private final MeterRegistry registry;
+    private final Map<String, LongAdder> shapes = new ConcurrentHashMap<>();
+
+    public MemberSearchEngine(JPAQueryFactory queryFactory, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.queryFactory = queryFactory;
+        this.registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("member.search.shapes", shapes, Map::size)
+                 .description("distinct SQL shapes executed by member search")
+                 .register(registry);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> search(MemberSearchCondition condition, MemberSearchSort sort, Pageable pageable) {
+        int ageGoe = condition.getAgeGoe() == null ? Integer.MIN_VALUE : condition.getAgeGoe();
+        int ageLoe = condition.getAgeLoe() == null ? Integer.MAX_VALUE : condition.getAgeLoe();
+        if (ageGoe > ageLoe) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        var username = normalize(condition.getUsername());
+        var where = where(username, normalize(condition.getTeamName()), ageGoe, ageLoe);
+
+        var content = queryFactory.select(new QMemberTeamDto(member.id,
+                                                             member.username,
+                                                             member.age,
+                                                             team.id,
+                                                             team.name))
+                                  .from(member)
+                                  .leftJoin(member.team, team)
+                                  .where(where)
+                                  .orderBy(sort.orders())
+                                  .offset(pageable.getOffset())
+                                  .limit(pageable.getPageSize())
+                                  .fetch();
+        record(shape(username != null, sort.name(), pageable.getOffset() == 0));
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            record(shape(username != null, "count", true));
+            Long total = queryFactory.select(member.count())
+                                     .from(member)
+                                     .leftJoin(member.team, team)
+                                     .where(where)
+                                     .fetchOne();
+            return total == null ? 0L : total;
+        });
+    }
+
+    /**
+     * 지금까지 실행한 모양별 쿼리 수
+     */
+    public Map<String, Long> getShapes() {
+        var result = new TreeMap<String, Long>();
+        shapes.forEach((shape, count) -> result.put(shape, count.sum()));
+        return result;
+    }
+
+    static Predicate where(String username, String teamName, int ageGoe, int ageLoe) {
+        return ExpressionUtils.allOf(username == null ? null : member.username.eq(username),
+                                     Expressions.booleanTemplate("({0} = '' or {1} = {0})",
+                                                                 teamName == null ? "" : teamName, team.name),
+                                     member.age.between(ageGoe, ageLoe));
+    }
+
+    private static String normalize(String value) {
+        return StringUtils.hasText(value) ? value.trim() : null;
+    }
+
+    private static String shape(boolean username, String query, boolean firstPage) {
+        return (username ? "username" : "any") + ":" + query + (firstPage ? "" : ":offset");
+    }
+
+    private void record(String shape) {
+        shapes.computeIfAbsent(shape, key -> new LongAdder()).increment();
+        if (registry != null) {
+            registry.counter("member.search.queries", "shape", shape).increment();
+        }
+    }
+}
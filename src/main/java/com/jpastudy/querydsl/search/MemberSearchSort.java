@@ -0,0 +1,30 @@
+package com.jpastudy.querydsl.search;
+
+import com.querydsl.core.types.OrderSpecifier;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색에서 허용하는 정렬. 정렬도 SQL 모양을 늘리므로 임의의 Sort 는 받지 않는다
+ * <p>
+ * 페이지가 겹치지 않도록 마지막에 id 로 순서를 고정한다.
+ */
+public enum MemberSearchSort {
+
+    ID(member.id.asc()),
+    USERNAME(member.username.asc(), member.id.asc()),
+    AGE_ASC(member.age.asc(), member.id.asc()),
+    AGE_DESC(member.age.desc(), member.id.asc()),
+    TEAM_NAME(team.name.asc().nullsLast(), member.id.asc());
+
+    private final OrderSpecifier<?>[] orders;
+
+    MemberSearchSort(OrderSpecifier<?>... orders) {
+        this.orders = orders;
+    }
+
+    public OrderSpecifier<?>[] orders() {
+        return orders.clone();
+    }
+}
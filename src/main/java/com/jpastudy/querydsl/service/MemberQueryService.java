@@ -0,0 +1,23 @@
+package com.jpastudy.querydsl.service;
+
+import com.jpastudy.querydsl.dto.MemberSearchCondition;
+import com.jpastudy.querydsl.dto.MemberTeamDto;
+import com.jpastudy.querydsl.paging.KeysetPage;
+import com.jpastudy.querydsl.paging.KeysetSort;
+import com.jpastudy.querydsl.paging.MemberKeysetPager;
+import com.jpastudy.querydsl.repository.MemberSearchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberQueryService {
+
+    private final MemberKeysetPager memberKeysetPager;
+
+    public KeysetPage<MemberTeamDto> search(MemberSearchCondition condition, String cursor, int size, KeysetSort sort) {
+        return memberKeysetPager.fetchTeamPage(MemberSearchRepository.where(condition), cursor, size, sort);
+    }
+}
@@ -0,0 +1,74 @@
+package com.jpastudy.querydsl.service;
+
+import com.jpastudy.querydsl.jdbc.NPlusOneDetector;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 조회 작업 전용 스레드 풀
+ * <p>
+ * 스레드 수를 커넥션 풀 크기에 맞추고 대기열을 제한해서, 느린 쿼리가 몰려도 Tomcat 요청 스레드나
+ * 커넥션 풀을 고갈시키지 않고 초과 요청은 바로 거절한다.
+ */
+@Slf4j
+@Component
+public class QueryExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final NPlusOneDetector detector;
+
+    public QueryExecutor(NPlusOneDetector detector,
+                         @Value("${jpastudy.query-executor.threads:${spring.datasource.hikari.maximum-pool-size:10}}") int threads,
+                         @Value("${jpastudy.query-executor.queue-capacity:100}") int queueCapacity) {
+        this.detector = detector;
+        var sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads,
+                                               0L, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(queueCapacity),
+                                               runnable -> {
+                                                   var thread = new Thread(runnable, "query-" + sequence.incrementAndGet());
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                               },
+                                               new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 대기열이 가득 차면 {@link QueryRejectedException} 을 바로 던진다
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (var scope = detector.open(Thread.currentThread().getName())) {
+                    return query.get();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            log.debug("query rejected, active={}, queued={}", executor.getActiveCount(), executor.getQueue().size());
+            throw new QueryRejectedException();
+        }
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
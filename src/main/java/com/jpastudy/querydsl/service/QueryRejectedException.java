@@ -0,0 +1,4 @@
+package com.jpastudy.querydsl.service;
+
+public class QueryRejectedException extends RuntimeException {
+}
@@ -0,0 +1,87 @@
+package com.jpastudy.querydsl.shard;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.BeanPath;
+import org.hibernate.Hibernate;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * 쿼리의 order by 를 결과 행에 대한 Comparator 로 옮긴다
+ * <p>
+ * 정렬 대상이 select 한 식 자체이거나, Tuple 의 원소이거나, select 한 엔티티의 스칼라 프로퍼티일 때만 된다.
+ * 파티션 트랜잭션이 끝난 뒤 준영속 엔티티에서 읽으므로 연관(member.team.name)이나 아직 읽지 않은 lazy 프로퍼티로는
+ * 정렬할 수 없다. 그런 정렬은 값을 Tuple 로 같이 select 하거나 Comparator 를 넘긴다.
+ * null 은 H2 기본값처럼 가장 작은 값으로 본다 (asc 면 앞, desc 면 뒤).
+ */
+final class OrderComparators {
+
+    private OrderComparators() {
+    }
+
+    static Comparator<Object> of(QueryMetadata metadata) {
+        Comparator<Object> comparator = null;
+        for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+            var key = key(metadata.getProjection(), order.getTarget());
+            Comparator<Object> next = (left, right) -> compare(key.apply(left), key.apply(right), order);
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private static Function<Object, Object> key(Expression<?> projection, Expression<?> target) {
+        if (target.equals(projection)) {
+            return Function.identity();
+        }
+        if (projection instanceof FactoryExpression && Tuple.class.isAssignableFrom(projection.getType())) {
+            var index = ((FactoryExpression<?>) projection).getArgs().indexOf(target);
+            if (index >= 0) {
+                return row -> ((Tuple) row).get(index, Object.class);
+            }
+        }
+        if (target instanceof Path && isScalarProperty((Path<?>) target, projection)) {
+            var property = ((Path<?>) target).getMetadata().getName();
+            return row -> {
+                if (!Hibernate.isPropertyInitialized(row, property)) {
+                    throw new IllegalArgumentException("cannot merge partitions ordered by unloaded " + target
+                                                               + ", select it or pass a comparator");
+                }
+                return PropertyAccessorFactory.forBeanPropertyAccess(row).getPropertyValue(property);
+            };
+        }
+        throw new IllegalArgumentException("cannot merge partitions ordered by " + target + ", pass a comparator");
+    }
+
+    /**
+     * select 한 엔티티 바로 아래의 값 프로퍼티. 연관 엔티티, 임베디드, 컬렉션은 아니다
+     */
+    private static boolean isScalarProperty(Path<?> target, Expression<?> projection) {
+        return projection instanceof EntityPath
+                && projection.equals(target.getMetadata().getParent())
+                && !(target instanceof BeanPath)
+                && !(target instanceof CollectionExpression);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right, OrderSpecifier<?> order) {
+        if (left == null || right == null) {
+            if (left == right) {
+                return 0;
+            }
+            boolean nullsFirst = order.getNullHandling() == OrderSpecifier.NullHandling.NullsFirst
+                    || (order.getNullHandling() == OrderSpecifier.NullHandling.Default && order.isAscending());
+            return (left == null) == nullsFirst ? -1 : 1;
+        }
+        int compared = ((Comparable) left).compareTo(right);
+        return order.isAscending() ? compared : -compared;
+    }
+}
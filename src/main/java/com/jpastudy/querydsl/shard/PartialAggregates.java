@@ -0,0 +1,157 @@
+package com.jpastudy.querydsl.shard;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QTuple;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * count/sum/min/max/avg 를 파티션마다 부분 집계하고 합친다. avg 는 sum 과 count 로 나눠 구한다
+ */
+final class PartialAggregates {
+
+    private final List<Expression<?>> groupBy;
+    private final List<Expression<?>> aggregates;
+    private final List<Expression<?>> partials = new ArrayList<>();
+    private final List<Operator> partialOperators = new ArrayList<>();
+    /**
+     * 집계마다 partials 에서 시작하는 위치
+     */
+    private final int[] columns;
+    private final QTuple result;
+
+    PartialAggregates(List<? extends Expression<?>> groupBy, List<? extends Expression<?>> aggregates) {
+        this.groupBy = List.copyOf(groupBy);
+        this.aggregates = List.copyOf(aggregates);
+        this.columns = new int[aggregates.size()];
+
+        for (int i = 0; i < aggregates.size(); i++) {
+            var aggregate = aggregates.get(i);
+            var operator = aggregate instanceof Operation ? ((Operation<?>) aggregate).getOperator() : null;
+            columns[i] = partials.size();
+            if (operator == Ops.AggOps.COUNT_AGG || operator == Ops.AggOps.SUM_AGG
+                    || operator == Ops.AggOps.MIN_AGG || operator == Ops.AggOps.MAX_AGG) {
+                add(aggregate, operator);
+            } else if (operator == Ops.AggOps.AVG_AGG) {
+                var argument = ((Operation<?>) aggregate).getArg(0);
+                add(ExpressionUtils.operation(Number.class, Ops.AggOps.SUM_AGG, argument), Ops.AggOps.SUM_AGG);
+                add(ExpressionUtils.operation(Long.class, Ops.AggOps.COUNT_AGG, argument), Ops.AggOps.COUNT_AGG);
+            } else {
+                throw new IllegalArgumentException("cannot merge " + aggregate + " across partitions");
+            }
+        }
+
+        var all = new ArrayList<Expression<?>>(this.groupBy);
+        all.addAll(this.aggregates);
+        this.result = Projections.tuple(all.toArray(Expression<?>[]::new));
+    }
+
+    private void add(Expression<?> partial, Operator operator) {
+        partials.add(partial);
+        partialOperators.add(operator);
+    }
+
+    /**
+     * 파티션 쿼리의 select 절: group by 식 + 부분 집계
+     */
+    Expression<?>[] projection() {
+        var projection = new ArrayList<Expression<?>>(groupBy);
+        projection.addAll(partials);
+        return projection.toArray(Expression<?>[]::new);
+    }
+
+    /**
+     * 그룹은 처음 나온 순서대로 돌려준다. group by 가 없으면 행이 없어도 한 행(count 0)을 돌려준다
+     */
+    List<Tuple> merge(List<List<Tuple>> partitions) {
+        var groups = new LinkedHashMap<List<Object>, Object[]>();
+        if (groupBy.isEmpty()) {
+            groups.put(List.of(), new Object[partials.size()]);
+        }
+        for (List<Tuple> rows : partitions) {
+            for (Tuple row : rows) {
+                var key = new Object[groupBy.size()];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = row.get(i, Object.class);
+                }
+                var merged = groups.computeIfAbsent(Arrays.asList(key), k -> new Object[partials.size()]);
+                for (int i = 0; i < merged.length; i++) {
+                    merged[i] = merge(partialOperators.get(i), merged[i], row.get(key.length + i, Object.class));
+                }
+            }
+        }
+
+        var tuples = new ArrayList<Tuple>(groups.size());
+        groups.forEach((key, merged) -> {
+            var values = new ArrayList<Object>(key);
+            for (int i = 0; i < aggregates.size(); i++) {
+                values.add(finish(i, merged));
+            }
+            tuples.add(result.newInstance(values.toArray()));
+        });
+        return tuples;
+    }
+
+    private Object finish(int aggregate, Object[] merged) {
+        var column = columns[aggregate];
+        var operator = partialOperators.get(column);
+        if (((Operation<?>) aggregates.get(aggregate)).getOperator() == Ops.AggOps.AVG_AGG) {
+            var sum = (Number) merged[column];
+            var count = (Number) merged[column + 1];
+            return count == null || count.longValue() == 0 ? null : sum.doubleValue() / count.longValue();
+        }
+        if (operator == Ops.AggOps.COUNT_AGG && merged[column] == null) {
+            return 0L;
+        }
+        return merged[column];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object merge(Operator operator, Object merged, Object value) {
+        if (value == null) {
+            return merged;
+        }
+        if (merged == null) {
+            return value;
+        }
+        if (operator == Ops.AggOps.COUNT_AGG) {
+            return ((Number) merged).longValue() + ((Number) value).longValue();
+        }
+        if (operator == Ops.AggOps.SUM_AGG) {
+            return add((Number) merged, (Number) value);
+        }
+        int compared = ((Comparable) merged).compareTo(value);
+        if (operator == Ops.AggOps.MIN_AGG) {
+            return compared <= 0 ? merged : value;
+        }
+        return compared >= 0 ? merged : value;
+    }
+
+    private static Number add(Number left, Number right) {
+        if (left instanceof BigDecimal || right instanceof BigDecimal) {
+            return decimal(left).add(decimal(right));
+        }
+        if (left instanceof BigInteger || right instanceof BigInteger) {
+            return new BigInteger(left.toString()).add(new BigInteger(right.toString()));
+        }
+        if (left instanceof Double || left instanceof Float || right instanceof Double || right instanceof Float) {
+            return left.doubleValue() + right.doubleValue();
+        }
+        return left.longValue() + right.longValue();
+    }
+
+    private static BigDecimal decimal(Number number) {
+        return number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal(number.toString());
+    }
+}
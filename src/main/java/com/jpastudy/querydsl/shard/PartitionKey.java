@@ -0,0 +1,106 @@
+package com.jpastudy.querydsl.shard;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static com.jpastudy.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * Member 를 나누는 기준. 조건은 기본 별칭 {@code member} 에 걸리므로 쿼리도 QMember.member 를 써야 한다
+ * <p>
+ * 첫 파티션과 마지막 파티션은 열린 범위라서 나눈 뒤에 추가된 행도 빠지지 않는다.
+ */
+public enum PartitionKey {
+
+    /**
+     * member_id 의 최소~최대를 같은 폭으로 나눈다 (PK 범위 조회)
+     */
+    MEMBER_ID {
+        @Override
+        List<Predicate> partitions(JPAQueryFactory queryFactory, int count) {
+            var bounds = queryFactory.select(member.id.min(), member.id.max())
+                                     .from(member)
+                                     .fetchOne();
+            var min = bounds == null ? null : bounds.get(member.id.min());
+            var max = bounds == null ? null : bounds.get(member.id.max());
+            if (min == null || max == null || count <= 1) {
+                return List.of(member.id.isNotNull());
+            }
+
+            long span = max - min + 1;
+            int n = (int) Math.min(count, span);
+            var partitions = new ArrayList<Predicate>(n);
+            for (int i = 0; i < n; i++) {
+                partitions.add(range(member.id, min + span * i / n, min + span * (i + 1) / n - 1, i, n));
+            }
+            return partitions;
+        }
+    },
+
+    /**
+     * 팀 id 순으로 이어지는 팀 묶음으로 나눈다. team_stats 의 회원 수로 묶음 크기를 맞추고 팀 없는 회원은 첫 파티션에 넣는다
+     */
+    TEAM_ID {
+        @Override
+        List<Predicate> partitions(JPAQueryFactory queryFactory, int count) {
+            var rows = queryFactory.select(team.id, teamStats.memberCount)
+                                   .from(team)
+                                   .leftJoin(teamStats).on(teamStats.teamId.eq(team.id))
+                                   .orderBy(team.id.asc())
+                                   .fetch();
+            if (rows.isEmpty() || count <= 1) {
+                return List.of(member.id.isNotNull());
+            }
+
+            long total = 0;
+            var weights = new long[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                var memberCount = rows.get(i).get(teamStats.memberCount);
+                weights[i] = Math.max(1, memberCount == null ? 0 : memberCount);
+                total += weights[i];
+            }
+
+            var bounds = new ArrayList<long[]>();
+            long accumulated = 0;
+            int first = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                accumulated += weights[i];
+                boolean last = i == rows.size() - 1;
+                // 남은 팀이 만들어야 할 파티션 수보다 적으면 여기서 끊는다
+                boolean forced = rows.size() - 1 - i < count - bounds.size();
+                if (last || forced || (bounds.size() < count - 1 && accumulated * count >= total * (bounds.size() + 1))) {
+                    bounds.add(new long[]{rows.get(first).get(team.id), rows.get(i).get(team.id)});
+                    first = i + 1;
+                }
+            }
+
+            var partitions = new ArrayList<Predicate>(bounds.size());
+            for (int i = 0; i < bounds.size(); i++) {
+                var predicate = range(member.team.id, bounds.get(i)[0], bounds.get(i)[1], i, bounds.size());
+                partitions.add(i == 0 ? member.team.isNull().or(predicate) : predicate);
+            }
+            return partitions;
+        }
+    };
+
+    abstract List<Predicate> partitions(JPAQueryFactory queryFactory, int count);
+
+    private static Predicate range(NumberPath<Long> path, long from, long to, int index, int count) {
+        if (count == 1) {
+            return path.isNotNull();
+        }
+        if (index == 0) {
+            return path.loe(to);
+        }
+        if (index == count - 1) {
+            return path.goe(from);
+        }
+        return path.between(from, to);
+    }
+}
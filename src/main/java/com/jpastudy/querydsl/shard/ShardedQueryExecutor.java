@@ -0,0 +1,234 @@
+package com.jpastudy.querydsl.shard;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Member 를 파티션으로 나눠 같은 Querydsl 쿼리를 파티션마다 병렬로 실행하고 결과를 합친다 (scatter-gather)
+ * <p>
+ * 파티션마다 풀 스레드에서 읽기 전용 트랜잭션을 따로 열므로 EntityManager 와 커넥션도 따로 쓴다.
+ * 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 변경은 보이지 않는다.
+ * 쿼리 함수는 파티션마다 한 번씩 불리므로 매번 새 쿼리를 만들어야 한다.
+ */
+@Component
+public class ShardedQueryExecutor {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    /**
+     * @param parallelism 0 이면 CPU 수와 커넥션 풀의 절반 중 작은 값. 파티션마다 커넥션을 하나씩 쓰므로
+     *                    풀 전체를 가져가면 다른 요청이 커넥션을 기다린다
+     */
+    @Autowired
+    public ShardedQueryExecutor(JPAQueryFactory queryFactory,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${jpastudy.shard.parallelism:0}") int parallelism,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connections) {
+        this(queryFactory, transactionManager,
+             parallelism > 0 ? parallelism : defaultParallelism(Runtime.getRuntime().availableProcessors(), connections));
+    }
+
+    public ShardedQueryExecutor(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                                int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.queryFactory = queryFactory;
+        this.parallelism = parallelism;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        var sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            var thread = new Thread(runnable, "shard-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static int defaultParallelism(int processors, int connections) {
+        return Math.max(1, Math.min(processors, connections / 2));
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 병렬도만큼 나눈다. 행이 적으면 더 적게 나올 수 있다
+     */
+    public List<Predicate> partitions(PartitionKey key) {
+        return partitions(key, parallelism);
+    }
+
+    public List<Predicate> partitions(PartitionKey key, int count) {
+        return readOnlyTransaction.execute(status -> key.partitions(queryFactory, count));
+    }
+
+    /**
+     * order by 가 있으면 결과 행에서 정렬 값을 읽어 병합 정렬한다. 읽을 수 없는 정렬이면 Comparator 를 넘긴다
+     */
+    public <T> List<T> fetch(PartitionKey key, Function<JPAQueryFactory, JPAQuery<T>> query) {
+        return fetch(key, query, null);
+    }
+
+    /**
+     * 파티션마다 offset + limit 행까지만 정렬해서 읽고, 병합 정렬한 뒤 offset/limit 을 적용한다.
+     * 정렬이 없으면 파티션 순서대로 이어 붙인다
+     *
+     * @param order 파티션 결과를 합칠 순서. 쿼리의 order by 와 같아야 한다
+     */
+    public <T> List<T> fetch(PartitionKey key, Function<JPAQueryFactory, JPAQuery<T>> query,
+                             @Nullable Comparator<? super T> order) {
+        var metadata = query.apply(queryFactory).getMetadata();
+        var modifiers = metadata.getModifiers();
+        var limit = modifiers.getLimit();
+        var offset = modifiers.getOffset() == null ? 0 : modifiers.getOffset();
+        Comparator<? super T> comparator = order != null || metadata.getOrderBy().isEmpty()
+                ? order : OrderComparators.of(metadata);
+
+        var results = scatter(partitions(key), partition -> {
+            var partial = query.apply(queryFactory).where(partition).offset(0);
+            if (limit != null) {
+                partial.limit(offset + limit);
+            }
+            return partial.fetch();
+        });
+        return merge(results, comparator, offset, limit);
+    }
+
+    /**
+     * count/sum/min/max/avg 를 파티션마다 부분 집계하고 합친다. count(distinct) 처럼 합칠 수 없는 집계는 받지 않는다
+     * <pre>
+     * executor.aggregate(PartitionKey.TEAM_ID,
+     *                    qf -> qf.from(member).join(member.team, team),
+     *                    List.of(team.name),
+     *                    member.count(), member.age.avg());
+     * </pre>
+     *
+     * @param from    from/join/where 까지 만든 쿼리. select 와 group by 는 채워 넣는다
+     * @param groupBy 비어 있으면 전체를 한 행으로 집계한다
+     * @return group by 식과 집계 식으로 꺼내는 Tuple. 그룹 순서는 정해져 있지 않다
+     */
+    public List<Tuple> aggregate(PartitionKey key, Function<JPAQueryFactory, JPAQuery<?>> from,
+                                 List<? extends Expression<?>> groupBy, Expression<?>... aggregates) {
+        var partial = new PartialAggregates(groupBy, List.of(aggregates));
+        var results = scatter(partitions(key), partition -> {
+            var query = from.apply(queryFactory)
+                            .select(partial.projection())
+                            .where(partition);
+            if (!groupBy.isEmpty()) {
+                query.groupBy(groupBy.toArray(Expression<?>[]::new));
+            }
+            return query.fetch();
+        });
+        return partial.merge(results);
+    }
+
+    private <R> List<R> scatter(List<Predicate> partitions, Function<Predicate, R> task) {
+        var futures = new ArrayList<CompletableFuture<R>>(partitions.size());
+        for (Predicate partition : partitions) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> readOnlyTransaction.execute(status -> task.apply(partition)), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        var results = new ArrayList<R>(futures.size());
+        for (CompletableFuture<R> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * 파티션별로 정렬된 결과를 k-way 병합한다
+     */
+    static <T> List<T> merge(List<List<T>> partitions, @Nullable Comparator<? super T> order,
+                             long offset, @Nullable Long limit) {
+        var max = limit == null ? Long.MAX_VALUE : limit;
+        var merged = new ArrayList<T>();
+        if (order == null) {
+            long skipped = 0;
+            for (List<T> rows : partitions) {
+                for (T row : rows) {
+                    if (skipped++ >= offset && merged.size() < max) {
+                        merged.add(row);
+                    }
+                }
+            }
+            return merged;
+        }
+
+        var heap = new PriorityQueue<Cursor<T>>(Math.max(1, partitions.size()),
+                                                (left, right) -> order.compare(left.current(), right.current()));
+        for (List<T> rows : partitions) {
+            if (!rows.isEmpty()) {
+                heap.add(new Cursor<>(rows));
+            }
+        }
+        long skipped = 0;
+        while (!heap.isEmpty() && merged.size() < max) {
+            var cursor = heap.poll();
+            if (skipped++ >= offset) {
+                merged.add(cursor.current());
+            }
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class Cursor<T> {
+        private final List<T> rows;
+        private int index;
+
+        Cursor(List<T> rows) {
+            this.rows = rows;
+        }
+
+        T current() {
+            return rows.get(index);
+        }
+
+        boolean advance() {
+            return ++index < rows.size();
+        }
+    }
+}
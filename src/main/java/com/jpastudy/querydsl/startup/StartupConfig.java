@@ -0,0 +1,32 @@
+package com.jpastudy.querydsl.startup;
+
+import com.jpastudy.querydsl.persistence.PersistenceContextGovernor;
+import com.jpastudy.querydsl.stats.TeamStatsMaintainer;
+import com.jpastudy.querydsl.text.TextIndexMaintainer;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * spring.main.lazy-initialization 으로 켜도 동작이 바뀌지 않게 하는 설정
+ */
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Hibernate 이벤트 리스너를 @PostConstruct 에서 등록하는 빈. 늦게 만들어지면 그 전의 변경을 놓친다
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eventListenerRegistrars() {
+        return LazyInitializationExcludeFilter.forBeanTypes(TeamStatsMaintainer.class,
+                                                            PersistenceContextGovernor.class,
+                                                            TextIndexMaintainer.class);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "jpastudy.startup", name = "exit-on-ready", havingValue = "true")
+    public TrainingRun trainingRun() {
+        return new TrainingRun();
+    }
+}
@@ -0,0 +1,34 @@
+package com.jpastudy.querydsl.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+
+/**
+ * 기동이 끝나면 HelloController 를 한 번 부르고 종료한다
+ * <p>
+ * CDS 클래스 목록과 스키마 스크립트를 만드는 gradle 태스크가 쓴다. 첫 요청에 읽히는 클래스(DispatcherServlet, 메시지 컨버터)까지 목록에 들어간다.
+ */
+@Slf4j
+public class TrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        var context = event.getApplicationContext();
+        if (context instanceof WebServerApplicationContext) {
+            var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            try (var in = new URL("http://localhost:" + port + "/").openStream()) {
+                log.info("training request: {}", new String(in.readAllBytes()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,76 @@
+package com.jpastudy.querydsl.stats;
+
+import com.jpastudy.querydsl.dto.QTeamAgeStats;
+import com.jpastudy.querydsl.dto.TeamAgeStats;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static com.jpastudy.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * team_stats 를 member 전체 group by 결과와 비교한다. 없어진 팀의 집계 행은 읽히지 않으므로 무시한다
+ */
+@Component
+@Transactional(readOnly = true)
+public class TeamStatsConsistencyChecker {
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamStatsConsistencyChecker(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    public List<TeamStatsDrift> check() {
+        var expected = toMap(queryFactory.select(team.id,
+                                                 new QTeamAgeStats(team.name,
+                                                                   member.count(),
+                                                                   member.age.sum(),
+                                                                   member.age.min(),
+                                                                   member.age.max()))
+                                         .from(member)
+                                         .join(member.team, team)
+                                         .groupBy(team.id, team.name)
+                                         .fetch());
+        var actual = toMap(queryFactory.select(team.id,
+                                               new QTeamAgeStats(team.name,
+                                                                 teamStats.memberCount,
+                                                                 teamStats.ageSum,
+                                                                 teamStats.minAge,
+                                                                 teamStats.maxAge))
+                                       .from(teamStats)
+                                       .join(team).on(team.id.eq(teamStats.teamId))
+                                       .where(teamStats.memberCount.gt(0))
+                                       .fetch());
+
+        var drifts = new ArrayList<TeamStatsDrift>();
+        var teamIds = new TreeSet<>(expected.keySet());
+        teamIds.addAll(actual.keySet());
+        for (Long teamId : teamIds) {
+            var e = expected.get(teamId);
+            var a = actual.get(teamId);
+            if (!Objects.equals(e, a)) {
+                drifts.add(new TeamStatsDrift(teamId, e, a));
+            }
+        }
+        return drifts;
+    }
+
+    private static Map<Long, TeamAgeStats> toMap(List<Tuple> rows) {
+        var result = new HashMap<Long, TeamAgeStats>();
+        for (Tuple row : rows) {
+            result.put(row.get(0, Long.class), row.get(1, TeamAgeStats.class));
+        }
+        return result;
+    }
+}
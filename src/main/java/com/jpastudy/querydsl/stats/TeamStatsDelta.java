@@ -0,0 +1,30 @@
+package com.jpastudy.querydsl.stats;
+
+/**
+ * 한 번의 flush 동안 한 팀에 쌓인 집계 변화량
+ */
+class TeamStatsDelta {
+
+    long count;
+    long ageSum;
+    Integer minAdded;
+    Integer maxAdded;
+    /**
+     * 빠진 나이가 min/max 였을 수 있으므로 다시 계산해야 한다
+     */
+    boolean minMaxStale;
+    boolean teamDeleted;
+
+    void add(int age) {
+        count++;
+        ageSum += age;
+        minAdded = minAdded == null ? age : Math.min(minAdded, age);
+        maxAdded = maxAdded == null ? age : Math.max(maxAdded, age);
+    }
+
+    void remove(int age) {
+        count--;
+        ageSum -= age;
+        minMaxStale = true;
+    }
+}
@@ -0,0 +1,19 @@
+package com.jpastudy.querydsl.stats;
+
+import com.jpastudy.querydsl.dto.TeamAgeStats;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 집계 테이블과 전체 재계산 결과가 다른 팀. 한쪽에만 있으면 다른 쪽은 null
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class TeamStatsDrift {
+
+    private final Long teamId;
+    private final TeamAgeStats expected;
+    private final TeamAgeStats actual;
+}
@@ -0,0 +1,133 @@
+package com.jpastudy.querydsl.stats;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member insert/update/delete 마다 팀별 변화량을 세션에 모았다가 flush 가 끝나면 한 번에 team_stats 에 반영한다
+ * <p>
+ * 변화량은 같은 트랜잭션의 같은 커넥션으로 쓰이므로 롤백되면 함께 사라진다.
+ * flush 가 실패해 반영되지 못한 변화량은 트랜잭션이 끝날 때 버린다.
+ */
+class TeamStatsEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        FlushEventListener, AutoFlushEventListener {
+
+    private final Map<EventSource, Map<Long, TeamStatsDelta>> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            var persister = event.getPersister();
+            var teamId = teamId(persister, event.getState());
+            if (teamId != null) {
+                delta(event.getSession(), teamId).add(age(persister, event.getState()));
+            }
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        var persister = event.getPersister();
+        var newTeamId = teamId(persister, event.getState());
+        var newAge = age(persister, event.getState());
+        var oldState = event.getOldState();
+        if (oldState == null) {
+            // 이전 상태를 모르면 (detached update) 새 팀만 다시 계산하도록 남긴다
+            if (newTeamId != null) {
+                delta(event.getSession(), newTeamId).minMaxStale = true;
+            }
+            return;
+        }
+        var oldTeamId = teamId(persister, oldState);
+        var oldAge = age(persister, oldState);
+        if (oldAge == newAge && (oldTeamId == null ? newTeamId == null : oldTeamId.equals(newTeamId))) {
+            return;
+        }
+        if (oldTeamId != null) {
+            delta(event.getSession(), oldTeamId).remove(oldAge);
+        }
+        if (newTeamId != null) {
+            delta(event.getSession(), newTeamId).add(newAge);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            var persister = event.getPersister();
+            var teamId = teamId(persister, event.getDeletedState());
+            if (teamId != null) {
+                delta(event.getSession(), teamId).remove(age(persister, event.getDeletedState()));
+            }
+        } else if (event.getEntity() instanceof Team) {
+            delta(event.getSession(), (Long) event.getId()).teamDeleted = true;
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanlding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        apply(event.getSession());
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        if (event.isFlushRequired()) {
+            apply(event.getSession());
+        }
+    }
+
+    private void apply(EventSource session) {
+        var deltas = pending.remove(session);
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> TeamStatsSql.apply(connection, deltas));
+    }
+
+    private TeamStatsDelta delta(EventSource session, Long teamId) {
+        return pending.computeIfAbsent(session, key -> {
+            session.getActionQueue().registerProcess((success, s) -> pending.remove(session));
+            return new HashMap<>();
+        }).computeIfAbsent(teamId, key -> new TeamStatsDelta());
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        var team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+}
@@ -0,0 +1,125 @@
+package com.jpastudy.querydsl.stats;
+
+import com.jpastudy.querydsl.bulk.BulkChunkHook;
+import com.jpastudy.querydsl.bulk.BulkMutation;
+import com.jpastudy.querydsl.bulk.ChunkRange;
+import com.jpastudy.querydsl.entity.Member;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+
+/**
+ * team_stats 를 회원 변경에 맞춰 유지한다
+ * <p>
+ * 엔티티 변경(persist, changeTeam, 나이 변경, remove)은 Hibernate 이벤트로 변화량만 반영하고,
+ * {@link com.jpastudy.querydsl.bulk.ChunkedBulkExecutor} 의 벌크 청크와 queryFactory 의 update/delete 는
+ * 바뀐 회원의 팀을 전후로 모아 그 팀만 다시 계산한다. 그 밖의 네이티브 SQL / JDBC 적재 뒤에는 {@link TeamStatsRepository#recompute} 나 {@link TeamStatsRepository#recomputeAll()} 을 불러야 한다.
+ */
+@Component
+public class TeamStatsMaintainer implements BulkChunkHook {
+
+    private static final int IN_LIST_SIZE = 1_000;
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamStatsMaintainer(EntityManagerFactory emf, EntityManager em, JPAQueryFactory queryFactory) {
+        this.emf = emf;
+        this.em = em;
+        this.queryFactory = queryFactory;
+    }
+
+    @PostConstruct
+    void register() {
+        var listener = new TeamStatsEventListener();
+        var registry = emf.unwrap(SessionFactoryImplementor.class)
+                          .getServiceRegistry()
+                          .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        // 기본 flush 리스너 뒤에 붙어 회원 DML 이 실행된 다음 반영된다
+        registry.appendListeners(EventType.FLUSH, listener);
+        registry.appendListeners(EventType.AUTO_FLUSH, listener);
+    }
+
+    /**
+     * 회원의 나이나 팀을 바꾸거나 지우는 mutation 만 집계에 영향을 준다
+     */
+    @Override
+    public boolean supports(BulkMutation mutation) {
+        return mutation.getEntity().getType() == Member.class
+                && (mutation.assigns("age") || mutation.assigns("team"));
+    }
+
+    /**
+     * 청크 id 범위에 속한 회원의 팀을 mutation 전후로 모아 다시 계산한다. update 로 팀이 바뀌어도 양쪽 팀이 잡힌다
+     */
+    @Override
+    public Runnable beforeChunk(BulkMutation mutation, ChunkRange range) {
+        if (!supports(mutation)) {
+            return () -> {
+            };
+        }
+        var teamIds = teamIdsIn(range);
+        return () -> {
+            teamIds.addAll(teamIdsIn(range));
+            em.unwrap(Session.class).doWork(connection -> TeamStatsSql.recompute(connection, teamIds));
+        };
+    }
+
+    /**
+     * 문이 바꿀 회원의 팀만 전후로 모아 다시 계산한다
+     */
+    @Override
+    public Runnable beforeStatement(BulkMutation mutation, List<Long> ids) {
+        if (!supports(mutation)) {
+            return () -> {
+            };
+        }
+        var teamIds = teamIdsOf(ids);
+        return () -> {
+            teamIds.addAll(teamIdsOf(ids));
+            em.unwrap(Session.class).doWork(connection -> TeamStatsSql.recompute(connection, teamIds));
+        };
+    }
+
+    private Set<Long> teamIdsOf(List<Long> memberIds) {
+        var ids = new HashSet<Long>();
+        for (int from = 0; from < memberIds.size(); from += IN_LIST_SIZE) {
+            var chunk = memberIds.subList(from, Math.min(from + IN_LIST_SIZE, memberIds.size()));
+            ids.addAll(queryFactory.select(member.team.id)
+                                   .distinct()
+                                   .from(member)
+                                   .where(member.id.in(chunk))
+                                   .fetch());
+        }
+        ids.removeIf(Objects::isNull);
+        return ids;
+    }
+
+    private Set<Long> teamIdsIn(ChunkRange range) {
+        var ids = new HashSet<>(queryFactory.select(member.team.id)
+                                            .distinct()
+                                            .from(member)
+                                            .where(member.id.gt(range.getFromExclusive()),
+                                                   member.id.loe(range.getToInclusive()))
+                                            .fetch());
+        ids.removeIf(Objects::isNull);
+        return ids;
+    }
+}
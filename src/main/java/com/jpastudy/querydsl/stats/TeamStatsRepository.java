@@ -0,0 +1,72 @@
+package com.jpastudy.querydsl.stats;
+
+import com.jpastudy.querydsl.dto.QTeamAgeStats;
+import com.jpastudy.querydsl.dto.TeamAgeStats;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static com.jpastudy.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * 팀별 나이 집계를 member 를 훑지 않고 team_stats 에서 읽는다 (팀 수에 비례)
+ */
+@Repository
+@Transactional(readOnly = true)
+public class TeamStatsRepository {
+
+    private static final int IN_LIST_SIZE = 1_000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamStatsRepository(EntityManager em, JPAQueryFactory queryFactory) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+    }
+
+    /**
+     * {@code select team.name, count, sum, avg, min, max from member join team group by team.name} 와 같은 결과
+     */
+    public List<TeamAgeStats> aggregateByTeamName() {
+        return queryFactory.select(new QTeamAgeStats(team.name,
+                                                     teamStats.memberCount.sum(),
+                                                     teamStats.ageSum.sum(),
+                                                     teamStats.minAge.min(),
+                                                     teamStats.maxAge.max()))
+                           .from(teamStats)
+                           .join(team).on(team.id.eq(teamStats.teamId))
+                           .where(teamStats.memberCount.gt(0))
+                           .groupBy(team.name)
+                           .orderBy(team.name.asc())
+                           .fetch();
+    }
+
+    /**
+     * 주어진 팀만 회원 테이블 기준으로 다시 만든다. 어느 팀이 바뀌었는지 아는 JDBC 적재 뒤에 부른다
+     */
+    @Transactional
+    public void recompute(Collection<Long> teamIds) {
+        var ids = new ArrayList<>(teamIds);
+        em.unwrap(Session.class).doWork(connection -> {
+            for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+                TeamStatsSql.recompute(connection, ids.subList(from, Math.min(from + IN_LIST_SIZE, ids.size())));
+            }
+        });
+    }
+
+    /**
+     * 전체 회원 기준으로 다시 만든다. 어느 팀이 바뀌었는지 모르는 벌크 변경 뒤에 부른다
+     */
+    @Transactional
+    public void recomputeAll() {
+        em.unwrap(Session.class).doWork(TeamStatsSql::recomputeAll);
+    }
+}
@@ -0,0 +1,106 @@
+package com.jpastudy.querydsl.stats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * team_stats 갱신 SQL. 회원 변경이 DB 에 반영된 뒤 같은 커넥션에서 실행해야 한다
+ */
+final class TeamStatsSql {
+
+    /**
+     * 집계가 있으면 변화량을 더하고, 없으면 회원 테이블에서 전체를 계산해 넣는다.
+     * update 후 0 건이면 재계산하던 방식은 같은 팀의 첫 변경 두 개가 동시에 재계산 경로로 들어갈 수 있어 한 문장으로 처리한다
+     */
+    private static final String APPLY_DELTA =
+            "merge into team_stats t"
+                    + " using (select cast(? as bigint) team_id, cast(? as bigint) member_count,"
+                    + " cast(? as bigint) age_sum, cast(? as integer) min_age, cast(? as integer) max_age) d"
+                    + " on (t.team_id = d.team_id)"
+                    + " when matched then update set member_count = t.member_count + d.member_count,"
+                    + " age_sum = t.age_sum + d.age_sum,"
+                    + " min_age = coalesce(least(t.min_age, d.min_age), t.min_age, d.min_age),"
+                    + " max_age = coalesce(greatest(t.max_age, d.max_age), t.max_age, d.max_age)"
+                    + " when not matched then insert (team_id, member_count, age_sum, min_age, max_age) values (d.team_id,"
+                    + " (select count(*) from member m where m.team_id = d.team_id),"
+                    + " (select coalesce(sum(m.age), 0) from member m where m.team_id = d.team_id),"
+                    + " (select min(m.age) from member m where m.team_id = d.team_id),"
+                    + " (select max(m.age) from member m where m.team_id = d.team_id))";
+    private static final String REFRESH_MIN_MAX =
+            "update team_stats set"
+                    + " min_age = (select min(m.age) from member m where m.team_id = team_stats.team_id),"
+                    + " max_age = (select max(m.age) from member m where m.team_id = team_stats.team_id)"
+                    + " where team_id = ?";
+    private static final String DELETE = "delete from team_stats where team_id = ?";
+    private static final String INSERT_FROM_MEMBER =
+            "insert into team_stats (team_id, member_count, age_sum, min_age, max_age)"
+                    + " select m.team_id, count(*), sum(m.age), min(m.age), max(m.age) from member m";
+
+    private TeamStatsSql() {
+    }
+
+    static void apply(Connection connection, Map<Long, TeamStatsDelta> deltas) throws SQLException {
+        try (var merge = connection.prepareStatement(APPLY_DELTA);
+             var refresh = connection.prepareStatement(REFRESH_MIN_MAX);
+             var delete = connection.prepareStatement(DELETE)) {
+            for (var entry : deltas.entrySet()) {
+                var teamId = entry.getKey();
+                var delta = entry.getValue();
+                if (delta.teamDeleted) {
+                    delete.setLong(1, teamId);
+                    delete.executeUpdate();
+                    continue;
+                }
+                merge.setLong(1, teamId);
+                merge.setLong(2, delta.count);
+                merge.setLong(3, delta.ageSum);
+                setInteger(merge, 4, delta.minAdded);
+                setInteger(merge, 5, delta.maxAdded);
+                merge.executeUpdate();
+                if (delta.minMaxStale) {
+                    refresh.setLong(1, teamId);
+                    refresh.executeUpdate();
+                }
+            }
+        }
+    }
+
+    static void recompute(Connection connection, Collection<Long> teamIds) throws SQLException {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        var in = teamIds.stream().map(id -> "?").collect(Collectors.joining(", ", "(", ")"));
+        try (var delete = connection.prepareStatement("delete from team_stats where team_id in " + in);
+             var insert = connection.prepareStatement(INSERT_FROM_MEMBER + " where m.team_id in " + in
+                                                              + " group by m.team_id")) {
+            int i = 1;
+            for (Long teamId : teamIds) {
+                delete.setLong(i, teamId);
+                insert.setLong(i, teamId);
+                i++;
+            }
+            delete.executeUpdate();
+            insert.executeUpdate();
+        }
+    }
+
+    static void recomputeAll(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.executeUpdate("delete from team_stats");
+            statement.executeUpdate(INSERT_FROM_MEMBER + " where m.team_id is not null group by m.team_id");
+        }
+    }
+
+    private static void setInteger(PreparedStatement statement, int index, Integer value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.INTEGER);
+        } else {
+            statement.setInt(index, value);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.jpastudy.querydsl.stream;
+
+import com.jpastudy.querydsl.dto.QMemberDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+
+/**
+ * 회원 전체를 CSV 로 내보낸다. 행 수와 무관하게 힙 사용량이 일정하다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberCsvExporter {
+
+    private final StreamingQueryFactory streamingQueryFactory;
+
+    public long export(Writer out) throws IOException {
+        out.write("username,age\n");
+        try (var rows = streamingQueryFactory.statelessStream(
+                factory -> factory.select(new QMemberDto(member.username, member.age))
+                                  .from(member)
+                                  .orderBy(member.id.asc()))) {
+            long count = 0;
+            for (var iterator = rows.iterator(); iterator.hasNext(); count++) {
+                var row = iterator.next();
+                out.write(row.getUsername() == null ? "" : row.getUsername());
+                out.write(',');
+                out.write(Integer.toString(row.getAge()));
+                out.write('\n');
+            }
+            return count;
+        }
+    }
+}
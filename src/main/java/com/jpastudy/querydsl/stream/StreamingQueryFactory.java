@@ -0,0 +1,126 @@
+package com.jpastudy.querydsl.stream;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import com.querydsl.jpa.hibernate.HibernateQueryFactory;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * fetch() 대신 forward-only 커서로 한 행씩 읽는 스트리밍 조회
+ * <p>
+ * 반환된 Stream 은 커서와 커넥션을 잡고 있으므로 반드시 try-with-resources 로 닫아야 한다.
+ */
+@Component
+public class StreamingQueryFactory {
+
+    private final EntityManager em;
+    private final SessionFactory sessionFactory;
+    private final int fetchSize;
+    private final int clearInterval;
+
+    public StreamingQueryFactory(EntityManager em,
+                                 EntityManagerFactory emf,
+                                 @Value("${querydsl.stream.fetch-size:500}") int fetchSize,
+                                 @Value("${querydsl.stream.clear-interval:1000}") int clearInterval) {
+        this.em = em;
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        this.fetchSize = fetchSize;
+        this.clearInterval = clearInterval;
+    }
+
+    public <T> Stream<T> stream(JPAQuery<T> query) {
+        return stream(query, fetchSize, clearInterval);
+    }
+
+    /**
+     * 현재 트랜잭션의 EntityManager 로 스트리밍한다.
+     * <p>
+     * 엔티티는 read-only 로 로딩되어 스냅샷을 남기지 않고, {@code clearInterval} 행마다 flush/clear 하므로
+     * 이미 넘겨받은 엔티티는 준영속 상태가 된다. 트랜잭션 안에서 호출해야 한다.
+     */
+    public <T> Stream<T> stream(JPAQuery<T> query, int fetchSize, int clearInterval) {
+        var iterator = query.setHint(QueryHints.FETCH_SIZE, fetchSize)
+                            .setHint(QueryHints.READ_ONLY, true)
+                            .iterate();
+        return toStream(new ClearingIterator<>(iterator, em, clearInterval), iterator::close);
+    }
+
+    public <T> Stream<T> statelessStream(Function<HibernateQueryFactory, HibernateQuery<T>> queryBuilder) {
+        return statelessStream(queryBuilder, fetchSize);
+    }
+
+    /**
+     * 영속성 컨텍스트가 없는 StatelessSession(별도 커넥션)으로 스트리밍한다.
+     * <p>
+     * 1차 캐시가 없어 행 수와 무관하게 힙 사용량이 일정하다. 지연 로딩은 동작하지 않으며,
+     * 별도 커넥션이므로 현재 트랜잭션에서 커밋하지 않은 변경은 보이지 않는다.
+     */
+    public <T> Stream<T> statelessStream(Function<HibernateQueryFactory, HibernateQuery<T>> queryBuilder,
+                                         int fetchSize) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            var iterator = queryBuilder.apply(new HibernateQueryFactory(session))
+                                       .setFetchSize(fetchSize)
+                                       .setReadOnly(true)
+                                       .iterate();
+            return toStream(iterator, () -> {
+                try {
+                    iterator.close();
+                } finally {
+                    session.close();
+                }
+            });
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    private static <T> Stream<T> toStream(Iterator<T> iterator, Runnable onClose) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                            .onClose(onClose);
+    }
+
+    static class ClearingIterator<T> implements Iterator<T> {
+
+        private final CloseableIterator<T> delegate;
+        private final EntityManager em;
+        private final int clearInterval;
+        private long count;
+
+        ClearingIterator(CloseableIterator<T> delegate, EntityManager em, int clearInterval) {
+            this.delegate = delegate;
+            this.em = em;
+            this.clearInterval = clearInterval;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (clearInterval > 0 && count > 0 && count % clearInterval == 0) {
+                em.flush();
+                em.clear();
+            }
+            count++;
+            return delegate.next();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.jpastudy.querydsl.text;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 소문자로 바꾼 값의 3-gram. 값 앞에 시작 표시를 붙여 접두어도 gram 으로 찾는다
+ * <p>
+ * "Kim" 은 {@code ^k, ^ki, kim} 이 된다. 두 글자짜리 {@code ^k} 는 한 글자 접두어 검색용이다.
+ */
+final class NGrams {
+
+    static final int N = 3;
+    static final char START = '\u0002';
+
+    private NGrams() {
+    }
+
+    /**
+     * 색인할 gram
+     */
+    static Set<String> of(String value) {
+        var grams = new LinkedHashSet<String>();
+        if (value == null || value.isEmpty()) {
+            return grams;
+        }
+        var padded = START + normalize(value);
+        grams.add(padded.substring(0, 2));
+        addAll(grams, padded);
+        return grams;
+    }
+
+    /**
+     * text 를 포함하는 값이 모두 가진 gram. 세 글자보다 짧으면 비어 있다
+     */
+    static Set<String> infix(String text) {
+        var grams = new LinkedHashSet<String>();
+        addAll(grams, normalize(text));
+        return grams;
+    }
+
+    /**
+     * text 로 시작하는 값이 모두 가진 gram
+     */
+    static Set<String> prefix(String text) {
+        var padded = START + normalize(text);
+        if (padded.length() < N) {
+            return Set.of(padded);
+        }
+        var grams = new LinkedHashSet<String>();
+        addAll(grams, padded);
+        return grams;
+    }
+
+    static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static void addAll(Set<String> grams, String value) {
+        for (int i = 0; i + N <= value.length(); i++) {
+            grams.add(value.substring(i, i + N));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.jpastudy.querydsl.text;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+
+/**
+ * n-gram 색인 대상 필드
+ */
+public enum TextField {
+    MEMBER_USERNAME(Member.class, "username", "member", "member_id"),
+    TEAM_NAME(Team.class, "name", "team", "team_id");
+
+    private final Class<?> entity;
+    private final String property;
+    private final String table;
+    private final String idColumn;
+
+    TextField(Class<?> entity, String property, String table, String idColumn) {
+        this.entity = entity;
+        this.property = property;
+        this.table = table;
+        this.idColumn = idColumn;
+    }
+
+    static TextField of(Object entity) {
+        for (TextField field : values()) {
+            if (field.entity.isInstance(entity)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    static TextField of(Class<?> entity) {
+        for (TextField field : values()) {
+            if (field.entity == entity) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    String getProperty() {
+        return property;
+    }
+
+    /**
+     * id 와 값을 읽는 SQL. 컬럼 이름은 property 와 같다
+     */
+    String selectValues() {
+        return "select " + idColumn + ", " + property + " from " + table;
+    }
+
+    String getIdColumn() {
+        return idColumn;
+    }
+}
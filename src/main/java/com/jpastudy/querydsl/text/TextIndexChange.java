@@ -0,0 +1,20 @@
+package com.jpastudy.querydsl.text;
+
+/**
+ * flush 한 번 동안 모은 행 하나의 색인 변경
+ */
+final class TextIndexChange {
+
+    /**
+     * 이미 색인된 gram 이 있어 먼저 지워야 하는지. 이번 flush 에서 insert 된 행이면 false
+     */
+    final boolean indexed;
+    /**
+     * 새 값. null 이면 지우기만 한다
+     */
+    String value;
+
+    TextIndexChange(boolean indexed) {
+        this.indexed = indexed;
+    }
+}
@@ -0,0 +1,99 @@
+package com.jpastudy.querydsl.text;
+
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member.username / Team.name 이 바뀐 행을 세션에 모았다가 flush 가 끝나면 한 번에 text_gram 에 반영한다
+ * <p>
+ * 같은 트랜잭션의 같은 커넥션으로 쓰이므로 롤백되면 함께 사라진다.
+ */
+class TextIndexEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        FlushEventListener, AutoFlushEventListener {
+
+    private final Map<EventSource, Map<TextField, Map<Long, TextIndexChange>>> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        var field = TextField.of(event.getEntity());
+        if (field != null) {
+            change(event.getSession(), field, (Long) event.getId(), false).value =
+                    value(field, event.getPersister(), event.getState());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        var field = TextField.of(event.getEntity());
+        if (field == null) {
+            return;
+        }
+        var persister = event.getPersister();
+        var newValue = value(field, persister, event.getState());
+        // 이전 상태를 모르면 (detached update) 다시 색인한다
+        if (event.getOldState() != null && Objects.equals(value(field, persister, event.getOldState()), newValue)) {
+            return;
+        }
+        change(event.getSession(), field, (Long) event.getId(), true).value = newValue;
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        var field = TextField.of(event.getEntity());
+        if (field != null) {
+            change(event.getSession(), field, (Long) event.getId(), true).value = null;
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanlding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        apply(event.getSession());
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        if (event.isFlushRequired()) {
+            apply(event.getSession());
+        }
+    }
+
+    private void apply(EventSource session) {
+        var changes = pending.remove(session);
+        if (changes == null || changes.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> TextIndexSql.apply(connection, changes));
+    }
+
+    private TextIndexChange change(EventSource session, TextField field, Long id, boolean indexed) {
+        return pending.computeIfAbsent(session, key -> {
+            session.getActionQueue().registerProcess((success, s) -> pending.remove(session));
+            return new EnumMap<>(TextField.class);
+        }).computeIfAbsent(field, key -> new HashMap<>()).computeIfAbsent(id, key -> new TextIndexChange(indexed));
+    }
+
+    private static String value(TextField field, EntityPersister persister, Object[] state) {
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex(field.getProperty())];
+    }
+}
@@ -0,0 +1,77 @@
+package com.jpastudy.querydsl.text;
+
+import com.jpastudy.querydsl.bulk.BulkChunkHook;
+import com.jpastudy.querydsl.bulk.BulkMutation;
+import com.jpastudy.querydsl.bulk.ChunkRange;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * text_gram 을 Member.username / Team.name 변경에 맞춰 유지한다
+ * <p>
+ * 엔티티 변경은 Hibernate 이벤트로 바뀐 행만 다시 색인하고,
+ * {@link com.jpastudy.querydsl.bulk.ChunkedBulkExecutor} 의 벌크 청크는 청크 범위를,
+ * queryFactory 의 update/delete 는 바뀐 행의 id 만 다시 색인한다. 그 밖의 네이티브 SQL 뒤에는 {@link TextIndexRepository#reindex} 나 {@link TextIndexRepository#rebuildAll()} 을 불러야 한다.
+ */
+@Component
+public class TextIndexMaintainer implements BulkChunkHook {
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+
+    public TextIndexMaintainer(EntityManagerFactory emf, EntityManager em) {
+        this.emf = emf;
+        this.em = em;
+    }
+
+    @PostConstruct
+    void register() {
+        var listener = new TextIndexEventListener();
+        var registry = emf.unwrap(SessionFactoryImplementor.class)
+                          .getServiceRegistry()
+                          .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        registry.appendListeners(EventType.FLUSH, listener);
+        registry.appendListeners(EventType.AUTO_FLUSH, listener);
+    }
+
+    /**
+     * 색인 대상 속성을 바꾸거나 행을 지우는 mutation 만 다시 색인한다
+     */
+    @Override
+    public boolean supports(BulkMutation mutation) {
+        var field = TextField.of(mutation.getEntity().getType());
+        return field != null && mutation.assigns(field.getProperty());
+    }
+
+    @Override
+    public Runnable beforeChunk(BulkMutation mutation, ChunkRange range) {
+        var field = TextField.of(mutation.getEntity().getType());
+        if (field == null || !mutation.assigns(field.getProperty())) {
+            return () -> {
+            };
+        }
+        return () -> em.unwrap(Session.class).doWork(connection -> TextIndexSql.reindex(
+                connection, field, range.getFromExclusive(), range.getToInclusive()));
+    }
+
+    @Override
+    public Runnable beforeStatement(BulkMutation mutation, List<Long> ids) {
+        var field = TextField.of(mutation.getEntity().getType());
+        if (field == null || !mutation.assigns(field.getProperty())) {
+            return () -> {
+            };
+        }
+        return () -> em.unwrap(Session.class).doWork(connection -> TextIndexSql.reindex(connection, field, ids));
+    }
+}
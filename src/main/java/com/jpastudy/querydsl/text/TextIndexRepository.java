@@ -0,0 +1,38 @@
+package com.jpastudy.querydsl.text;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+@Repository
+public class TextIndexRepository {
+
+    private final EntityManager em;
+
+    public TextIndexRepository(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * (fromExclusive, toInclusive] 범위의 id 만 원본 테이블 기준으로 다시 색인한다. 바뀐 id 를 아는 JDBC 적재 뒤에 부른다
+     */
+    @Transactional
+    public void reindex(TextField field, long fromExclusive, long toInclusive) {
+        em.unwrap(Session.class).doWork(
+                connection -> TextIndexSql.reindex(connection, field, fromExclusive, toInclusive));
+    }
+
+    /**
+     * 모든 필드를 원본 테이블 기준으로 다시 만든다. 바뀐 id 를 모르는 벌크 변경 뒤에 부른다
+     */
+    @Transactional
+    public void rebuildAll() {
+        em.unwrap(Session.class).doWork(connection -> {
+            for (TextField field : TextField.values()) {
+                TextIndexSql.rebuild(connection, field);
+            }
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package com.jpastudy.querydsl.text;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * text_gram 갱신 SQL. 원본 변경이 DB 에 반영된 뒤 같은 커넥션에서 실행해야 한다
+ */
+final class TextIndexSql {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final String INSERT = "insert into text_gram (field, gram, owner_id) values (?, ?, ?)";
+    private static final String DELETE_OWNER = "delete from text_gram where field = ? and owner_id = ?";
+    private static final String DELETE_RANGE =
+            "delete from text_gram where field = ? and owner_id > ? and owner_id <= ?";
+    private static final String DELETE_FIELD = "delete from text_gram where field = ?";
+
+    private TextIndexSql() {
+    }
+
+    static void apply(Connection connection, Map<TextField, Map<Long, TextIndexChange>> changes) throws SQLException {
+        try (var delete = connection.prepareStatement(DELETE_OWNER);
+             var insert = connection.prepareStatement(INSERT)) {
+            for (var entry : changes.entrySet()) {
+                var field = entry.getKey();
+                for (var change : entry.getValue().entrySet()) {
+                    if (change.getValue().indexed) {
+                        delete.setString(1, field.name());
+                        delete.setLong(2, change.getKey());
+                        delete.addBatch();
+                    }
+                }
+            }
+            delete.executeBatch();
+
+            var batch = new Batch(insert);
+            for (var entry : changes.entrySet()) {
+                for (var change : entry.getValue().entrySet()) {
+                    batch.add(entry.getKey(), change.getKey(), change.getValue().value);
+                }
+            }
+            batch.flush();
+        }
+    }
+
+    /**
+     * (fromExclusive, toInclusive] 범위의 id 를 다시 색인한다. 지워진 행은 색인에서도 빠진다
+     */
+    static void reindex(Connection connection, TextField field, long fromExclusive, long toInclusive)
+            throws SQLException {
+        try (var delete = connection.prepareStatement(DELETE_RANGE)) {
+            delete.setString(1, field.name());
+            delete.setLong(2, fromExclusive);
+            delete.setLong(3, toInclusive);
+            delete.executeUpdate();
+        }
+        var idColumn = field.getIdColumn();
+        try (var select = connection.prepareStatement(field.selectValues()
+                                                              + " where " + idColumn + " > ? and " + idColumn + " <= ?")) {
+            select.setLong(1, fromExclusive);
+            select.setLong(2, toInclusive);
+            insertAll(connection, field, select);
+        }
+    }
+
+    /**
+     * 주어진 id 만 다시 색인한다. 지워진 행은 색인에서도 빠진다
+     */
+    static void reindex(Connection connection, TextField field, List<Long> ids) throws SQLException {
+        var idColumn = field.getIdColumn();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            var chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            var in = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            try (var delete = connection.prepareStatement(
+                    "delete from text_gram where field = ? and owner_id in (" + in + ")");
+                 var select = connection.prepareStatement(
+                         field.selectValues() + " where " + idColumn + " in (" + in + ")")) {
+                delete.setString(1, field.name());
+                for (int i = 0; i < chunk.size(); i++) {
+                    delete.setLong(i + 2, chunk.get(i));
+                    select.setLong(i + 1, chunk.get(i));
+                }
+                delete.executeUpdate();
+                insertAll(connection, field, select);
+            }
+        }
+    }
+
+    static void rebuild(Connection connection, TextField field) throws SQLException {
+        try (var delete = connection.prepareStatement(DELETE_FIELD);
+             var select = connection.prepareStatement(field.selectValues())) {
+            delete.setString(1, field.name());
+            delete.executeUpdate();
+            insertAll(connection, field, select);
+        }
+    }
+
+    private static void insertAll(Connection connection, TextField field, PreparedStatement select)
+            throws SQLException {
+        select.setFetchSize(BATCH_SIZE);
+        try (var rows = select.executeQuery();
+             var insert = connection.prepareStatement(INSERT)) {
+            var batch = new Batch(insert);
+            while (rows.next()) {
+                batch.add(field, rows.getLong(1), rows.getString(2));
+            }
+            batch.flush();
+        }
+    }
+
+    private static final class Batch {
+
+        private final PreparedStatement insert;
+        private int size;
+
+        Batch(PreparedStatement insert) {
+            this.insert = insert;
+        }
+
+        void add(TextField field, long ownerId, String value) throws SQLException {
+            for (String gram : NGrams.of(value)) {
+                insert.setString(1, field.name());
+                insert.setString(2, gram);
+                insert.setLong(3, ownerId);
+                insert.addBatch();
+                if (++size == BATCH_SIZE) {
+                    flush();
+                }
+            }
+        }
+
+        void flush() throws SQLException {
+            if (size > 0) {
+                insert.executeBatch();
+                size = 0;
+            }
+        }
+    }
+}
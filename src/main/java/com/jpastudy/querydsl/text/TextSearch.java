@@ -0,0 +1,114 @@
+package com.jpastudy.querydsl.text;
+
+import com.jpastudy.querydsl.entity.QMember;
+import com.jpastudy.querydsl.entity.QTeam;
+import com.jpastudy.querydsl.entity.TextGram;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.jpa.JPAExpressions;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.jpastudy.querydsl.entity.QTextGram.textGram;
+
+/**
+ * username / 팀 이름의 대소문자를 무시한 접두어, 부분 문자열 검색 조건
+ * <p>
+ * text_gram 에서 가장 적은 행에 걸리는 gram 하나로 후보 id 를 좁히고 후보에만 like 를 다시 건다.
+ * 세 글자 미만 부분 문자열이거나 모든 gram 이 max-postings 이상에 걸리면 색인이 도움이 안 되므로 like 만 쓴다.
+ * <pre>
+ * queryFactory.selectFrom(member)
+ *             .join(member.team, team)
+ *             .where(textSearch.usernameContains(member, "im"), textSearch.nameStartsWith(team, "dev"))
+ * </pre>
+ * text 가 비어 있으면 null 을 돌려주므로 where 에서 빠진다.
+ */
+@Component
+public class TextSearch {
+
+    private final EntityManager em;
+    private final int maxPostings;
+
+    public TextSearch(EntityManager em,
+                      @Value("${jpastudy.text-search.max-postings:10000}") int maxPostings) {
+        this.em = em;
+        this.maxPostings = maxPostings;
+    }
+
+    public BooleanExpression usernameContains(QMember member, String text) {
+        return matches(member.id, member.username, TextField.MEMBER_USERNAME, text, false);
+    }
+
+    public BooleanExpression usernameStartsWith(QMember member, String text) {
+        return matches(member.id, member.username, TextField.MEMBER_USERNAME, text, true);
+    }
+
+    public BooleanExpression nameContains(QTeam team, String text) {
+        return matches(team.id, team.name, TextField.TEAM_NAME, text, false);
+    }
+
+    public BooleanExpression nameStartsWith(QTeam team, String text) {
+        return matches(team.id, team.name, TextField.TEAM_NAME, text, true);
+    }
+
+    private BooleanExpression matches(NumberPath<Long> id, StringPath value, TextField field, String text,
+                                      boolean prefix) {
+        if (!StringUtils.hasLength(text)) {
+            return null;
+        }
+        var like = prefix ? value.startsWithIgnoreCase(text) : value.containsIgnoreCase(text);
+        var gram = rarest(field, prefix ? NGrams.prefix(text) : NGrams.infix(text));
+        if (gram == null) {
+            return like;
+        }
+        return id.in(JPAExpressions.select(textGram.ownerId)
+                                   .from(textGram)
+                                   .where(textGram.field.eq(field), textGram.gram.eq(gram)))
+                 .and(like);
+    }
+
+    /**
+     * max-postings 보다 적은 행에 걸리는 gram 중 가장 적은 것.
+     * gram 별 행 수를 max-postings 까지만 세는 스칼라 서브쿼리를 한 문장으로 묶어 왕복 한 번으로 센다
+     */
+    private String rarest(TextField field, Set<String> grams) {
+        if (grams.isEmpty()) {
+            return null;
+        }
+        var ordered = List.copyOf(grams);
+        var sql = ordered.stream()
+                         .map(gram -> "(select count(*) from (select 1 from text_gram"
+                                 + " where field = ? and gram = ? limit ?) p)")
+                         .collect(Collectors.joining(", ", "select ", ""));
+        var query = em.createNativeQuery(sql);
+        // 회원/팀 변경이 남아 있으면 text_gram 에 반영되도록 먼저 flush 한다
+        query.unwrap(NativeQuery.class).addSynchronizedEntityClass(TextGram.class);
+        int index = 1;
+        for (String gram : ordered) {
+            query.setParameter(index++, field.name());
+            query.setParameter(index++, gram);
+            query.setParameter(index++, maxPostings);
+        }
+        var result = query.getSingleResult();
+        var counts = result instanceof Object[] ? (Object[]) result : new Object[]{result};
+
+        String rarest = null;
+        long min = maxPostings;
+        for (int i = 0; i < counts.length; i++) {
+            var postings = ((Number) counts[i]).longValue();
+            if (postings < min) {
+                rarest = ordered.get(i);
+                min = postings;
+            }
+        }
+        return rarest;
+    }
+}
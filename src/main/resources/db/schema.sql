@@ -0,0 +1,14 @@
+create sequence hello_seq start with 1 increment by 50;
+create sequence member_seq start with 1 increment by 100;
+create sequence team_seq start with 1 increment by 50;
+create table hello (id bigint not null, age integer not null, name varchar(255), primary key (id));
+create table member (member_id bigint not null, age integer not null, profile clob, username varchar(255), team_id bigint, primary key (member_id));
+create table team (team_id bigint not null, name varchar(255), primary key (team_id));
+create table team_stats (team_id bigint not null, age_sum bigint not null, max_age integer, member_count bigint not null, min_age integer, primary key (team_id));
+create table text_gram (field varchar(255) not null, gram varchar(3) not null, owner_id bigint not null, primary key (field, gram, owner_id));
+create index idx_member_username_age on member (username, age);
+create index idx_member_team_age on member (team_id, age);
+create index idx_member_age_username on member (age, username);
+create index idx_team_name on team (name);
+create index idx_text_gram_owner on text_gram (field, owner_id);
+alter table member add constraint FKcjte2jn9pvo9ud2hyfgwcja0k foreign key (team_id) references team;
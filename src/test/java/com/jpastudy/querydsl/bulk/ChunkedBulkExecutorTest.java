@@ -0,0 +1,136 @@
+package com.jpastudy.querydsl.bulk;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.stats.TeamStatsConsistencyChecker;
+import com.jpastudy.querydsl.stats.TeamStatsRepository;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 청크마다 커밋하므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+ */
+@SpringBootTest
+class ChunkedBulkExecutorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    ChunkedBulkExecutor executor;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    TeamStatsRepository teamStats;
+    @Autowired
+    TeamStatsConsistencyChecker teamStatsChecker;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            var teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 1; i <= 25; i++) {
+                em.persist(new Member("member" + i, i, teamA));
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    void testChunkedUpdate() {
+        var progress = new AtomicInteger();
+        var mutation = BulkMutation.update(member, member.id, member.age.lt(20),
+                                           clause -> clause.set(member.username, "비회원"));
+
+        var count = executor.execute(mutation, BulkOptions.builder()
+                                                          .chunkSize(4)
+                                                          .parallelism(3)
+                                                          .listener(checkpoint -> progress.incrementAndGet())
+                                                          .build());
+
+        assertEquals(19, count);
+        assertEquals(5, progress.get());
+        var renamed = tx.execute(status -> queryFactory.select(member.count())
+                                                       .from(member)
+                                                       .where(member.username.eq("비회원"))
+                                                       .fetchOne());
+        assertEquals(19, renamed);
+    }
+
+    /**
+     * 벌크 청크도 팀 집계를 맞춘다
+     */
+    @Test
+    void testChunkedDeleteKeepsTeamStats() {
+        executor.execute(BulkMutation.delete(member, member.id, member.age.gt(10)),
+                         BulkOptions.builder().chunkSize(4).build());
+
+        var stats = teamStats.aggregateByTeamName();
+        assertEquals(1, stats.size());
+        assertEquals(10, stats.get(0).getCount());
+        assertEquals(10, stats.get(0).getMax());
+        assertEquals(List.of(), teamStatsChecker.check());
+    }
+
+    @Test
+    void testResumeAfterFailure() {
+        var failOnce = new AtomicBoolean(true);
+        var mutation = BulkMutation.of(member, member.id, member.age.gt(5), (queryFactory, where) -> {
+            var deleted = queryFactory.delete(member).where(where).execute();
+            if (failOnce.getAndSet(false)) {
+                throw new IllegalStateException("boom");
+            }
+            return deleted;
+        });
+
+        var checkpoint = executor.plan(mutation, 5);
+        assertEquals(4, checkpoint.getTotalChunks());
+
+        var exception = assertThrows(BulkMutationException.class,
+                                     () -> executor.resume(mutation, checkpoint, BulkOptions.defaults()));
+        assertSame(checkpoint, exception.getCheckpoint());
+        assertFalse(checkpoint.isComplete());
+
+        executor.resume(mutation, checkpoint, BulkOptions.defaults());
+
+        assertTrue(checkpoint.isComplete());
+        assertEquals(20, checkpoint.getAffectedRows());
+        var remaining = tx.execute(status -> queryFactory.select(member.count()).from(member).fetchOne());
+        assertEquals(5, remaining);
+    }
+
+    @Test
+    void testRejectInsideTransaction() {
+        var mutation = BulkMutation.delete(member, member.id, member.age.gt(5));
+
+        assertThrows(IllegalStateException.class,
+                     () -> tx.executeWithoutResult(status -> executor.execute(mutation, BulkOptions.defaults())));
+    }
+}
@@ -0,0 +1,102 @@
+package com.jpastudy.querydsl.cache;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.repository.MemberLookupRepository;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"jpastudy.cache.enabled=true", "jpastudy.cache.statistics=true"})
+@Transactional
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    SecondLevelCacheMetrics metrics;
+    @Autowired
+    MemberLookupRepository memberLookupRepository;
+
+    Team teamA;
+
+    @BeforeEach
+    void setUp() {
+        teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testTeamIsCached() {
+        var before = metrics.region("team");
+
+        em.find(Team.class, teamA.getId());
+        em.clear();
+        em.find(Team.class, teamA.getId());
+
+        var after = metrics.region("team");
+        assertEquals(1, after.getHits() - before.getHits());
+    }
+
+    @Test
+    void testTeamMembersIsCached() {
+        em.find(Team.class, teamA.getId()).getMembers().size();
+        em.clear();
+
+        var before = metrics.region("team-members");
+        var members = em.find(Team.class, teamA.getId()).getMembers();
+        assertEquals(2, members.size());
+
+        assertEquals(1, metrics.region("team-members").getHits() - before.getHits());
+    }
+
+    /**
+     * 벌크 update 는 영속성 컨텍스트는 건너뛰지만 2차 캐시 region 은 비운다
+     */
+    @Test
+    void testBulkUpdateEvictsRegion() {
+        em.find(Team.class, teamA.getId());
+        em.clear();
+
+        var count = queryFactory.update(team)
+                                .set(team.name, "teamZ")
+                                .where(team.name.eq("teamA"))
+                                .execute();
+        assertEquals(1, count);
+
+        var before = metrics.region("team");
+        var reloaded = em.find(Team.class, teamA.getId());
+
+        assertEquals("teamZ", reloaded.getName());
+        assertEquals(0, metrics.region("team").getHits() - before.getHits());
+    }
+
+    @Test
+    void testBulkDeleteEvictsRegion() {
+        var member1 = memberLookupRepository.findByUsername("member1");
+        em.clear();
+
+        queryFactory.delete(member)
+                    .where(member.username.eq("member1"))
+                    .execute();
+
+        assertNull(em.find(Member.class, member1.getId()));
+        assertNull(memberLookupRepository.findByUsername("member1"));
+        assertNotNull(memberLookupRepository.findByUsername("member2"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.jpastudy.querydsl.controller;
+
+import com.jpastudy.querydsl.service.QueryExecutor;
+import com.jpastudy.querydsl.service.QueryRejectedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberSearchControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @MockBean
+    QueryExecutor queryExecutor;
+
+    /**
+     * 커서는 조회 스레드에서 풀리므로 비동기 dispatch 에서 400 이 된다
+     */
+    @Test
+    void testInvalidCursorIsBadRequest() throws Exception {
+        when(queryExecutor.submit(any())).thenAnswer(
+                invocation -> CompletableFuture.supplyAsync(invocation.<Supplier<?>>getArgument(0)));
+
+        var result = mockMvc.perform(get("/v1/members").param("cursor", "not-a-cursor"))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isBadRequest())
+               .andExpect(jsonPath("$.status").value(400))
+               .andExpect(jsonPath("$.message").value("invalid cursor"));
+    }
+
+    @Test
+    void testRejectedQueryIsServiceUnavailable() throws Exception {
+        when(queryExecutor.submit(any())).thenThrow(new QueryRejectedException());
+
+        mockMvc.perform(get("/v1/members"))
+               .andExpect(status().isServiceUnavailable())
+               .andExpect(header().string("Retry-After", "1"))
+               .andExpect(jsonPath("$.status").value(503));
+    }
+}
@@ -0,0 +1,203 @@
+package com.jpastudy.querydsl.datasource;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.query.ReadOnlyJPAQueryFactory;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 서로 다른 H2 메모리 DB 세 개를 primary / replica 로 쓴다
+ * <p>
+ * primary 를 SCRIPT 로 떠서 replica 에 넣은 뒤 replica 마다 username 을 자기 이름으로 바꿔 어디서 읽었는지 구분한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "jpastudy.datasource.replicas[0].name=replica1",
+        "jpastudy.datasource.replicas[0].url=jdbc:h2:mem:routing-replica1;DB_CLOSE_DELAY=-1",
+        "jpastudy.datasource.replicas[1].name=replica2",
+        "jpastudy.datasource.replicas[1].url=jdbc:h2:mem:routing-replica2;DB_CLOSE_DELAY=-1",
+        "jpastudy.datasource.lag-query=select ms from replica_lag",
+        "jpastudy.datasource.max-lag=1s",
+        "jpastudy.datasource.check-interval=0s"
+})
+class ReplicaRoutingTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    ReadOnlyJPAQueryFactory readOnlyQueryFactory;
+    @Autowired
+    ReplicaRouter router;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    TransactionTemplate tx;
+    TransactionTemplate readOnlyTx;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        tx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        tx.executeWithoutResult(status -> {
+            var teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+        });
+        replicate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void testWritesAndReadWriteTransactionsUsePrimary() {
+        assertEquals("member1", tx.execute(status -> username()));
+        assertEquals("member1", username());
+    }
+
+    @Test
+    void testReadOnlyTransactionsRoundRobin() {
+        var seen = new HashSet<String>();
+        for (int i = 0; i < 4; i++) {
+            seen.add(readOnlyTx.execute(status -> username()));
+        }
+        assertEquals(Set.of("replica1", "replica2"), seen);
+    }
+
+    @Test
+    void testReadOnlyQueryFactory() {
+        var username = readOnlyQueryFactory.select(member.username).from(member).fetchOne();
+        assertTrue(username.startsWith("replica"), username);
+
+        // 쓰기 트랜잭션 안에서는 참여해서 primary 를 읽는다
+        assertEquals("member1", tx.execute(status -> readOnlyQueryFactory.select(member.username)
+                                                                       .from(member)
+                                                                       .fetchOne()));
+        assertThrows(UnsupportedOperationException.class, () -> readOnlyQueryFactory.delete(member));
+        assertThrows(UnsupportedOperationException.class, () -> readOnlyQueryFactory.update(member));
+        assertThrows(UnsupportedOperationException.class, () -> readOnlyQueryFactory.insert(member));
+    }
+
+    /**
+     * 바깥 트랜잭션이 없으면 fetch 가 끝날 때 영속성 컨텍스트도 닫혀 지연 로딩 연관을 읽을 수 없다
+     */
+    @Test
+    void testReadOnlyEntitiesAreDetachedOutsideTransaction() {
+        var found = readOnlyQueryFactory.selectFrom(member).where(member.team.isNotNull()).fetchFirst();
+
+        assertNotNull(found);
+        assertThrows(LazyInitializationException.class, () -> found.getTeam().getName());
+    }
+
+    @Test
+    void testLaggingReplicaIsSkipped() throws SQLException {
+        setLag("replica1", 5_000);
+        router.checkReplicas();
+
+        assertFalse(replica("replica1").isAvailable());
+        assertEquals(5_000, replica("replica1").getLagMillis());
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica2", readOnlyTx.execute(status -> username()));
+        }
+
+        setLag("replica1", 0);
+        router.checkReplicas();
+        assertTrue(replica("replica1").isAvailable());
+    }
+
+    @Test
+    void testFallbackToPrimary() throws SQLException {
+        setLag("replica1", 5_000);
+        setLag("replica2", 5_000);
+        router.checkReplicas();
+        var fallbacks = router.getPrimaryFallbackCount();
+
+        assertEquals("member1", readOnlyTx.execute(status -> username()));
+        assertEquals(fallbacks + 1, router.getPrimaryFallbackCount());
+    }
+
+    @Test
+    void testBalancingOrder() {
+        var fast = new Replica("fast", null);
+        var slow = new Replica("slow", null);
+        fast.update(1_000, 0, true);
+        slow.update(9_000, 0, true);
+        var replicas = List.of(slow, fast);
+
+        assertEquals(List.of(slow, fast), ReplicaBalancing.ROUND_ROBIN.order(replicas, 0));
+        assertEquals(List.of(fast, slow), ReplicaBalancing.ROUND_ROBIN.order(replicas, 1));
+        assertEquals(List.of(fast, slow), ReplicaBalancing.LEAST_LATENCY.order(replicas, 0));
+        assertEquals(List.of(fast, slow), ReplicaBalancing.LEAST_LATENCY.order(replicas, 1));
+    }
+
+    private String username() {
+        return queryFactory.select(member.username).from(member).fetchOne();
+    }
+
+    private Replica replica(String name) {
+        return router.getReplicas().stream()
+                     .filter(replica -> replica.getName().equals(name))
+                     .findFirst()
+                     .orElseThrow();
+    }
+
+    /**
+     * 복제 대신 primary 를 통째로 떠서 replica 에 다시 만든다
+     */
+    private void replicate() throws SQLException {
+        var dump = dir.resolve("primary.sql").toAbsolutePath().toString().replace("'", "''");
+        try (var connection = router.getPrimary().getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute("script to '" + dump + "'");
+        }
+        for (var replica : router.getReplicas()) {
+            try (var connection = replica.getDataSource().getConnection();
+                 var statement = connection.createStatement()) {
+                statement.execute("drop all objects");
+                statement.execute("runscript from '" + dump + "'");
+                statement.execute("create table replica_lag (ms bigint)");
+                statement.execute("insert into replica_lag values (0)");
+                statement.execute("update member set username = '" + replica.getName() + "'");
+            }
+        }
+        router.checkReplicas();
+    }
+
+    private void setLag(String name, long millis) throws SQLException {
+        try (var connection = replica(name).getDataSource().getConnection();
+             var statement = connection.createStatement()) {
+            statement.executeUpdate("update replica_lag set ms = " + millis);
+        }
+    }
+}
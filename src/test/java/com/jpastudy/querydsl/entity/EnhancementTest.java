@@ -0,0 +1,75 @@
+package com.jpastudy.querydsl.entity;
+
+import com.jpastudy.querydsl.Hello;
+import com.jpastudy.querydsl.jdbc.StatementScope;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 빌드에서 바이트코드 향상을 끄면 (-Phibernate.enhance=false) 건너뛴다
+ */
+@SpringBootTest
+@Transactional
+class EnhancementTest {
+
+    @Autowired
+    EntityManager em;
+
+    Long memberId;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(ManagedEntity.class.isAssignableFrom(Member.class), "entities are not enhanced");
+
+        var team = new Team("teamA");
+        em.persist(team);
+        var member = new Member("member1", 10, team);
+        member.setProfile("x".repeat(10_000));
+        em.persist(member);
+        memberId = member.getId();
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testEnhancedEntities() {
+        for (Class<?> type : List.of(Member.class, Team.class, Hello.class)) {
+            assertTrue(SelfDirtinessTracker.class.isAssignableFrom(type), type.getName());
+        }
+    }
+
+    @Test
+    void testInlineDirtyTracking() {
+        var member = em.find(Member.class, memberId);
+        var tracker = (SelfDirtinessTracker) member;
+        assertFalse(tracker.$$_hibernate_hasDirtyAttributes());
+
+        member.setAge(20);
+
+        assertArrayEquals(new String[]{"age"}, tracker.$$_hibernate_getDirtyAttributes());
+    }
+
+    @Test
+    void testLazyProfile() {
+        var member = em.find(Member.class, memberId);
+        assertFalse(Hibernate.isPropertyInitialized(member, "profile"));
+
+        try (var scope = StatementScope.open()) {
+            assertEquals(10_000, member.getProfile().length());
+            assertEquals(1, scope.getStatementCount());
+        }
+        assertTrue(Hibernate.isPropertyInitialized(member, "profile"));
+    }
+}
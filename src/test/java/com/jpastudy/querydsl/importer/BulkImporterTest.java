@@ -0,0 +1,200 @@
+package com.jpastudy.querydsl.importer;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.stats.TeamStatsRepository;
+import com.jpastudy.querydsl.text.TextSearch;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * importer 가 직접 커밋하므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+ */
+@SpringBootTest
+class BulkImporterTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    BulkImporter importer;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    TextSearch textSearch;
+    @Autowired
+    TeamStatsRepository teamStats;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> em.persist(new Team("teamA")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    void testImportCsv() {
+        var csv = "username,age,teamName\n"
+                + "member1,10,teamA\n"
+                + "\"kim, \"\"junior\"\"\",20,teamB\n"
+                + "member3,30,\n"
+                + "member4,40,teamB\n";
+
+        var report = importer.importMembers(new StringReader(csv), ImportFormat.CSV, 2);
+
+        assertEquals(4, report.getRows());
+        assertEquals(1, report.getCreatedTeams());
+        assertTrue(report.getPeakHeapBytes() > 0);
+
+        var teamB = tx.execute(status -> queryFactory.selectFrom(team).where(team.name.eq("teamB")).fetchOne());
+        assertNotNull(teamB);
+        var members = tx.execute(status -> queryFactory.select(member.username)
+                                                       .from(member)
+                                                       .where(member.team.id.eq(teamB.getId()))
+                                                       .orderBy(member.age.asc())
+                                                       .fetch());
+        assertEquals(2, members.size());
+        assertEquals("kim, \"junior\"", members.get(0));
+        var noTeam = tx.execute(status -> queryFactory.selectFrom(member)
+                                                      .where(member.team.isNull())
+                                                      .fetchOne());
+        assertEquals("member3", noTeam.getUsername());
+    }
+
+    @Test
+    void testImportJsonLines() {
+        var teams = "{\"name\":\"teamA\"}\n{\"name\":\"teamC\"}\n";
+        var members = "{\"username\":\"member1\",\"age\":10,\"teamName\":\"teamC\"}\n"
+                + "{\"username\":\"member2\",\"age\":20,\"teamName\":null}\n";
+
+        var teamReport = importer.importTeams(new StringReader(teams), ImportFormat.JSON_LINES);
+        var memberReport = importer.importMembers(new StringReader(members), ImportFormat.JSON_LINES);
+
+        assertEquals(1, teamReport.getCreatedTeams());
+        assertEquals(2, memberReport.getRows());
+        assertEquals(0, memberReport.getCreatedTeams());
+        var teamName = tx.execute(status -> queryFactory.select(member.team.name)
+                                                        .from(member)
+                                                        .where(member.username.eq("member1"))
+                                                        .fetchOne());
+        assertEquals("teamC", teamName);
+    }
+
+    /**
+     * 적재한 id 와 JPA 로 저장한 id 가 같은 시퀀스 블록을 쓰지 않아야 한다
+     */
+    @Test
+    void testIdsDoNotCollideWithPersist() {
+        var csv = new StringBuilder("username,age,teamName\n");
+        for (int i = 0; i < 250; i++) {
+            csv.append("bulk").append(i).append(',').append(i).append(",teamA\n");
+        }
+
+        importer.importMembers(new StringReader(csv.toString()), ImportFormat.CSV, 100);
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < 250; i++) {
+                em.persist(new Member("jpa" + i, i));
+            }
+        });
+
+        var count = tx.execute(status -> queryFactory.select(member.count()).from(member).fetchOne());
+        assertEquals(500, count);
+    }
+
+    @Test
+    void testCsvRead(@TempDir Path dir) throws Exception {
+        var file = dir.resolve("members.csv");
+        Files.writeString(file, "username,age,teamName\nmember1,10,teamA\nmember2,20,teamD\nmember3,30,\n");
+
+        var report = importer.importMembersWithCsvRead(file);
+
+        assertEquals(3, report.getRows());
+        assertEquals(1, report.getCreatedTeams());
+        var teamName = tx.execute(status -> queryFactory.select(member.team.name)
+                                                        .from(member)
+                                                        .where(member.username.eq("member2"))
+                                                        .fetchOne());
+        assertEquals("teamD", teamName);
+    }
+
+    /**
+     * 적재가 끝나면 n-gram 색인을 다시 만들어 적재한 회원과 팀이 검색된다
+     */
+    @Test
+    void testSearchAfterImport() {
+        var csv = "username,age,teamName\n"
+                + "Kimchi,10,Development\n"
+                + "maximum,20,teamA\n";
+
+        importer.importMembers(new StringReader(csv), ImportFormat.CSV);
+
+        var usernames = tx.execute(status -> queryFactory.select(member.username)
+                                                         .from(member)
+                                                         .where(textSearch.usernameContains(member, "xim"))
+                                                         .fetch());
+        assertEquals(List.of("maximum"), usernames);
+        var teamNames = tx.execute(status -> queryFactory.select(team.name)
+                                                         .from(team)
+                                                         .where(textSearch.nameStartsWith(team, "devel"))
+                                                         .fetch());
+        assertEquals(List.of("Development"), teamNames);
+    }
+
+    /**
+     * 적재가 끝나면 적재한 행과 그 팀만 반영한다. 이벤트를 거치지 않고 들어간 다른 행은 색인하거나 집계하지 않는다
+     */
+    @Test
+    void testAfterImportTouchesOnlyImportedRows() {
+        tx.executeWithoutResult(status -> em.createNativeQuery(
+                "insert into member (member_id, username, age, team_id)"
+                        + " select -1, 'ghost', 99, team_id from team where name = 'teamA'").executeUpdate());
+        var csv = "username,age,teamName\n"
+                + "maximum,20,teamB\n";
+
+        importer.importMembers(new StringReader(csv), ImportFormat.CSV);
+
+        var usernames = tx.execute(status -> queryFactory.select(member.username)
+                                                         .from(member)
+                                                         .where(textSearch.usernameContains(member, "gho")
+                                                                           .or(textSearch.usernameContains(member, "xim")))
+                                                         .fetch());
+        assertEquals(List.of("maximum"), usernames);
+        var stats = teamStats.aggregateByTeamName();
+        assertEquals(1, stats.size());
+        assertEquals("teamB", stats.get(0).getTeamName());
+        assertEquals(1, stats.get(0).getCount());
+    }
+
+    @Test
+    void testRejectInvalidBatchSize() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> importer.importMembers(new StringReader(""), ImportFormat.CSV, 0));
+    }
+}
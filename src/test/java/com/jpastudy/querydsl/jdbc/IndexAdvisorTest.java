@@ -0,0 +1,87 @@
+package com.jpastudy.querydsl.jdbc;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.List;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "jpastudy.index-advisor.enabled=true")
+@Transactional
+class IndexAdvisorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    IndexAdvisor advisor;
+
+    @BeforeEach
+    void setUp() {
+        var teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+        advisor.clear();
+    }
+
+    @Test
+    void testIndexedQueriesHaveNoAdvice() {
+        queryFactory.selectFrom(member).where(member.username.eq("member1")).fetch();
+        queryFactory.selectFrom(member).where(member.age.between(10, 20)).orderBy(member.username.desc()).fetch();
+        queryFactory.selectFrom(team).where(team.name.eq("teamA")).fetch();
+
+        assertEquals(List.of(), advisor.advise());
+    }
+
+    /**
+     * 서로 다른 컬럼의 OR 은 H2 가 인덱스를 쓰지 못한다
+     */
+    @Test
+    void testReportTableScan() {
+        queryFactory.selectFrom(member).where(member.username.eq("member1").or(member.age.eq(20))).fetch();
+
+        var advice = advisor.advise();
+
+        assertEquals(1, advice.size());
+        assertEquals("member", advice.get(0).getTable());
+        assertTrue(advice.get(0).getColumns().containsAll(List.of("username", "age")));
+    }
+
+    @Test
+    void testSuggestColumns() {
+        var sql = "/* select m from Member m */ select member0_.member_id as member_i1_1_ from member member0_"
+                + " cross join team team1_"
+                + " where member0_.age between 10 and 20 and member0_.team_id=3 and member0_.username=team1_.name"
+                + " order by member0_.username desc";
+        var plan = "SELECT ... FROM \"PUBLIC\".\"MEMBER\" \"MEMBER0_\" /* PUBLIC.MEMBER.tableScan */"
+                + " INNER JOIN \"PUBLIC\".\"TEAM\" \"TEAM1_\" /* PUBLIC.TEAM.tableScan */";
+
+        var advice = IndexAdvisor.analyze(sql, plan);
+
+        assertEquals(2, advice.size());
+        assertEquals(List.of("team_id", "username", "age"), advice.get(0).getColumns());
+        assertEquals("member(team_id, username, age)", advice.get(0).getDdlHint());
+        assertEquals(List.of("name"), advice.get(1).getColumns());
+    }
+
+    @Test
+    void testNoAdviceWithoutPredicate() {
+        var plan = "SELECT ... FROM \"PUBLIC\".\"MEMBER\" \"MEMBER0_\" /* PUBLIC.MEMBER.tableScan */";
+
+        assertEquals(List.of(), IndexAdvisor.analyze("select member0_.member_id from member member0_", plan));
+    }
+}
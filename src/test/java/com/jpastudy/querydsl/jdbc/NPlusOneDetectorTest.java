@@ -0,0 +1,97 @@
+package com.jpastudy.querydsl.jdbc;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class NPlusOneDetectorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    NPlusOneDetector detector;
+
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        var teams = new ArrayList<Team>();
+        for (int i = 0; i < 10; i++) {
+            var team = new Team("team" + i);
+            em.persist(team);
+            teams.add(team);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            var member = new Member("member" + i, i % 100, teams.get(i % 10));
+            em.persist(member);
+            memberIds.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * 회원 1,000명과 각 팀, 팀의 회원 컬렉션까지 접근해도 배치 페치로 문장 수가 일정하다
+     */
+    @Test
+    void testBatchFetchTeamAndMembers() {
+        try (var scope = detector.open("batch fetch", 1, NPlusOneDetector.Mode.FAIL)) {
+            var members = queryFactory.selectFrom(member).fetch();
+
+            var teams = new HashSet<Team>();
+            for (Member m : members) {
+                assertNotNull(m.getTeam().getName());
+                teams.add(m.getTeam());
+            }
+            var total = teams.stream()
+                             .mapToInt(team -> team.getMembers().size())
+                             .sum();
+
+            assertEquals(1_000, members.size());
+            assertEquals(1_000, total);
+            assertEquals(3, scope.getStatementCount());
+        }
+    }
+
+    @Test
+    void testDetectRepeatedStatements() {
+        var scope = detector.open("repeated", 10, NPlusOneDetector.Mode.FAIL);
+        for (Long id : memberIds.subList(0, 20)) {
+            queryFactory.selectFrom(member)
+                        .where(member.id.eq(id))
+                        .fetchOne();
+        }
+
+        var exception = assertThrows(NPlusOneDetectedException.class, scope::close);
+        assertEquals(20, exception.getRepeatedShapes().values().iterator().next());
+    }
+
+    @Test
+    void testNestedScope() {
+        try (var outer = StatementScope.open()) {
+            try (var inner = StatementScope.open()) {
+                queryFactory.selectFrom(member).where(member.id.eq(memberIds.get(0))).fetchOne();
+                assertEquals(1, inner.getStatementCount());
+            }
+            queryFactory.selectFrom(member).where(member.id.eq(memberIds.get(1))).fetchOne();
+            assertEquals(2, outer.getStatementCount());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.jpastudy.querydsl.metrics;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.query.CachingJPAQueryFactory;
+import com.jpastudy.querydsl.query.JpqlShapeCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+import java.time.Duration;
+import java.util.List;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+
+    SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+
+        var teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+    }
+
+    @Test
+    void testRecordsPerCallSite() {
+        var queryFactory = factory(1.0, Duration.ZERO, 10);
+
+        var members = queryFactory.selectFrom(member).fetch();
+        queryFactory.selectFrom(member).fetch();
+        var count = queryFactory.select(member.count()).from(member).fetchOne();
+
+        assertEquals(3, members.size());
+        assertEquals(3L, count);
+        var fetches = registry.find("querydsl.query").tag("operation", "fetch").timers();
+        // 호출 위치(줄)마다 따로 잡힌다
+        assertEquals(2, fetches.size());
+        for (Timer timer : fetches) {
+            assertTrue(callSite(timer).startsWith("QueryMetricsTest.testRecordsPerCallSite:"), callSite(timer));
+            assertEquals(1, timer.count());
+        }
+
+        assertEquals(6, total("querydsl.query.rows", "fetch"));
+        assertEquals(1, total("querydsl.query.rows", "fetchOne"));
+        assertTrue(total("querydsl.query.statements", "fetch") >= 2);
+        // team 1 + member 3
+        assertEquals(4, summary("querydsl.query.persistence-context", "fetch").max());
+    }
+
+    @Test
+    void testSlowQueryCapturesJpqlAndBindings() {
+        var metrics = new QueryMetrics(registry, emf, 0, Duration.ofNanos(1), 10, 10, true);
+        var queryFactory = new CachingJPAQueryFactory(em, new JpqlShapeCache(100), metrics);
+
+        queryFactory.selectFrom(member)
+                    .where(member.username.eq("member1"), member.age.gt(5))
+                    .fetch();
+
+        // 뽑히지 않았어도 느린 쿼리는 남는다
+        assertEquals(0, registry.find("querydsl.query").timer().count());
+        var slowQueries = metrics.getSlowQueries();
+        assertEquals(1, slowQueries.size());
+        var slow = slowQueries.get(0);
+        assertEquals("fetch", slow.getOperation());
+        assertEquals(1, slow.getRows());
+        assertTrue(slow.getCallSite().startsWith("QueryMetricsTest.testSlowQueryCapturesJpqlAndBindings:"));
+        assertTrue(slow.getJpql().contains("member1.username = ?1"), slow.getJpql());
+        assertEquals(List.of("member1", "5"), slow.getBindings());
+        assertEquals(1, registry.find("querydsl.query.slow").counter().count());
+
+        metrics.clearSlowQueries();
+        assertTrue(metrics.getSlowQueries().isEmpty());
+    }
+
+    /**
+     * includeBindings 를 켜지 않으면 바인딩 값은 개수만 남는다
+     */
+    @Test
+    void testSlowQueryMasksBindingsByDefault() {
+        var metrics = metrics(0, Duration.ofNanos(1), 10);
+        var queryFactory = new CachingJPAQueryFactory(em, new JpqlShapeCache(100), metrics);
+
+        queryFactory.selectFrom(member)
+                    .where(member.username.eq("member1"), member.age.gt(5))
+                    .fetch();
+
+        var slow = metrics.getSlowQueries().get(0);
+        assertTrue(slow.getJpql().contains("member1.username = ?1"), slow.getJpql());
+        assertEquals(List.of(QueryMetrics.MASKED_BINDING, QueryMetrics.MASKED_BINDING), slow.getBindings());
+    }
+
+    @Test
+    void testUpdateExecute() {
+        var queryFactory = factory(1.0, Duration.ZERO, 10);
+
+        var affected = queryFactory.update(member)
+                                   .set(member.age, member.age.add(1))
+                                   .where(member.age.goe(20))
+                                   .execute();
+
+        assertEquals(2, affected);
+        assertEquals(2, total("querydsl.query.rows", "update"));
+    }
+
+    @Test
+    void testSamplingAndCallSiteLimit() {
+        factory(0, Duration.ZERO, 10).selectFrom(member).fetch();
+        assertTrue(registry.getMeters().isEmpty());
+
+        var queryFactory = factory(1.0, Duration.ZERO, 1);
+        queryFactory.selectFrom(member).fetch();
+        queryFactory.selectFrom(member).fetch();
+
+        var sites = registry.find("querydsl.query").timers().stream().map(this::callSite).sorted();
+        assertEquals(QueryMetrics.OTHER_CALL_SITE, sites.reduce((first, second) -> second).orElseThrow());
+    }
+
+    private CachingJPAQueryFactory factory(double sampleRate, Duration slowThreshold, int maxCallSites) {
+        return new CachingJPAQueryFactory(em, new JpqlShapeCache(100),
+                                          metrics(sampleRate, slowThreshold, maxCallSites));
+    }
+
+    private QueryMetrics metrics(double sampleRate, Duration slowThreshold, int maxCallSites) {
+        return new QueryMetrics(registry, emf, sampleRate, slowThreshold, 10, maxCallSites);
+    }
+
+    private DistributionSummary summary(String name, String operation) {
+        var summary = registry.find(name).tag("operation", operation).summary();
+        assertNotNull(summary, name + " " + operation);
+        return summary;
+    }
+
+    private double total(String name, String operation) {
+        return registry.find(name).tag("operation", operation).summaries().stream()
+                       .mapToDouble(DistributionSummary::totalAmount)
+                       .sum();
+    }
+
+    private String callSite(Meter meter) {
+        return meter.getId().getTag("call.site");
+    }
+}
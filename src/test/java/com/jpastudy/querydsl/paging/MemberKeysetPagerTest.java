@@ -0,0 +1,101 @@
+package com.jpastudy.querydsl.paging;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberKeysetPagerTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberKeysetPager pager;
+
+    @BeforeEach
+    void setUp() {
+        var teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member2", 30, teamA));
+        em.persist(new Member("member3", 40));
+        em.persist(new Member(null, 100));
+        em.persist(new Member(null, 100));
+        em.persist(new Member("member4", 100));
+    }
+
+    /**
+     * 커서로 끝까지 넘긴 결과가 offset 없이 한 번에 정렬한 결과와 같아야 한다
+     */
+    @ParameterizedTest
+    @EnumSource(KeysetSort.class)
+    void testWalkAllPages(KeysetSort sort) {
+        var expected = queryFactory.selectFrom(member)
+                                   .orderBy(MemberKeysetPager.orderBy(sort))
+                                   .fetch();
+
+        var walked = new ArrayList<Member>();
+        String cursor = null;
+        do {
+            var page = pager.fetchPage(null, cursor, 2, sort);
+            assertTrue(page.getContent().size() <= 2);
+            walked.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    void testNullsLast() {
+        var page = pager.fetchPage(member.age.eq(100), null, 10, KeysetSort.ASC_NULLS_LAST);
+
+        List<Member> content = page.getContent();
+        assertAll(() -> assertEquals("member4", content.get(0).getUsername()),
+                  () -> assertNull(content.get(1).getUsername()),
+                  () -> assertNull(content.get(2).getUsername()),
+                  () -> assertFalse(page.hasNext()));
+    }
+
+    @Test
+    void testTeamPage() {
+        var first = pager.fetchTeamPage(team.name.eq("teamA"), null, 2, KeysetSort.DESC_NULLS_LAST);
+        var second = pager.fetchTeamPage(team.name.eq("teamA"), first.getNextCursor(), 2, KeysetSort.DESC_NULLS_LAST);
+
+        assertEquals("member2", first.getContent().get(0).getUsername());
+        assertEquals("teamA", first.getContent().get(0).getTeamName());
+        assertEquals(1, second.getContent().size());
+        assertEquals("member1", second.getContent().get(0).getUsername());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void testCursorRoundTrip() {
+        var withName = new KeysetCursor("member:1", 7L);
+        var withNull = new KeysetCursor(null, 8L);
+
+        assertEquals(withName, KeysetCursor.decode(withName.encode()));
+        assertEquals(withNull, KeysetCursor.decode(withNull.encode()));
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.decode("not-a-cursor"));
+    }
+}
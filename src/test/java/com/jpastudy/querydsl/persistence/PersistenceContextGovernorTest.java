@@ -0,0 +1,191 @@
+package com.jpastudy.querydsl.persistence;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.query.ReadOnlyJPAQueryFactory;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.List;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class PersistenceContextGovernorTest {
+
+    static final int PAGE_SIZE = 10;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    ReadOnlyJPAQueryFactory readOnlyQueryFactory;
+    @Autowired
+    PersistenceContextGovernor governor;
+
+    Long teamId;
+    Long hotId;
+
+    /**
+     * member0..member49 와 자주 꺼내 보는 hot 회원
+     */
+    @BeforeEach
+    void setUp() {
+        var team = new Team("teamA");
+        em.persist(team);
+        teamId = team.getId();
+        for (int i = 0; i < 50; i++) {
+            em.persist(new Member("member" + i, i, team));
+        }
+        var hot = new Member("hot", 0);
+        em.persist(hot);
+        hotId = hot.getId();
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testFlushAndClear() {
+        try (var scope = governor.open(15, EvictionPolicy.FLUSH_CLEAR)) {
+            long lastId = 0;
+            for (List<Member> page = page(lastId); !page.isEmpty(); page = page(lastId)) {
+                for (Member m : page) {
+                    m.setAge(m.getAge() + 100);
+                    lastId = m.getId();
+                }
+                scope.checkpoint();
+                assertTrue(em.unwrap(Session.class).getStatistics().getEntityCount() <= 15);
+            }
+
+            assertEquals(2, scope.getClearCount());
+            assertEquals(20, scope.getPeakEntities());
+        }
+
+        em.flush();
+        em.clear();
+        assertEquals(50, queryFactory.selectFrom(member).where(member.age.goe(100)).fetch().size());
+    }
+
+    @Test
+    void testDetachLeastRecentlyUsed() {
+        Member first = null;
+        var hot = em.find(Member.class, hotId);
+        try (var scope = governor.open(20, EvictionPolicy.DETACH_LRU)) {
+            long lastId = 0;
+            for (List<Member> page = page(lastId); !page.isEmpty(); page = page(lastId)) {
+                if (first == null) {
+                    first = page.get(0);
+                }
+                assertSame(hot, em.find(Member.class, hotId));
+                hot.setAge(hot.getAge() + 1);
+                lastId = page.get(page.size() - 1).getId();
+                scope.checkpoint();
+            }
+
+            assertTrue(scope.getDetachedCount() > 0);
+            assertEquals(0, scope.getClearCount());
+        }
+
+        assertTrue(em.contains(hot));
+        assertFalse(em.contains(first));
+        assertTrue(em.unwrap(Session.class).getStatistics().getEntityCount() <= 20 + PAGE_SIZE);
+    }
+
+    @Test
+    void testCheckpointWithoutQueries() {
+        try (var scope = governor.open(20, EvictionPolicy.FLUSH_CLEAR)) {
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("new" + i, i, em.getReference(Team.class, teamId)));
+                scope.checkpoint();
+            }
+            // 회원 20 + 팀 1
+            assertTrue(scope.getPeakEntities() <= 21, "peak: " + scope.getPeakEntities());
+        }
+        em.flush();
+        assertEquals(100, queryFactory.selectFrom(member).where(member.username.startsWith("new")).fetch().size());
+    }
+
+    /**
+     * 쿼리 실행 중에는 한도를 넘어도 비우지 않는다
+     */
+    @Test
+    void testQueriesDoNotEvict() {
+        try (var scope = governor.open(5, EvictionPolicy.FLUSH_CLEAR)) {
+            var first = page(0);
+            first.get(0).setAge(999);
+            page(first.get(first.size() - 1).getId());
+
+            assertTrue(em.contains(first.get(0)));
+            assertEquals(0, scope.getClearCount());
+        }
+    }
+
+    /**
+     * MANUAL 에서는 flush 할 수 없으므로 남은 변경을 버리지 않고 거부한다. 변경이 없으면 비운다
+     */
+    @Test
+    void testManualFlushMode() {
+        var session = em.unwrap(Session.class);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        try (var scope = governor.open(5, EvictionPolicy.FLUSH_CLEAR)) {
+            var page = page(0);
+            scope.checkpoint();
+            assertFalse(em.contains(page.get(0)));
+
+            page = page(0);
+            page.get(0).setAge(999);
+            assertThrows(IllegalStateException.class, scope::checkpoint);
+            assertTrue(em.contains(page.get(0)));
+
+            em.flush();
+            scope.checkpoint();
+            assertEquals(2, scope.getClearCount());
+        } finally {
+            session.setHibernateFlushMode(FlushMode.AUTO);
+        }
+        assertEquals(999, queryFactory.select(member.age).from(member).where(member.username.eq("member0")).fetchOne());
+    }
+
+    @Test
+    void testNoScopeKeepsEverything() {
+        long lastId = 0;
+        for (List<Member> page = page(lastId); !page.isEmpty(); page = page(lastId)) {
+            lastId = page.get(page.size() - 1).getId();
+        }
+        assertEquals(50, em.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    void testReadOnlyQueryFactoryLoadsWithoutSnapshots() {
+        var members = readOnlyQueryFactory.selectFrom(member)
+                                          .where(member.username.startsWith("member"))
+                                          .fetch();
+        var session = em.unwrap(Session.class);
+        for (Member m : members) {
+            assertTrue(session.isReadOnly(m));
+            m.setAge(999);
+        }
+
+        em.flush();
+        em.clear();
+        assertTrue(queryFactory.selectFrom(member).where(member.age.eq(999)).fetch().isEmpty());
+    }
+
+    private List<Member> page(long lastId) {
+        return queryFactory.selectFrom(member)
+                           .where(member.username.startsWith("member"), member.id.gt(lastId))
+                           .orderBy(member.id.asc())
+                           .limit(PAGE_SIZE)
+                           .fetch();
+    }
+}
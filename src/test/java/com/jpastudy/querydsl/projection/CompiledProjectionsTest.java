@@ -0,0 +1,97 @@
+package com.jpastudy.querydsl.projection;
+
+import com.jpastudy.querydsl.dto.MemberDto;
+import com.jpastudy.querydsl.dto.UserDto;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.QMember;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class CompiledProjectionsTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    void setUp() {
+        var teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member(null, 30, teamA));
+    }
+
+    @Test
+    void testBeanSameAsReflection() {
+        var expected = queryFactory.select(Projections.bean(MemberDto.class, member.username, member.age))
+                                   .from(member)
+                                   .orderBy(member.age.asc())
+                                   .fetch();
+        var result = queryFactory.select(CompiledProjections.bean(MemberDto.class, member.username, member.age))
+                                 .from(member)
+                                 .orderBy(member.age.asc())
+                                 .fetch();
+
+        assertEquals(expected, result);
+        assertNull(result.get(2).getUsername());
+    }
+
+    @Test
+    void testFieldsWithAlias() {
+        var memberSub = new QMember("memberSub");
+        var result = queryFactory.select(CompiledProjections.fields(UserDto.class,
+                                                                    member.username.as("name"),
+                                                                    ExpressionUtils.as(JPAExpressions.select(memberSub.age.max())
+                                                                                                     .from(memberSub), "age")))
+                                 .from(member)
+                                 .orderBy(member.age.asc())
+                                 .fetch();
+
+        assertEquals(new UserDto("member1", 30), result.get(0));
+        assertEquals(3, result.size());
+    }
+
+    @Test
+    void testConstructor() {
+        var result = queryFactory.select(CompiledProjections.constructor(UserDto.class, member.username, member.age))
+                                 .from(member)
+                                 .where(member.username.eq("member2"))
+                                 .fetchOne();
+
+        assertEquals(new UserDto("member2", 20), result);
+    }
+
+    @Test
+    void testConstructorPrimitiveDefault() {
+        var projection = CompiledProjections.constructor(UserDto.class, member.username, member.age);
+
+        var values = new Object[]{"member1", null};
+
+        assertEquals(new UserDto("member1", 0), projection.newInstance(values));
+        assertArrayEquals(new Object[]{"member1", null}, values);
+    }
+
+    @Test
+    void testUnknownProperty() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> CompiledProjections.bean(UserDto.class, member.username, member.age));
+    }
+}
@@ -0,0 +1,110 @@
+package com.jpastudy.querydsl.query;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.QMember;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.List;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class CachingJPAQueryFactoryTest {
+
+    @Autowired
+    EntityManager em;
+    CachingJPAQueryFactory queryFactory;
+
+    @BeforeEach
+    void setUp() {
+        queryFactory = new CachingJPAQueryFactory(em, new JpqlShapeCache(100));
+
+        var teamA = new Team("teamA");
+        var teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    void testSameShapeDifferentConstants() {
+        var member1 = searchMember("member1", 10);
+        var member2 = searchMember("member2", 20);
+        var none = searchMember("member2", 10);
+
+        var cache = queryFactory.getCache();
+        assertEquals("member1", member1.get(0).getUsername());
+        assertEquals("member2", member2.get(0).getUsername());
+        assertTrue(none.isEmpty());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    void testSubQueryAndJoin() {
+        var memberSub = new QMember("memberSub");
+        for (var teamName : List.of("teamA", "teamB")) {
+            var result = queryFactory.selectFrom(member)
+                                     .join(member.team, team)
+                                     .where(team.name.eq(teamName),
+                                            member.age.goe(select(memberSub.age.avg())
+                                                                   .from(memberSub)
+                                                                   .where(memberSub.team.name.eq(teamName))))
+                                     .fetch();
+            assertEquals(1, result.size());
+        }
+        assertEquals(1, queryFactory.getCache().getHitCount());
+    }
+
+    /**
+     * select 절 case 의 상수는 리터럴로 직렬화될 수 있으므로 값이 다르면 다른 구조로 본다
+     */
+    @Test
+    void testProjectionLiteralsAreNotShared() {
+        var first = queryFactory.select(new CaseBuilder().when(member.age.lt(20)).then("young").otherwise("old"))
+                                .from(member)
+                                .where(member.username.eq("member1"))
+                                .fetchOne();
+        var second = queryFactory.select(new CaseBuilder().when(member.age.lt(20)).then("어림").otherwise("많음"))
+                                 .from(member)
+                                 .where(member.username.eq("member1"))
+                                 .fetchOne();
+
+        assertEquals("young", first);
+        assertEquals("어림", second);
+    }
+
+    @Test
+    void testLikeIsNotCachedButCorrect() {
+        assertEquals(4, queryFactory.selectFrom(member).where(member.username.contains("member")).fetch().size());
+        assertEquals(1, queryFactory.selectFrom(member).where(member.username.contains("3")).fetch().size());
+    }
+
+    @Test
+    void testCountQuery() {
+        assertEquals(2, queryFactory.select(member.count()).from(member).where(member.age.gt(20)).fetchOne());
+        assertEquals(3, queryFactory.select(member.count()).from(member).where(member.age.gt(10)).fetchOne());
+    }
+
+    private List<Member> searchMember(String username, int age) {
+        return queryFactory.selectFrom(member)
+                           .where(member.username.eq(username),
+                                  member.age.eq(age))
+                           .fetch();
+    }
+}
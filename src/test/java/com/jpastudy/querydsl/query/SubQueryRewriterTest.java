@@ -0,0 +1,171 @@
+package com.jpastudy.querydsl.query;
+
+import com.jpastudy.querydsl.dto.UserDto;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.QMember;
+import com.jpastudy.querydsl.entity.QTeam;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 바꾼 쿼리와 원래 쿼리의 결과가 같은지 비교한다
+ */
+@SpringBootTest
+@Transactional
+class SubQueryRewriterTest {
+
+    static final QMember memberSub = new QMember("memberSub");
+    static final QTeam teamSub = new QTeam("teamSub");
+
+    /**
+     * scalar / semiJoin 은 바뀌어야 하는 쿼리 수
+     */
+    enum Case {
+        SCALAR_EQ(1, 0, qf -> qf.selectFrom(member)
+                                .where(member.age.eq(select(memberSub.age.max()).from(memberSub)))
+                                .fetch()),
+        SCALAR_GOE_AVG(1, 0, qf -> qf.selectFrom(member)
+                                     .where(member.age.goe(select(memberSub.age.avg()).from(memberSub)))
+                                     .orderBy(member.age.asc())
+                                     .fetch()),
+        SCALAR_EMPTY(0, 0, qf -> qf.selectFrom(member)
+                                   .where(member.age.eq(select(memberSub.age.max())
+                                                                .from(memberSub)
+                                                                .where(memberSub.age.gt(100))))
+                                   .fetch()),
+        SELECT_SCALAR(1, 0, qf -> qf.select(member.username, select(memberSub.age.avg()).from(memberSub))
+                                    .from(member)
+                                    .orderBy(member.username.asc())
+                                    .fetch()),
+        SELECT_SCALAR_DTO(1, 0, qf -> qf.select(Projections.fields(UserDto.class,
+                                                                   member.username.as("name"),
+                                                                   ExpressionUtils.as(select(memberSub.age.max())
+                                                                                              .from(memberSub), "age")))
+                                        .from(member)
+                                        .orderBy(member.username.asc())
+                                        .fetch()),
+        IN(0, 1, qf -> qf.selectFrom(member)
+                         .where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.gt(10))))
+                         .orderBy(member.age.asc())
+                         .fetch()),
+        IN_UNDER_OR(0, 1, qf -> qf.selectFrom(member)
+                                  .where(member.username.eq("member1")
+                                                        .or(member.age.in(select(memberSub.age)
+                                                                                  .from(memberSub)
+                                                                                  .where(memberSub.age.gt(30)))))
+                                  .orderBy(member.age.asc())
+                                  .fetch()),
+        IN_WITH_NULL_TEAM(0, 1, qf -> qf.selectFrom(member)
+                                        .where(member.team.id.in(select(teamSub.id)
+                                                                         .from(teamSub)
+                                                                         .where(teamSub.name.eq("teamA"))))
+                                        .orderBy(member.age.asc())
+                                        .fetch()),
+        NOT_IN(0, 0, qf -> qf.selectFrom(member)
+                             .where(member.age.notIn(select(memberSub.age).from(memberSub).where(memberSub.age.gt(10))))
+                             .fetch()),
+        NOT_OVER_IN(0, 0, qf -> qf.selectFrom(member)
+                                  .where(member.team.id.in(select(teamSub.id).from(teamSub)).not())
+                                  .fetch()),
+        CORRELATED(0, 0, qf -> qf.selectFrom(member)
+                                 .where(member.age.eq(select(memberSub.age.max())
+                                                              .from(memberSub)
+                                                              .where(memberSub.team.eq(member.team))))
+                                 .orderBy(member.age.asc())
+                                 .fetch());
+
+        final int scalar;
+        final int semiJoin;
+        final Function<JPAQueryFactory, List<?>> query;
+
+        Case(int scalar, int semiJoin, Function<JPAQueryFactory, List<?>> query) {
+            this.scalar = scalar;
+            this.semiJoin = semiJoin;
+            this.query = query;
+        }
+    }
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory plain;
+    RewritingJPAQueryFactory rewriting;
+
+    @BeforeEach
+    void setUp() {
+        plain = new JPAQueryFactory(em);
+        rewriting = new RewritingJPAQueryFactory(em, new JpqlShapeCache(100), new SubQueryRewriter(true, true));
+
+        var teamA = new Team("teamA");
+        var teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 25));
+        em.flush();
+        em.clear();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Case.class)
+    void testEquivalent(Case c) {
+        var expected = normalize(c.query.apply(plain));
+        var rewriter = rewriting.getRewriter();
+
+        var result = normalize(c.query.apply(rewriting));
+
+        assertEquals(expected, result);
+        assertEquals(c.scalar, rewriter.getScalarRewriteCount());
+        assertEquals(c.semiJoin, rewriter.getSemiJoinRewriteCount());
+    }
+
+    /**
+     * 같은 구조는 값이 달라도 JPQL 캐시를 같이 쓴다
+     */
+    @Test
+    void testScalarConstantUsesShapeCache() {
+        for (int i = 0; i < 3; i++) {
+            rewriting.selectFrom(member).where(member.age.eq(select(memberSub.age.max()).from(memberSub))).fetch();
+        }
+
+        assertEquals(3, rewriting.getRewriter().getScalarRewriteCount());
+        assertTrue(rewriting.getCache().getHitCount() >= 2);
+    }
+
+    @Test
+    void testToStringShowsOriginalQuery() {
+        var query = rewriting.selectFrom(member).where(member.age.eq(select(memberSub.age.max()).from(memberSub)));
+
+        assertTrue(query.toString().contains("max(memberSub.age)"));
+        assertEquals(0, rewriting.getRewriter().getScalarRewriteCount());
+    }
+
+    private static List<?> normalize(List<?> rows) {
+        return rows.stream()
+                   .map(row -> row instanceof Tuple ? Arrays.asList(((Tuple) row).toArray()) : row)
+                   .collect(Collectors.toList());
+    }
+}
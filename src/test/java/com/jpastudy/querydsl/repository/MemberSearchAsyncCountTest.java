@@ -0,0 +1,94 @@
+package com.jpastudy.querydsl.repository;
+
+import com.jpastudy.querydsl.dto.MemberSearchCondition;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * count 가 별도 커넥션에서 실행되어 커밋된 데이터만 보므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+ */
+@SpringBootTest
+class MemberSearchAsyncCountTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberSearchRepository memberSearchRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            var teamA = new Team("teamA");
+            var teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    void testFullPageUsesCount() {
+        var result = memberSearchRepository.searchWithAsyncCount(new MemberSearchCondition(), PageRequest.of(0, 3));
+
+        assertEquals(4, result.getTotalElements());
+        assertEquals(2, result.getTotalPages());
+        assertEquals("member1", result.getContent().get(0).getUsername());
+    }
+
+    /**
+     * 마지막 페이지와 짧은 첫 페이지는 count 를 기다리지 않고 건수를 추론한다
+     */
+    @Test
+    void testInferredTotal() {
+        var last = memberSearchRepository.searchWithAsyncCount(new MemberSearchCondition(), PageRequest.of(1, 3));
+        assertEquals(4, last.getTotalElements());
+        assertEquals("member4", last.getContent().get(0).getUsername());
+
+        var condition = new MemberSearchCondition(null, "teamB", null, null);
+        var shortFirst = memberSearchRepository.searchWithAsyncCount(condition, PageRequest.of(0, 10));
+        assertEquals(2, shortFirst.getTotalElements());
+    }
+
+    @Test
+    void testRepeatedSearchesReleaseConnections() {
+        // 취소된 count 가 커넥션을 붙잡고 있으면 풀 크기를 넘는 반복에서 막힌다
+        for (int i = 0; i < 50; i++) {
+            var result = memberSearchRepository.searchWithAsyncCount(new MemberSearchCondition(),
+                                                                     PageRequest.of(i % 2, 3));
+            assertEquals(4, result.getTotalElements());
+        }
+    }
+}
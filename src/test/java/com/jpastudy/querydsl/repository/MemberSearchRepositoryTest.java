@@ -0,0 +1,126 @@
+package com.jpastudy.querydsl.repository;
+
+import com.jpastudy.querydsl.dto.MemberSearchCondition;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberSearchRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberSearchRepository memberSearchRepository;
+
+    @BeforeEach
+    void setUp() {
+        var teamA = new Team("teamA");
+        var teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    void testSearchFirstPage() {
+        var result = memberSearchRepository.search(new MemberSearchCondition(), PageRequest.of(0, 3));
+
+        assertEquals(4, result.getTotalElements());
+        assertEquals(3, result.getContent().size());
+        assertEquals("member1", result.getContent().get(0).getUsername());
+    }
+
+    /**
+     * 마지막 페이지는 offset + 컨텐츠 크기로 전체 건수를 알 수 있다
+     */
+    @Test
+    void testSearchLastPage() {
+        var result = memberSearchRepository.search(new MemberSearchCondition(), PageRequest.of(1, 3));
+
+        assertEquals(4, result.getTotalElements());
+        assertEquals(1, result.getContent().size());
+        assertEquals("member4", result.getContent().get(0).getUsername());
+    }
+
+    @Test
+    void testSearchCondition() {
+        var condition = new MemberSearchCondition(null, "teamB", 35, 40);
+        var result = memberSearchRepository.search(condition, PageRequest.of(0, 10));
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals("member4", result.getContent().get(0).getUsername());
+        assertEquals("teamB", result.getContent().get(0).getTeamName());
+    }
+
+    @Test
+    void testTotalCountCache() {
+        var now = Instant.parse("2026-01-01T00:00:00Z");
+        var clock = new MutableClock(now);
+        var cache = new TotalCountCache(Duration.ofSeconds(30), 100, clock);
+
+        assertEquals(4, cache.get(member.age.gt(10), () -> 4));
+        assertEquals(4, cache.get(member.age.gt(10), () -> 100));
+        assertEquals(7, cache.get(member.age.gt(20), () -> 7));
+
+        clock.instant = now.plusSeconds(31);
+        assertNull(cache.getIfPresent(member.age.gt(10)));
+    }
+
+    /**
+     * 검색어마다 키가 생겨도 최대 개수를 넘지 않는다
+     */
+    @Test
+    void testTotalCountCacheIsBounded() {
+        var cache = new TotalCountCache(Duration.ofMinutes(1), 10);
+
+        for (int age = 0; age < 1_000; age++) {
+            cache.put(member.age.eq(age), age);
+        }
+
+        assertTrue(cache.size() <= 10, "size: " + cache.size());
+    }
+
+    static class MutableClock extends Clock {
+        Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.jpastudy.querydsl.repository;
+
+import com.jpastudy.querydsl.dto.MemberDto;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.jdbc.StatementScope;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class TeamGraphLoaderTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamGraphLoader loader;
+
+    /**
+     * team{i} 에 회원 i 명
+     */
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            var t = new Team("team" + i);
+            em.persist(t);
+            for (int j = 0; j < i; j++) {
+                em.persist(new Member("member" + i + "-" + j, j * 10, t));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testTeamsWithMembers() {
+        List<Team> teams;
+        try (var scope = StatementScope.open()) {
+            teams = loader.findTeamsWithMembers(team.name.startsWith("team"), 1, 3);
+            for (Team t : teams) {
+                assertTrue(Hibernate.isInitialized(t.getMembers()));
+                t.getMembers().forEach(Member::getUsername);
+            }
+            // 팀 id 페이지, 팀, 회원
+            assertEquals(3, scope.getStatementCount());
+        }
+
+        assertEquals(List.of("team1", "team2", "team3"), names(teams));
+        assertEquals(List.of(1, 2, 3), teams.stream().map(t -> t.getMembers().size()).collect(Collectors.toList()));
+        assertEquals(List.of("member3-0", "member3-1", "member3-2"),
+                     teams.get(2).getMembers().stream().map(Member::getUsername).collect(Collectors.toList()));
+        assertSame(teams.get(2), teams.get(2).getMembers().get(0).getTeam());
+    }
+
+    @Test
+    void testAssembledCollectionIsNotDirty() {
+        var teams = loader.findTeamsWithMembers(null, 0, 5);
+
+        try (var scope = StatementScope.open()) {
+            em.flush();
+            assertEquals(0, scope.getStatementCount());
+        }
+        assertEquals(10, teams.stream().mapToInt(t -> t.getMembers().size()).sum());
+    }
+
+    /**
+     * 채운 컬렉션은 batch fetch 대기열에서 빠져 다른 팀 members 의 batch 조회 키에 끼지 않는다
+     */
+    @Test
+    void testAssembledCollectionLeavesBatchQueue() {
+        var assembled = loader.findTeamsWithMembers(team.name.in("team1", "team2", "team3"), 0, 3);
+        var others = em.createQuery("select t from Team t where t.name in ('team0', 'team4') order by t.id", Team.class)
+                       .getResultList();
+
+        var session = em.unwrap(SessionImplementor.class);
+        var persister = session.getFactory().getMetamodel().collectionPersister(Team.class.getName() + ".members");
+        var keys = session.getPersistenceContextInternal()
+                          .getBatchFetchQueue()
+                          .getCollectionBatch(persister, others.get(0).getId(), 10);
+
+        var batch = Arrays.stream(keys).filter(Objects::nonNull).collect(Collectors.toSet());
+        assertEquals(Set.of(others.get(0).getId(), others.get(1).getId()), batch);
+        assembled.forEach(t -> assertFalse(batch.contains(t.getId())));
+    }
+
+    @Test
+    void testBatchSize() {
+        try (var scope = StatementScope.open()) {
+            var teams = loader.findTeamsWithMembers(null, 0, 5, 2);
+            assertEquals(5, teams.size());
+            // 팀 id 페이지 + (팀, 회원) × 3 묶음
+            assertEquals(7, scope.getStatementCount());
+        }
+    }
+
+    @Test
+    void testDtos() {
+        try (var scope = StatementScope.open()) {
+            var teams = loader.findTeamDtos(null, 2, 2);
+
+            assertEquals(2, scope.getStatementCount());
+            assertEquals(2, teams.size());
+            assertEquals("team2", teams.get(0).getName());
+            assertEquals(List.of(new MemberDto("member2-0", 0), new MemberDto("member2-1", 10)),
+                         teams.get(0).getMembers());
+            assertEquals(3, teams.get(1).getMembers().size());
+        }
+        assertTrue(loader.findTeamDtos(team.name.eq("none"), 0, 10).isEmpty());
+    }
+
+    private static List<String> names(List<Team> teams) {
+        return teams.stream().map(Team::getName).collect(Collectors.toList());
+    }
+}
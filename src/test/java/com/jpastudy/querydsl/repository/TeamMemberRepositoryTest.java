@@ -0,0 +1,119 @@
+package com.jpastudy.querydsl.repository;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.jdbc.StatementScope;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class TeamMemberRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamMemberRepository teamMemberRepository;
+
+    Long teamAId;
+    Long teamBId;
+    Long memberId;
+
+    /**
+     * teamA 에 회원 5 명, teamB 에 2 명
+     */
+    @BeforeEach
+    void setUp() {
+        var teamA = new Team("teamA");
+        var teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 5; i++) {
+            var m = new Member("a" + i, i, teamA);
+            em.persist(m);
+            memberId = m.getId();
+        }
+        em.persist(new Member("b0", 0, teamB));
+        em.persist(new Member("b1", 1, teamB));
+        teamAId = teamA.getId();
+        teamBId = teamB.getId();
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testChangeTeamDoesNotInitializeMembers() {
+        var teamA = em.find(Team.class, teamAId);
+        var teamB = em.find(Team.class, teamBId);
+        var moved = em.find(Member.class, memberId);
+
+        try (var scope = StatementScope.open()) {
+            moved.changeTeam(teamB);
+            assertEquals(0, scope.getStatementCount());
+        }
+        assertFalse(Hibernate.isInitialized(teamA.getMembers()));
+        assertFalse(Hibernate.isInitialized(teamB.getMembers()));
+
+        // flush 전에 읽어도 쌓인 remove/add 가 반영된다
+        assertEquals(4, teamA.getMembers().size());
+        assertFalse(teamA.getMembers().contains(moved));
+        assertEquals(3, teamB.getMembers().size());
+        assertTrue(teamB.getMembers().contains(moved));
+    }
+
+    @Test
+    void testChangeTeamOnLoadedMembers() {
+        var teamA = em.find(Team.class, teamAId);
+        var teamB = em.find(Team.class, teamBId);
+        teamA.getMembers().size();
+        var moved = em.find(Member.class, memberId);
+
+        moved.changeTeam(teamB);
+        moved.changeTeam(teamB);
+
+        assertEquals(4, teamA.getMembers().size());
+        assertEquals(3, teamB.getMembers().size());
+        em.flush();
+        em.clear();
+        assertEquals(3, em.find(Team.class, teamBId).getMembers().size());
+    }
+
+    @Test
+    void testCountAndExistsWithoutInitializing() {
+        var teamA = em.find(Team.class, teamAId);
+        var teamB = em.find(Team.class, teamBId);
+        var moved = em.find(Member.class, memberId);
+        moved.changeTeam(teamB);
+        em.flush();
+
+        try (var scope = StatementScope.open()) {
+            assertEquals(4, teamMemberRepository.countMembers(teamA));
+            assertEquals(3, teamMemberRepository.countMembers(teamB));
+            assertTrue(teamMemberRepository.containsMember(teamB, moved));
+            assertFalse(teamMemberRepository.containsMember(teamA, moved));
+            assertEquals(4, scope.getStatementCount());
+        }
+        assertFalse(Hibernate.isInitialized(teamA.getMembers()));
+        assertFalse(Hibernate.isInitialized(teamB.getMembers()));
+    }
+
+    @Test
+    void testCountLoadedMembersInMemory() {
+        var teamA = em.find(Team.class, teamAId);
+        teamA.getMembers().size();
+
+        try (var scope = StatementScope.open()) {
+            assertEquals(5, teamMemberRepository.countMembers(teamA));
+            assertTrue(teamMemberRepository.containsMember(teamA, teamA.getMembers().get(0)));
+            assertEquals(0, scope.getStatementCount());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.jpastudy.querydsl.search;
+
+import com.jpastudy.querydsl.dto.MemberSearchCondition;
+import com.jpastudy.querydsl.dto.MemberTeamDto;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.jdbc.StatementScope;
+import com.jpastudy.querydsl.repository.MemberSearchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberSearchEngineTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberSearchEngine engine;
+    @Autowired
+    MemberSearchRepository memberSearchRepository;
+
+    @BeforeEach
+    void setUp() {
+        var teamA = new Team("teamA");
+        var teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("member" + i, i * 5, i % 2 == 0 ? teamA : teamB));
+        }
+        em.persist(new Member("member1", 99));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testSameResultsAsDynamicWhere() {
+        for (MemberSearchCondition condition : conditions()) {
+            var expected = memberSearchRepository.search(condition, PageRequest.of(0, 100));
+            var actual = engine.search(condition, MemberSearchSort.ID, PageRequest.of(0, 100));
+
+            assertEquals(expected.getContent(), actual.getContent(), condition.toString());
+            assertEquals(expected.getTotalElements(), actual.getTotalElements(), condition.toString());
+        }
+    }
+
+    @Test
+    void testShapesAreBounded() {
+        var sql = new HashSet<String>();
+        var dynamicSql = new HashSet<String>();
+        for (MemberSearchCondition condition : conditions()) {
+            for (MemberSearchSort sort : MemberSearchSort.values()) {
+                for (int page = 0; page < 2; page++) {
+                    try (var scope = StatementScope.open()) {
+                        engine.search(condition, sort, PageRequest.of(page, 3));
+                        sql.addAll(scope.getCountsByShape().keySet());
+                    }
+                }
+            }
+            try (var scope = StatementScope.open()) {
+                memberSearchRepository.search(condition, PageRequest.of(0, 3));
+                dynamicSql.addAll(scope.getCountsByShape().keySet());
+            }
+        }
+
+        assertTrue(sql.size() <= MemberSearchEngine.MAX_SHAPES, sql.toString());
+        assertTrue(engine.getShapes().size() <= MemberSearchEngine.MAX_SHAPES, engine.getShapes().toString());
+        // 정렬을 빼면 username 유무와 count 로 4 가지. 조건마다 where 를 만들면 조합 수만큼 늘어난다
+        assertTrue(dynamicSql.size() > 4, dynamicSql.toString());
+    }
+
+    @Test
+    void testSortAndPage() {
+        var condition = new MemberSearchCondition(null, "teamA", 10, null);
+
+        var first = engine.search(condition, MemberSearchSort.AGE_DESC, PageRequest.of(0, 3));
+        var second = engine.search(condition, MemberSearchSort.AGE_DESC, PageRequest.of(1, 3));
+
+        assertEquals(List.of(90, 80, 70), ages(first.getContent()));
+        assertEquals(List.of(60, 50, 40), ages(second.getContent()));
+        assertEquals(9, first.getTotalElements());
+    }
+
+    @Test
+    void testEmptyAgeRange() {
+        try (var scope = StatementScope.open()) {
+            var page = engine.search(new MemberSearchCondition(null, null, 30, 20), MemberSearchSort.ID,
+                                     PageRequest.of(0, 10));
+
+            assertTrue(page.isEmpty());
+            assertEquals(0, scope.getStatementCount());
+        }
+    }
+
+    /**
+     * username / teamName / ageGoe / ageLoe 의 있고 없음 16 가지 조합. 공백은 없는 것으로 본다
+     */
+    private static List<MemberSearchCondition> conditions() {
+        var conditions = new ArrayList<MemberSearchCondition>();
+        for (int mask = 0; mask < 16; mask++) {
+            conditions.add(new MemberSearchCondition((mask & 1) != 0 ? "member1" : null,
+                                                     (mask & 2) != 0 ? "teamB" : " ",
+                                                     (mask & 4) != 0 ? 5 : null,
+                                                     (mask & 8) != 0 ? 60 : null));
+        }
+        return conditions;
+    }
+
+    private static List<Integer> ages(List<MemberTeamDto> content) {
+        return content.stream().map(MemberTeamDto::getAge).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,225 @@
+package com.jpastudy.querydsl.shard;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 파티션 쿼리는 풀 스레드의 트랜잭션에서 돌므로 데이터를 커밋해 둔다
+ */
+@SpringBootTest(properties = "jpastudy.shard.parallelism=3")
+class ShardedQueryExecutorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    ShardedQueryExecutor executor;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    /**
+     * team0..team3 에 회원 i * 3 명, 팀 없는 회원 1 명
+     */
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < 4; i++) {
+                var t = new Team("team" + i);
+                em.persist(t);
+                for (int j = 0; j < i * 3; j++) {
+                    em.persist(new Member("member" + i + "-" + j, (i * 7 + j * 5) % 40, t));
+                }
+            }
+            em.persist(new Member("solo", 99));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    void testPartitionsCoverAllMembers() {
+        for (PartitionKey key : PartitionKey.values()) {
+            var partitions = executor.partitions(key);
+            assertEquals(3, partitions.size(), key.name());
+
+            long total = tx.execute(status -> {
+                long sum = 0;
+                for (var partition : partitions) {
+                    sum += queryFactory.select(member.count()).from(member).where(partition).fetchOne();
+                }
+                return sum;
+            });
+            assertEquals(19, total, key.name());
+        }
+        assertEquals(1, executor.partitions(PartitionKey.MEMBER_ID, 1).size());
+    }
+
+    @Test
+    void testAggregation() {
+        for (PartitionKey key : PartitionKey.values()) {
+            var result = executor.aggregate(key, qf -> qf.from(member), List.of(),
+                                            member.count(),
+                                            member.age.sum(),
+                                            member.age.avg(),
+                                            member.age.max(),
+                                            member.age.min());
+
+            var expected = tx.execute(status -> queryFactory.select(member.count(),
+                                                                     member.age.sum(),
+                                                                     member.age.avg(),
+                                                                     member.age.max(),
+                                                                     member.age.min())
+                                                             .from(member)
+                                                             .fetchOne());
+            assertEquals(1, result.size());
+            var tuple = result.get(0);
+            assertEquals(expected.get(member.count()), tuple.get(member.count()));
+            assertEquals(expected.get(member.age.sum()), tuple.get(member.age.sum()));
+            assertEquals(expected.get(member.age.avg()), tuple.get(member.age.avg()), 1e-9);
+            assertEquals(expected.get(member.age.max()), tuple.get(member.age.max()));
+            assertEquals(expected.get(member.age.min()), tuple.get(member.age.min()));
+        }
+    }
+
+    @Test
+    void testGroupedAggregation() {
+        var result = executor.aggregate(PartitionKey.MEMBER_ID,
+                                        qf -> qf.from(member).join(member.team, team),
+                                        List.of(team.name),
+                                        member.count(), member.age.avg());
+
+        var expected = tx.execute(status -> queryFactory.select(team.name, member.count(), member.age.avg())
+                                                         .from(member)
+                                                         .join(member.team, team)
+                                                         .groupBy(team.name)
+                                                         .fetch());
+        assertEquals(expected.size(), result.size());
+        var byName = result.stream().collect(Collectors.toMap(t -> t.get(team.name), t -> t));
+        for (Tuple row : expected) {
+            var merged = byName.get(row.get(team.name));
+            assertEquals(row.get(member.count()), merged.get(member.count()));
+            assertEquals(row.get(member.age.avg()), merged.get(member.age.avg()), 1e-9);
+        }
+    }
+
+    @Test
+    void testEmptyAggregation() {
+        var result = executor.aggregate(PartitionKey.MEMBER_ID,
+                                        qf -> qf.from(member).where(member.age.gt(1000)),
+                                        List.of(),
+                                        member.count(), member.age.avg(), member.age.max());
+
+        assertEquals(1, result.size());
+        assertEquals(0L, result.get(0).get(member.count()));
+        assertNull(result.get(0).get(member.age.avg()));
+        assertNull(result.get(0).get(member.age.max()));
+    }
+
+    @Test
+    void testMergeSortedWithLimit() {
+        for (PartitionKey key : PartitionKey.values()) {
+            var page = executor.fetch(key, qf -> qf.selectFrom(member)
+                                                   .orderBy(member.age.desc(), member.username.asc())
+                                                   .offset(3)
+                                                   .limit(5));
+
+            var expected = tx.execute(status -> queryFactory.select(member.username)
+                                                             .from(member)
+                                                             .orderBy(member.age.desc(), member.username.asc())
+                                                             .offset(3)
+                                                             .limit(5)
+                                                             .fetch());
+            assertEquals(expected, page.stream().map(Member::getUsername).collect(Collectors.toList()), key.name());
+        }
+    }
+
+    @Test
+    void testMergeSortedTuples() {
+        var rows = executor.fetch(PartitionKey.TEAM_ID, qf -> qf.select(member.username, member.age)
+                                                                .from(member)
+                                                                .orderBy(member.age.asc(), member.username.desc())
+                                                                .limit(10));
+
+        var expected = tx.execute(status -> queryFactory.select(member.username)
+                                                         .from(member)
+                                                         .orderBy(member.age.asc(), member.username.desc())
+                                                         .limit(10)
+                                                         .fetch());
+        assertEquals(expected, rows.stream().map(t -> t.get(member.username)).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testExplicitComparator() {
+        Comparator<Member> byName = Comparator.comparing(Member::getUsername);
+        var rows = executor.fetch(PartitionKey.MEMBER_ID,
+                                  qf -> qf.selectFrom(member).orderBy(member.username.asc()).limit(3),
+                                  byName);
+
+        assertEquals(List.of("member1-0", "member1-1", "member1-2"),
+                     rows.stream().map(Member::getUsername).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testUnmergeable() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> executor.aggregate(PartitionKey.MEMBER_ID, qf -> qf.from(member), List.of(),
+                                              member.age.countDistinct()));
+        assertThrows(IllegalArgumentException.class,
+                     () -> executor.fetch(PartitionKey.MEMBER_ID, qf -> qf.select(member.username)
+                                                                          .from(member)
+                                                                          .orderBy(member.age.asc())));
+    }
+
+    /**
+     * 파티션 트랜잭션이 끝난 엔티티에서는 지연 로딩 연관을 읽을 수 없으므로 정렬 값으로 쓰지 않는다
+     */
+    @Test
+    void testAssociationOrderNeedsComparator() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> executor.fetch(PartitionKey.MEMBER_ID, qf -> qf.selectFrom(member)
+                                                                          .orderBy(member.team.name.asc())));
+    }
+
+    @Test
+    void testDefaultParallelismLeavesConnections() {
+        assertEquals(5, ShardedQueryExecutor.defaultParallelism(16, 10));
+        assertEquals(4, ShardedQueryExecutor.defaultParallelism(4, 10));
+        assertEquals(1, ShardedQueryExecutor.defaultParallelism(8, 1));
+    }
+
+    @Test
+    void testUnorderedConcatenation() {
+        var rows = executor.fetch(PartitionKey.TEAM_ID, qf -> qf.select(member.username).from(member));
+
+        assertEquals(19, rows.size());
+        assertEquals(19, rows.stream().distinct().count());
+    }
+}
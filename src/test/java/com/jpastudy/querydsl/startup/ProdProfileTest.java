@@ -0,0 +1,50 @@
+package com.jpastudy.querydsl.startup;
+
+import com.jpastudy.querydsl.HelloController;
+import com.jpastudy.querydsl.dto.TeamAgeStats;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.jpastudy.querydsl.stats.TeamStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * db/schema.sql 이 엔티티 매핑과 어긋나면 validate 에서 컨텍스트가 뜨지 않는다
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:prod-profile")
+@ActiveProfiles("prod")
+@Transactional
+class ProdProfileTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+    @Autowired
+    HelloController helloController;
+
+    @Test
+    void testSchemaScriptMatchesMappings() {
+        var team = new Team("teamA");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.persist(new Member("member2", 20, team));
+        em.flush();
+
+        // lazy-initialization 에서도 team_stats 리스너가 등록되어 있다
+        assertEquals(List.of(new TeamAgeStats("teamA", 2L, 30L, 10, 20)), teamStatsRepository.aggregateByTeamName());
+    }
+
+    @Test
+    void testHello() {
+        assertEquals("Hello", helloController.hello());
+    }
+}
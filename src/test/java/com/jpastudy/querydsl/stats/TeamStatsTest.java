@@ -0,0 +1,142 @@
+package com.jpastudy.querydsl.stats;
+
+import com.jpastudy.querydsl.bulk.BulkMutation;
+import com.jpastudy.querydsl.dto.TeamAgeStats;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.Set;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class TeamStatsTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    TeamStatsRepository repository;
+    @Autowired
+    TeamStatsConsistencyChecker checker;
+    @Autowired
+    TeamStatsMaintainer maintainer;
+
+    Team teamA;
+    Team teamB;
+    Member member1;
+    Member member4;
+
+    @BeforeEach
+    void setUp() {
+        repository.recomputeAll();
+
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        member1 = new Member("member1", 10, teamA);
+        member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(member4);
+        em.flush();
+    }
+
+    @Test
+    void testPersist() {
+        var result = repository.aggregateByTeamName();
+
+        assertEquals(List.of(new TeamAgeStats("teamA", 2L, 30L, 10, 20),
+                             new TeamAgeStats("teamB", 2L, 70L, 30, 40)), result);
+        assertEquals(15, result.get(0).getAvg());
+        assertEquals(List.of(), checker.check());
+    }
+
+    @Test
+    void testChangeTeam() {
+        member1.changeTeam(teamB);
+        em.flush();
+
+        assertEquals(List.of(new TeamAgeStats("teamA", 1L, 20L, 20, 20),
+                             new TeamAgeStats("teamB", 3L, 80L, 10, 40)), repository.aggregateByTeamName());
+        assertEquals(List.of(), checker.check());
+    }
+
+    /**
+     * 최댓값을 가진 회원이 빠지면 min/max 를 다시 계산한다
+     */
+    @Test
+    void testAgeChangeAndRemove() {
+        member1.setAge(15);
+        em.remove(member4);
+        em.flush();
+
+        assertEquals(List.of(new TeamAgeStats("teamA", 2L, 35L, 15, 20),
+                             new TeamAgeStats("teamB", 1L, 30L, 30, 30)), repository.aggregateByTeamName());
+        assertEquals(List.of(), checker.check());
+    }
+
+    @Test
+    void testNoFlushBeforeQuery() {
+        em.persist(new Member("member5", 50, teamA));
+
+        assertEquals(new TeamAgeStats("teamA", 3L, 80L, 10, 50), repository.aggregateByTeamName().get(0));
+    }
+
+    /**
+     * queryFactory 의 벌크 JPQL 도 닿은 팀을 다시 계산한다
+     */
+    @Test
+    void testBulkUpdateKeepsStats() {
+        queryFactory.update(member).set(member.age, 99).execute();
+
+        assertEquals(List.of(new TeamAgeStats("teamA", 2L, 198L, 99, 99),
+                             new TeamAgeStats("teamB", 2L, 198L, 99, 99)), repository.aggregateByTeamName());
+        assertEquals(List.of(), checker.check());
+    }
+
+    @Test
+    void testBulkDeleteKeepsStats() {
+        queryFactory.delete(member).where(member.age.goe(30)).execute();
+
+        assertEquals(List.of(new TeamAgeStats("teamA", 2L, 30L, 10, 20)), repository.aggregateByTeamName());
+        assertEquals(List.of(), checker.check());
+    }
+
+    /**
+     * 이름만 바꾸는 벌크 JPQL 은 집계 훅을 건너뛴다
+     */
+    @Test
+    void testBulkUpdateOfUnrelatedColumnSkipsHook() {
+        assertFalse(maintainer.supports(BulkMutation.statement(member, member.id, null, Set.of("username"))));
+        assertTrue(maintainer.supports(BulkMutation.statement(member, member.id, null, Set.of("age"))));
+    }
+
+    /**
+     * 이벤트를 거치지 않는 네이티브 SQL 은 검사기가 잡아내고 재계산으로 맞춘다
+     */
+    @Test
+    void testDetectDriftAfterNativeUpdate() {
+        em.createNativeQuery("update member set age = 99").executeUpdate();
+
+        var drifts = checker.check();
+
+        assertEquals(2, drifts.size());
+        assertEquals(new TeamAgeStats("teamA", 2L, 198L, 99, 99), drifts.get(0).getExpected());
+        repository.recomputeAll();
+        assertEquals(List.of(), checker.check());
+    }
+}
@@ -0,0 +1,80 @@
+package com.jpastudy.querydsl.stream;
+
+import com.jpastudy.querydsl.dto.MemberDto;
+import com.jpastudy.querydsl.dto.QMemberDto;
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.stream.Collectors;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class StreamingQueryFactoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    StreamingQueryFactory streamingQueryFactory;
+
+    @BeforeEach
+    void setUp() {
+        var teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 10; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * clearInterval 마다 영속성 컨텍스트를 비우므로 앞서 넘겨받은 엔티티는 준영속 상태가 된다
+     */
+    @Test
+    void testStreamEntities() {
+        var seen = new ArrayList<Member>();
+        try (var rows = streamingQueryFactory.stream(queryFactory.selectFrom(member).orderBy(member.age.asc()), 2, 3)) {
+            rows.forEach(seen::add);
+        }
+
+        assertEquals(10, seen.size());
+        assertEquals("member1", seen.get(0).getUsername());
+        assertFalse(em.contains(seen.get(0)));
+        assertTrue(em.contains(seen.get(9)));
+    }
+
+    @Test
+    void testStreamTuple() {
+        try (var rows = streamingQueryFactory.stream(queryFactory.select(member.username, member.age)
+                                                                 .from(member)
+                                                                 .orderBy(member.age.desc()))) {
+            Tuple first = rows.findFirst().orElseThrow();
+            assertEquals("member10", first.get(member.username));
+            assertEquals(100, first.get(member.age));
+        }
+    }
+
+    @Test
+    void testStreamDto() {
+        try (var rows = streamingQueryFactory.stream(queryFactory.select(new QMemberDto(member.username, member.age))
+                                                                 .from(member)
+                                                                 .where(member.age.goe(50)))) {
+            var ages = rows.map(MemberDto::getAge).collect(Collectors.toSet());
+            assertEquals(6, ages.size());
+        }
+    }
+}
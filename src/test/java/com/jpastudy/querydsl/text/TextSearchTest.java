@@ -0,0 +1,176 @@
+package com.jpastudy.querydsl.text;
+
+import com.jpastudy.querydsl.entity.Member;
+import com.jpastudy.querydsl.entity.Team;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.Set;
+
+import static com.jpastudy.querydsl.entity.QMember.member;
+import static com.jpastudy.querydsl.entity.QTeam.team;
+import static com.jpastudy.querydsl.entity.QTextGram.textGram;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class TextSearchTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    TextSearch textSearch;
+    @Autowired
+    TextIndexRepository repository;
+
+    Member kim;
+
+    @BeforeEach
+    void setUp() {
+        var development = new Team("Development");
+        var design = new Team("Design");
+        em.persist(development);
+        em.persist(design);
+        kim = new Member("Kim", 10, development);
+        em.persist(kim);
+        em.persist(new Member("kimchi", 20, development));
+        em.persist(new Member("MAXIMUM", 30, design));
+        em.persist(new Member("Lee", 40, design));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testGrams() {
+        assertEquals(Set.of("\u0002k", "\u0002ki", "kim"), NGrams.of("Kim"));
+        assertEquals(Set.of("xim", "imu"), NGrams.infix("XIMU"));
+        assertTrue(NGrams.infix("im").isEmpty());
+        assertEquals(Set.of("\u0002k"), NGrams.prefix("K"));
+        assertEquals(Set.of("\u0002ki", "kim"), NGrams.prefix("kIm"));
+    }
+
+    @Test
+    void testContains() {
+        assertEquals(List.of("MAXIMUM"), usernames(textSearch.usernameContains(member, "XIM")));
+        assertEquals(List.of("kimchi"), usernames(textSearch.usernameContains(member, "mch")));
+        // 세 글자 미만은 like 로 찾는다
+        assertEquals(List.of("Kim", "MAXIMUM", "kimchi"), usernames(textSearch.usernameContains(member, "im")));
+        assertTrue(usernames(textSearch.usernameContains(member, "kimx")).isEmpty());
+    }
+
+    @Test
+    void testStartsWith() {
+        assertEquals(List.of("Kim", "kimchi"), usernames(textSearch.usernameStartsWith(member, "K")));
+        assertEquals(List.of("kimchi"), usernames(textSearch.usernameStartsWith(member, "KIMC")));
+        assertTrue(usernames(textSearch.usernameStartsWith(member, "im")).isEmpty());
+    }
+
+    @Test
+    void testTeamName() {
+        var result = queryFactory.select(member.username)
+                                 .from(member)
+                                 .join(member.team, team)
+                                 .where(textSearch.nameContains(team, "velop"),
+                                        textSearch.usernameStartsWith(member, "ki"))
+                                 .orderBy(member.username.asc())
+                                 .fetch();
+        assertEquals(List.of("Kim", "kimchi"), result);
+        assertEquals(List.of("Design", "Development"),
+                     queryFactory.select(team.name)
+                                 .from(team)
+                                 .where(textSearch.nameStartsWith(team, "de"))
+                                 .orderBy(team.name.asc())
+                                 .fetch());
+    }
+
+    @Test
+    void testEmptyTextMatchesEverything() {
+        assertNull(textSearch.usernameContains(member, ""));
+        assertEquals(4, usernames(textSearch.usernameStartsWith(member, null)).size());
+    }
+
+    @Test
+    void testIndexFollowsChanges() {
+        var renamed = em.find(Member.class, kim.getId());
+        renamed.setUsername("Park");
+
+        // text_gram 조회 전에 회원 변경이 flush 된다
+        assertEquals(List.of("kimchi"), usernames(textSearch.usernameStartsWith(member, "kim")));
+        assertEquals(List.of("Park"), usernames(textSearch.usernameContains(member, "ARK")));
+        assertEquals(NGrams.of("Park").size(), grams(renamed.getId()));
+
+        em.remove(renamed);
+        em.flush();
+        assertEquals(0, grams(renamed.getId()));
+    }
+
+    /**
+     * queryFactory 의 벌크 update/delete 는 닿은 id 범위를 다시 색인한다
+     */
+    @Test
+    void testBulkUpdate() {
+        queryFactory.update(member).set(member.username, "Choi").where(member.id.eq(kim.getId())).execute();
+
+        assertEquals(List.of("Choi"), usernames(textSearch.usernameContains(member, "hoi")));
+        assertEquals(List.of("kimchi"), usernames(textSearch.usernameStartsWith(member, "kim")));
+
+        queryFactory.delete(member).where(member.id.eq(kim.getId())).execute();
+        assertEquals(0, grams(kim.getId()));
+    }
+
+    /**
+     * 벌크 문은 조건에 맞는 행만 다시 색인한다. id 가 그 사이에 있는 다른 행은 건드리지 않는다
+     */
+    @Test
+    void testBulkUpdateReindexesOnlyMatchedRows() {
+        em.createNativeQuery("update member set username = 'Park' where username = 'kimchi'").executeUpdate();
+
+        queryFactory.update(member)
+                    .set(member.username, member.username.upper())
+                    .where(member.username.in("Kim", "MAXIMUM"))
+                    .execute();
+
+        assertEquals(List.of("KIM"), usernames(textSearch.usernameStartsWith(member, "kim")));
+        // kimchi 는 Kim 과 MAXIMUM 사이의 id 지만 다시 색인되지 않는다
+        assertTrue(usernames(textSearch.usernameContains(member, "ark")).isEmpty());
+    }
+
+    /**
+     * 이벤트를 거치지 않는 네이티브 SQL 뒤에는 다시 만들어야 한다
+     */
+    @Test
+    void testRebuild() {
+        em.createNativeQuery("update member set username = 'Choi' where member_id = ?")
+          .setParameter(1, kim.getId())
+          .executeUpdate();
+        assertTrue(usernames(textSearch.usernameContains(member, "hoi")).isEmpty());
+
+        repository.rebuildAll();
+
+        assertEquals(List.of("Choi"), usernames(textSearch.usernameContains(member, "hoi")));
+    }
+
+    private List<String> usernames(Predicate predicate) {
+        return queryFactory.select(member.username)
+                           .from(member)
+                           .where(predicate)
+                           .orderBy(member.username.asc())
+                           .fetch();
+    }
+
+    private long grams(Long ownerId) {
+        return queryFactory.select(textGram.count())
+                           .from(textGram)
+                           .where(textGram.field.eq(TextField.MEMBER_USERNAME), textGram.ownerId.eq(ownerId))
+                           .fetchOne();
+    }
+}